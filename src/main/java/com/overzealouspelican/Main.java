@@ -3,6 +3,8 @@ package com.overzealouspelican;
 import javax.swing.*;
 import com.formdev.flatlaf.FlatLightLaf;
 import com.overzealouspelican.frame.MainFrame;
+import com.overzealouspelican.service.ConnectionWarmer;
+import com.overzealouspelican.service.DnsPrefetcher;
 import com.overzealouspelican.service.SettingsService;
 import com.overzealouspelican.util.UITheme;
 
@@ -18,6 +20,12 @@ public class Main {
         // in HttpClientFactory is still scoped to localhost-only requests.
         System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
 
+        // Host lookups are cached by DnsCache (installed as the JVM resolver) with per-environment TTLs.
+        // The JVM's own address cache would sit in front of it with fixed TTLs, so turn it off; like the
+        // property above, this is read once, on the first lookup.
+        java.security.Security.setProperty("networkaddress.cache.ttl", "0");
+        java.security.Security.setProperty("networkaddress.cache.negative.ttl", "0");
+
         // Load and apply saved theme before creating any UI
         SettingsService settingsService = new SettingsService();
         settingsService.loadAndApplyTheme();
@@ -35,6 +43,11 @@ public class Main {
         // Apply modern UI defaults (rounded corners, spacing, accent colors)
         UITheme.applyGlobalDefaults();
 
+        // Pre-resolve the hosts of each environment as it is selected, starting with the one the frame loads,
+        // and open connections to its origins if the environment asks for it
+        DnsPrefetcher.getInstance().install();
+        ConnectionWarmer.getInstance().install();
+
         // Create and display the main frame
         MainFrame mainFrame = new MainFrame();
         mainFrame.display();
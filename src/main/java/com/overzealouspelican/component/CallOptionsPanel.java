@@ -0,0 +1,247 @@
+package com.overzealouspelican.component;
+
+import javax.swing.*;
+import java.awt.*;
+import java.net.http.HttpClient;
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.service.EnvironmentSettings;
+import com.overzealouspelican.util.UITheme;
+
+/**
+ * Reusable row of per-call transport options shown under the URL.
+ * "Environment" leaves the option unset on the call so the environment's protocaller.* setting applies.
+ * Streaming has no environment setting; "Auto" decides by the response's Content-Type.
+ */
+public class CallOptionsPanel extends JPanel {
+
+    private static final String USE_ENVIRONMENT = "Environment";
+
+    private static final String ON = "On";
+    private static final String OFF = "Off";
+    private static final String AUTO = "Auto";
+
+    private final JComboBox<String> protocolDropdown;
+    private final JComboBox<String> compressionDropdown;
+    private final JComboBox<String> retriesDropdown;
+    private final JComboBox<String> hedgeDropdown;
+    private final JButton timeoutsButton;
+    private final JComboBox<String> streamDropdown;
+    // Timeouts of the call being edited, in the protocaller.timeout format; null uses the environment's
+    private String connectTimeout;
+    private String readTimeout;
+    private String timeout;
+
+    public CallOptionsPanel() {
+        this.protocolDropdown = new JComboBox<>(new String[]{USE_ENVIRONMENT, "HTTP/1.1", "HTTP/2"});
+        this.compressionDropdown = new JComboBox<>(new String[]{USE_ENVIRONMENT, ON, OFF});
+        this.retriesDropdown = new JComboBox<>(new String[]{USE_ENVIRONMENT, "0", "1", "2", "3", "5"});
+        this.hedgeDropdown = new JComboBox<>(new String[]{USE_ENVIRONMENT, OFF, "p90", "p95", "p99"});
+        this.timeoutsButton = new JButton();
+        this.streamDropdown = new JComboBox<>(new String[]{AUTO, ON, OFF});
+        initializePanel();
+    }
+
+    private void initializePanel() {
+        setLayout(new FlowLayout(FlowLayout.LEFT, UITheme.SPACING_SM, 0));
+        setMaximumSize(new Dimension(Integer.MAX_VALUE, UITheme.INPUT_HEIGHT));
+        setAlignmentX(Component.LEFT_ALIGNMENT);
+        setBackground(UIManager.getColor("Panel.background"));
+
+        protocolDropdown.setToolTipText("HTTP version for this call; Environment uses protocaller.httpVersion, "
+            + "otherwise HTTP/2 is negotiated with a fallback to HTTP/1.1");
+        add(createLabel("Protocol"));
+        add(protocolDropdown);
+
+        compressionDropdown.setToolTipText("Send Accept-Encoding: gzip, deflate; Environment uses protocaller.compression. "
+            + "Compressed responses are always decoded.");
+        add(Box.createHorizontalStrut(UITheme.SPACING_SM));
+        add(createLabel("Compression"));
+        add(compressionDropdown);
+
+        retriesDropdown.setToolTipText("Retries after a transient failure such as a 503 or a reset connection; "
+            + "Environment uses protocaller.retries. POST and PATCH are only retried with an Idempotency-Key.");
+        add(Box.createHorizontalStrut(UITheme.SPACING_SM));
+        add(createLabel("Retries"));
+        add(retriesDropdown);
+
+        hedgeDropdown.setEditable(true);
+        hedgeDropdown.setToolTipText("Send a backup GET once this one is slower than a percentile of recent calls "
+            + "to the host, or after a number of milliseconds; Environment uses protocaller.hedge");
+        add(Box.createHorizontalStrut(UITheme.SPACING_SM));
+        add(createLabel("Hedge"));
+        add(hedgeDropdown);
+
+        timeoutsButton.setToolTipText("Connect, read and total timeouts for this call; unset ones use "
+            + "protocaller.connectTimeout, protocaller.readTimeout and protocaller.timeout");
+        timeoutsButton.addActionListener(e -> editTimeouts());
+        add(Box.createHorizontalStrut(UITheme.SPACING_SM));
+        add(createLabel("Timeouts"));
+        add(timeoutsButton);
+        updateTimeoutsButton();
+
+        streamDropdown.setToolTipText("Show the response event by event while it arrives; Auto streams "
+            + "text/event-stream and NDJSON responses, On streams any response line by line");
+        add(Box.createHorizontalStrut(UITheme.SPACING_SM));
+        add(createLabel("Stream"));
+        add(streamDropdown);
+    }
+
+    /**
+     * Let the user edit the three timeouts; invalid values are reported and nothing changes
+     */
+    private void editTimeouts() {
+        JComboBox<String> connectField = createTimeoutField(connectTimeout);
+        JComboBox<String> readField = createTimeoutField(readTimeout);
+        JComboBox<String> totalField = createTimeoutField(timeout);
+
+        JPanel form = new JPanel(new GridLayout(3, 2, UITheme.SPACING_SM, UITheme.SPACING_SM));
+        form.add(new JLabel("Connect:"));
+        form.add(connectField);
+        form.add(new JLabel("Read (until the response starts):"));
+        form.add(readField);
+        form.add(new JLabel("Total (retries and body included):"));
+        form.add(totalField);
+
+        int choice = JOptionPane.showConfirmDialog(this, form, "Call Timeouts",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        try {
+            String connect = timeoutValue(connectField, EnvironmentSettings.CONNECT_TIMEOUT);
+            String read = timeoutValue(readField, EnvironmentSettings.READ_TIMEOUT);
+            String total = timeoutValue(totalField, EnvironmentSettings.TIMEOUT);
+            connectTimeout = connect;
+            readTimeout = read;
+            timeout = total;
+            updateTimeoutsButton();
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Timeout", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static JComboBox<String> createTimeoutField(String value) {
+        JComboBox<String> field = new JComboBox<>(new String[]{USE_ENVIRONMENT, "1s", "5s", "10s", "30s", "60s", OFF});
+        field.setEditable(true);
+        field.setSelectedItem(value == null ? USE_ENVIRONMENT : "off".equals(value) ? OFF : value);
+        return field;
+    }
+
+    /**
+     * The entered timeout, or null to use the environment's
+     *
+     * @throws IllegalArgumentException if it is not a valid timeout
+     */
+    private static String timeoutValue(JComboBox<String> field, String setting) {
+        Object selected = field.getSelectedItem();
+        String value = selected != null ? selected.toString().trim() : "";
+        if (value.isEmpty() || USE_ENVIRONMENT.equals(value)) {
+            return null;
+        }
+        EnvironmentSettings.parseTimeout(setting, value);
+        return value.toLowerCase();
+    }
+
+    private void updateTimeoutsButton() {
+        StringBuilder text = new StringBuilder();
+        appendTimeout(text, "connect", connectTimeout);
+        appendTimeout(text, "read", readTimeout);
+        appendTimeout(text, "total", timeout);
+        timeoutsButton.setText(text.length() > 0 ? text.toString() : USE_ENVIRONMENT);
+    }
+
+    private static void appendTimeout(StringBuilder text, String label, String value) {
+        if (value != null) {
+            text.append(text.length() > 0 ? ", " : "").append(label).append(' ').append(value);
+        }
+    }
+
+    private JLabel createLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(label.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_SM));
+        label.setForeground(UIManager.getColor("Label.foreground"));
+        return label;
+    }
+
+    /**
+     * Copy the selected options onto a call
+     */
+    public void applyTo(ApiCall apiCall) {
+        String protocol = (String) protocolDropdown.getSelectedItem();
+        apiCall.setHttpVersion(USE_ENVIRONMENT.equals(protocol) ? null : protocol);
+
+        String compression = (String) compressionDropdown.getSelectedItem();
+        apiCall.setCompression(USE_ENVIRONMENT.equals(compression) ? null : Boolean.valueOf(ON.equals(compression)));
+
+        String retries = (String) retriesDropdown.getSelectedItem();
+        apiCall.setRetries(USE_ENVIRONMENT.equals(retries) ? null : Integer.valueOf(retries));
+
+        Object hedge = hedgeDropdown.getSelectedItem();
+        String hedgeText = hedge != null ? hedge.toString().trim() : "";
+        apiCall.setHedge(hedgeText.isEmpty() || USE_ENVIRONMENT.equals(hedgeText) ? null : hedgeText.toLowerCase());
+
+        apiCall.setConnectTimeout(connectTimeout);
+        apiCall.setReadTimeout(readTimeout);
+        apiCall.setTimeout(timeout);
+
+        String stream = (String) streamDropdown.getSelectedItem();
+        apiCall.setStream(AUTO.equals(stream) ? null : Boolean.valueOf(ON.equals(stream)));
+    }
+
+    /**
+     * Show a call's options
+     */
+    public void loadFrom(ApiCall apiCall) {
+        HttpClient.Version version;
+        try {
+            version = EnvironmentSettings.parseHttpVersion(apiCall.getHttpVersion());
+        } catch (IllegalArgumentException e) {
+            version = null; // Hand-edited value we don't understand; fall back to the environment
+        }
+        protocolDropdown.setSelectedItem(version != null ? EnvironmentSettings.label(version) : USE_ENVIRONMENT);
+
+        Boolean compression = apiCall.getCompression();
+        compressionDropdown.setSelectedItem(compression == null ? USE_ENVIRONMENT : compression ? ON : OFF);
+
+        selectOrAdd(retriesDropdown, apiCall.getRetries() != null ? String.valueOf(apiCall.getRetries()) : USE_ENVIRONMENT);
+        String hedge = apiCall.getHedge();
+        hedgeDropdown.setSelectedItem(hedge == null ? USE_ENVIRONMENT : "off".equals(hedge) ? OFF : hedge);
+
+        connectTimeout = apiCall.getConnectTimeout();
+        readTimeout = apiCall.getReadTimeout();
+        timeout = apiCall.getTimeout();
+        updateTimeoutsButton();
+
+        Boolean stream = apiCall.getStream();
+        streamDropdown.setSelectedItem(stream == null ? AUTO : stream ? ON : OFF);
+    }
+
+    /**
+     * Select a value, adding it first if it is not one of the presets (e.g. a hand-edited retry count)
+     */
+    private static void selectOrAdd(JComboBox<String> dropdown, String value) {
+        for (int i = 0; i < dropdown.getItemCount(); i++) {
+            if (dropdown.getItemAt(i).equals(value)) {
+                dropdown.setSelectedIndex(i);
+                return;
+            }
+        }
+        dropdown.addItem(value);
+        dropdown.setSelectedItem(value);
+    }
+
+    /**
+     * Reset every option to follow the environment
+     */
+    public void clear() {
+        protocolDropdown.setSelectedItem(USE_ENVIRONMENT);
+        compressionDropdown.setSelectedItem(USE_ENVIRONMENT);
+        retriesDropdown.setSelectedItem(USE_ENVIRONMENT);
+        hedgeDropdown.setSelectedItem(USE_ENVIRONMENT);
+        connectTimeout = null;
+        readTimeout = null;
+        timeout = null;
+        updateTimeoutsButton();
+        streamDropdown.setSelectedItem(AUTO);
+    }
+}
@@ -0,0 +1,249 @@
+package com.overzealouspelican.component;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.util.UITheme;
+
+/**
+ * Reusable request body editor: a body mode selector above one editor per mode.
+ * JSON and multipart share the key-value fields; raw text and file bodies have their own editors.
+ */
+public class RequestBodyPanel extends JPanel {
+
+    private static final String[] MODE_LABELS = {"JSON fields", "Raw text", "File", "Multipart form"};
+    private static final String[] MODES = {ApiCall.BODY_JSON, ApiCall.BODY_RAW, ApiCall.BODY_FILE, ApiCall.BODY_MULTIPART};
+    private static final String FIELDS_CARD = "fields";
+    private static final String RAW_CARD = "raw";
+    private static final String FILE_CARD = "file";
+
+    private final JComboBox<String> modeDropdown;
+    private final JLabel hintLabel;
+    private final CardLayout cards;
+    private final JPanel cardPanel;
+    private final KeyValueInputGroup fieldsGroup;
+    private final JTextArea rawArea;
+    private final JTextField fileField;
+    private final JLabel fileInfoLabel;
+    private final JLabel titleLabel;
+    private boolean webSocket;
+
+    public RequestBodyPanel() {
+        this.modeDropdown = new JComboBox<>(MODE_LABELS);
+        this.hintLabel = new JLabel();
+        this.cards = new CardLayout();
+        this.cardPanel = new JPanel(cards);
+        this.fieldsGroup = new KeyValueInputGroup("Fields", "+ Add Field", "Remove this body field");
+        this.rawArea = new JTextArea();
+        this.fileField = new JTextField();
+        this.fileInfoLabel = new JLabel(" ");
+        this.titleLabel = new JLabel("Body");
+        initializePanel();
+    }
+
+    private void initializePanel() {
+        setLayout(new BorderLayout(0, UITheme.SPACING_SM));
+        setBackground(UIManager.getColor("Panel.background"));
+
+        // Title row: label, mode and a hint for the selected mode
+        JPanel titleRow = new JPanel(new FlowLayout(FlowLayout.LEFT, UITheme.SPACING_SM, 0));
+        titleRow.setBackground(UIManager.getColor("Panel.background"));
+
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD, UITheme.FONT_SIZE_MD));
+        titleRow.add(titleLabel);
+
+        modeDropdown.setToolTipText("How the body is sent with POST, PUT and PATCH requests");
+        modeDropdown.addActionListener(e -> showSelectedMode());
+        titleRow.add(modeDropdown);
+
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_XS));
+        hintLabel.setForeground(UIManager.getColor("Label.disabledForeground"));
+        titleRow.add(hintLabel);
+
+        add(titleRow, BorderLayout.NORTH);
+
+        cardPanel.setBackground(UIManager.getColor("Panel.background"));
+        cardPanel.add(fieldsGroup, FIELDS_CARD);
+        cardPanel.add(createRawEditor(), RAW_CARD);
+        cardPanel.add(createFileEditor(), FILE_CARD);
+        add(cardPanel, BorderLayout.CENTER);
+
+        showSelectedMode();
+    }
+
+    private JComponent createRawEditor() {
+        rawArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        rawArea.setLineWrap(false);
+        rawArea.setToolTipText("Sent as-is, e.g. nested JSON, XML or text; {{variables}} are substituted");
+        JScrollPane scrollPane = new JScrollPane(rawArea);
+        scrollPane.setBorder(BorderFactory.createLineBorder(UIManager.getColor("Component.borderColor"), 1));
+        return scrollPane;
+    }
+
+    private JComponent createFileEditor() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBackground(UIManager.getColor("Panel.background"));
+
+        JPanel row = new JPanel(new BorderLayout(UITheme.SPACING_SM, 0));
+        row.setMaximumSize(new Dimension(Integer.MAX_VALUE, UITheme.INPUT_HEIGHT));
+        row.setAlignmentX(Component.LEFT_ALIGNMENT);
+        row.setBackground(UIManager.getColor("Panel.background"));
+
+        fileField.setToolTipText("Path of the file to send; it is streamed from disk, so its size does not matter");
+        fileField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateFileInfo();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateFileInfo();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                updateFileInfo();
+            }
+        });
+        row.add(fileField, BorderLayout.CENTER);
+
+        JButton browseButton = new JButton("Browse...");
+        browseButton.addActionListener(e -> chooseFile());
+        row.add(browseButton, BorderLayout.EAST);
+
+        fileInfoLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        fileInfoLabel.setFont(fileInfoLabel.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_XS));
+        fileInfoLabel.setForeground(UIManager.getColor("Label.disabledForeground"));
+
+        panel.add(row);
+        panel.add(Box.createVerticalStrut(UITheme.SPACING_XS));
+        panel.add(fileInfoLabel);
+        return panel;
+    }
+
+    private void chooseFile() {
+        JFileChooser chooser = new JFileChooser();
+        String current = fileField.getText().trim();
+        if (!current.isEmpty()) {
+            chooser.setSelectedFile(new File(current));
+        }
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            fileField.setText(chooser.getSelectedFile().getAbsolutePath());
+        }
+    }
+
+    /**
+     * Show the size of the chosen file; paths with variables are only known when the call runs
+     */
+    private void updateFileInfo() {
+        String text = fileField.getText().trim();
+        if (text.isEmpty() || text.contains("{{")) {
+            fileInfoLabel.setText(" ");
+            return;
+        }
+        try {
+            Path path = Paths.get(text);
+            fileInfoLabel.setText(Files.isRegularFile(path)
+                ? String.format("%,d bytes", Files.size(path))
+                : "File not found");
+        } catch (Exception e) {
+            fileInfoLabel.setText("Invalid path");
+        }
+    }
+
+    /**
+     * Edit the message script of a WebSocket call instead of a request body; see WebSocketScript.
+     * The script is kept in the raw text, so switching back and forth loses nothing.
+     */
+    public void setWebSocket(boolean webSocket) {
+        this.webSocket = webSocket;
+        titleLabel.setText(webSocket ? "Messages" : "Body");
+        modeDropdown.setVisible(!webSocket);
+        rawArea.setToolTipText(webSocket
+            ? "One text message per line; {{variables}} are substituted"
+            : "Sent as-is, e.g. nested JSON, XML or text; {{variables}} are substituted");
+        showSelectedMode();
+    }
+
+    private void showSelectedMode() {
+        if (webSocket) {
+            cards.show(cardPanel, RAW_CARD);
+            hintLabel.setText("One message per line; @wait 500ms, @expect [2s], @repeat 10 … @end, @close");
+            return;
+        }
+        String mode = getSelectedMode();
+        switch (mode) {
+            case ApiCall.BODY_RAW:
+                cards.show(cardPanel, RAW_CARD);
+                hintLabel.setText("Sent as written; Content-Type defaults to JSON, XML or text/plain from the text");
+                break;
+            case ApiCall.BODY_FILE:
+                cards.show(cardPanel, FILE_CARD);
+                hintLabel.setText("Streamed from disk; Content-Type is guessed from the file name");
+                break;
+            case ApiCall.BODY_MULTIPART:
+                cards.show(cardPanel, FIELDS_CARD);
+                hintLabel.setText("Start a value with @ to upload a file, e.g. @/path/to/photo.png");
+                break;
+            default:
+                cards.show(cardPanel, FIELDS_CARD);
+                hintLabel.setText("Sent as a JSON object");
+        }
+    }
+
+    private String getSelectedMode() {
+        return MODES[Math.max(0, modeDropdown.getSelectedIndex())];
+    }
+
+    /**
+     * The key-value fields used by the JSON and multipart modes
+     */
+    public KeyValueInputGroup getFieldsGroup() {
+        return fieldsGroup;
+    }
+
+    /**
+     * Copy the body mode, raw text and file path onto a call; the fields are passed separately
+     */
+    public void applyTo(ApiCall apiCall) {
+        apiCall.setBodyMode(getSelectedMode());
+        String raw = rawArea.getText();
+        apiCall.setRawBody(raw.isEmpty() ? null : raw);
+        String file = fileField.getText().trim();
+        apiCall.setBodyFile(file.isEmpty() ? null : file);
+    }
+
+    /**
+     * Show a call's body
+     */
+    public void loadFrom(ApiCall apiCall) {
+        fieldsGroup.setKeyValuePairs(apiCall.getBody());
+        rawArea.setText(apiCall.getRawBody() != null ? apiCall.getRawBody() : "");
+        fileField.setText(apiCall.getBodyFile() != null ? apiCall.getBodyFile() : "");
+        int index = 0;
+        for (int i = 0; i < MODES.length; i++) {
+            if (MODES[i].equals(apiCall.getBodyMode())) {
+                index = i;
+            }
+        }
+        modeDropdown.setSelectedIndex(index);
+    }
+
+    /**
+     * Reset to an empty JSON body
+     */
+    public void clear() {
+        fieldsGroup.clear();
+        rawArea.setText("");
+        fileField.setText("");
+        modeDropdown.setSelectedIndex(0);
+    }
+}
@@ -0,0 +1,227 @@
+package com.overzealouspelican.component;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import com.overzealouspelican.service.StreamEvent;
+import com.overzealouspelican.service.StreamListener;
+import com.overzealouspelican.util.UITheme;
+
+/**
+ * Live view of a streamed response: one row per event, with counters for events and bytes per second
+ * and the time between events. Events arrive on the HTTP client's threads and are added in batches a few
+ * times a second, so a fast stream does not flood the event dispatch thread. Only the most recent events
+ * are kept, and the list only paints the rows in view, so a stream can run for as long as it likes.
+ * WebSocket calls show their incoming messages here too, with sent counts and round-trip times.
+ */
+public class StreamView extends JPanel implements StreamListener {
+
+    private static final int MAX_ROWS = 10_000;
+    private static final int REFRESH_INTERVAL_MS = 250;
+    /** Rates are measured over this window */
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final int MAX_ROW_TEXT = 1000;
+
+    private final Queue<StreamEvent> pending = new ConcurrentLinkedQueue<>();
+    private final DefaultListModel<StreamEvent> rows = new DefaultListModel<>();
+    private final JList<StreamEvent> list = new JList<>(rows);
+    private final JLabel countersLabel = new JLabel(" ");
+    private final JLabel stateLabel = new JLabel(" ");
+    private final Timer refreshTimer;
+    // Rate samples of {time, events, bytes}, oldest first
+    private final ArrayDeque<long[]> samples = new ArrayDeque<>();
+
+    private volatile boolean started;
+    private volatile boolean completed;
+    private volatile String completionText;
+    private volatile String sourceStatus;
+    private Runnable startAction;
+    private long startNanos;
+    private long events;
+    private long bytes;
+    private long gapNanosTotal;
+    private long lastGapNanos;
+
+    public StreamView() {
+        this.refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+        initializePanel();
+    }
+
+    private void initializePanel() {
+        setLayout(new BorderLayout());
+        setBackground(UIManager.getColor("Panel.background"));
+
+        JPanel header = new JPanel(new BorderLayout(UITheme.SPACING_MD, 0));
+        header.setOpaque(false);
+        header.setBorder(BorderFactory.createEmptyBorder(UITheme.SPACING_SM, UITheme.SPACING_LG, UITheme.SPACING_SM, UITheme.SPACING_LG));
+        countersLabel.setFont(countersLabel.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_SM));
+        stateLabel.setFont(stateLabel.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_SM));
+        stateLabel.setForeground(UIManager.getColor("Label.disabledForeground"));
+        header.add(countersLabel, BorderLayout.WEST);
+        header.add(stateLabel, BorderLayout.EAST);
+        add(header, BorderLayout.NORTH);
+
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        // A prototype fixes the row size, so the list never measures every row
+        list.setPrototypeCellValue(new StreamEvent("x".repeat(160), 0, 0, 0));
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> jList, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                StreamEvent event = (StreamEvent) value;
+                String text = event.getText().replace('\n', '↵');
+                if (text.length() > MAX_ROW_TEXT) {
+                    text = text.substring(0, MAX_ROW_TEXT) + "…";
+                }
+                String row = startNanos == 0 ? text : String.format("%9.3f s  +%-9s %s",
+                    (event.getReceivedNanos() - startNanos) / 1_000_000_000.0, formatMillis(event.getGapNanos()), text);
+                super.getListCellRendererComponent(jList, row, index, isSelected, cellHasFocus);
+                setToolTipText(event.getText().length() > 200 ? null : event.getText());
+                return this;
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, UIManager.getColor("Component.borderColor")));
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * Run an action on the event dispatch thread when the first response starts streaming
+     */
+    public void setStartAction(Runnable startAction) {
+        this.startAction = startAction;
+    }
+
+    /**
+     * Whether a response has started streaming into this view
+     */
+    public boolean hasStarted() {
+        return started;
+    }
+
+    @Override
+    public void onStart(int statusCode, String contentType) {
+        boolean first = !started;
+        started = true;
+        completed = false;
+        SwingUtilities.invokeLater(() -> {
+            if (startNanos == 0) {
+                startNanos = System.nanoTime();
+                samples.addLast(new long[]{startNanos, 0, 0});
+            }
+            stateLabel.setText("Status " + statusCode + (contentType != null ? " · " + contentType : "")
+                + " · streaming…");
+            refreshTimer.start();
+            if (first && startAction != null) {
+                startAction.run();
+            }
+        });
+    }
+
+    @Override
+    public void onEvent(StreamEvent event) {
+        pending.add(event);
+    }
+
+    @Override
+    public void onComplete(Throwable error) {
+        if (completed) {
+            return;
+        }
+        completionText = error == null ? "complete" : "stopped: " + error.getMessage();
+        completed = true;
+    }
+
+    @Override
+    public void onStatus(String status) {
+        sourceStatus = status;
+    }
+
+    /**
+     * Stop following the stream, e.g. because its call was cancelled before the response ended
+     */
+    public void finish() {
+        onComplete(null);
+    }
+
+    /**
+     * Add the events that arrived since the last refresh and update the counters
+     */
+    private void refresh() {
+        int lastIndex = rows.getSize() - 1;
+        boolean following = lastIndex < 0 || list.getLastVisibleIndex() >= lastIndex;
+
+        java.util.List<StreamEvent> batch = new java.util.ArrayList<>();
+        StreamEvent event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+            events++;
+            bytes += event.getBytes();
+            gapNanosTotal += event.getGapNanos();
+            lastGapNanos = event.getGapNanos();
+        }
+        if (!batch.isEmpty()) {
+            if (batch.size() > MAX_ROWS) {
+                batch = batch.subList(batch.size() - MAX_ROWS, batch.size());
+            }
+            int excess = rows.getSize() + batch.size() - MAX_ROWS;
+            if (excess > 0) {
+                rows.removeRange(0, excess - 1);
+            }
+            rows.addAll(batch);
+            if (following) {
+                list.ensureIndexIsVisible(rows.getSize() - 1);
+            }
+        }
+
+        updateCounters();
+        if (completed && pending.isEmpty()) {
+            refreshTimer.stop();
+            stateLabel.setText(stateLabel.getText().replace("streaming…", completionText));
+        }
+    }
+
+    private void updateCounters() {
+        long now = System.nanoTime();
+        samples.addLast(new long[]{now, events, bytes});
+        while (samples.size() > 2 && now - samples.peekFirst()[0] > RATE_WINDOW_NANOS) {
+            samples.removeFirst();
+        }
+        long[] oldest = samples.peekFirst();
+        double seconds = (now - oldest[0]) / 1_000_000_000.0;
+        double eventRate = seconds > 0 ? (events - oldest[1]) / seconds : 0;
+        double byteRate = seconds > 0 ? (bytes - oldest[2]) / seconds : 0;
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%,d events · %.1f events/s · %s/s", events, eventRate, formatBytes(byteRate)));
+        if (events > 0) {
+            text.append(" · gap ").append(formatMillis(lastGapNanos))
+                .append(" (avg ").append(formatMillis(gapNanosTotal / events)).append(')');
+        }
+        if (sourceStatus != null) {
+            text.append(" · ").append(sourceStatus);
+        }
+        if (events > MAX_ROWS) {
+            text.append(String.format(" · showing the last %,d", MAX_ROWS));
+        }
+        countersLabel.setText(text.toString());
+    }
+
+    private static String formatMillis(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        return millis < 10 ? String.format("%.1f ms", millis) : String.format("%,.0f ms", millis);
+    }
+
+    private static String formatBytes(double bytesPerSecond) {
+        if (bytesPerSecond >= 1024 * 1024) {
+            return String.format("%.1f MB", bytesPerSecond / (1024 * 1024));
+        }
+        if (bytesPerSecond >= 1024) {
+            return String.format("%.1f KB", bytesPerSecond / 1024);
+        }
+        return String.format("%.0f B", bytesPerSecond);
+    }
+}
@@ -2,6 +2,8 @@ package com.overzealouspelican.component;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionListener;
+import com.overzealouspelican.model.ApiCall;
 import com.overzealouspelican.util.UITheme;
 
 /**
@@ -17,7 +19,7 @@ public class UrlWithMethodInput extends JPanel {
         this.label = new JLabel("URL");
         this.urlField = new JTextField();
 
-        String[] httpMethods = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"};
+        String[] httpMethods = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", ApiCall.METHOD_WEBSOCKET};
         this.httpMethodDropdown = new JComboBox<>(httpMethods);
 
         initializePanel();
@@ -43,7 +45,7 @@ public class UrlWithMethodInput extends JPanel {
 
         // Style the method dropdown with color coding
         httpMethodDropdown.setPreferredSize(new Dimension(110, UITheme.INPUT_HEIGHT));
-        httpMethodDropdown.setToolTipText("Select HTTP method");
+        httpMethodDropdown.setToolTipText("Select HTTP method, or WS for a WebSocket");
         httpMethodDropdown.setRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value,
@@ -80,4 +82,11 @@ public class UrlWithMethodInput extends JPanel {
     public void setHttpMethod(String httpMethod) {
         httpMethodDropdown.setSelectedItem(httpMethod);
     }
+
+    /**
+     * Listen for the method changing, whether picked by the user or set by {@link #setHttpMethod}
+     */
+    public void addHttpMethodListener(ActionListener listener) {
+        httpMethodDropdown.addActionListener(listener);
+    }
 }
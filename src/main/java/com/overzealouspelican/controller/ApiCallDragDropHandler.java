@@ -3,7 +3,6 @@ package com.overzealouspelican.controller;
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
-import java.util.Map;
 import com.overzealouspelican.model.ApiCall;
 import com.overzealouspelican.model.ApplicationState;
 import com.overzealouspelican.service.ApiCallService;
@@ -39,9 +38,8 @@ public class ApiCallDragDropHandler {
      */
     public boolean dropOnItem(Component parentComponent, String draggedName, String targetName) {
         try {
-            Map<String, ApiCall> apiCalls = apiCallService.loadApiCalls();
-            ApiCall draggedCall = apiCalls.get(draggedName);
-            ApiCall targetCall = apiCalls.get(targetName);
+            ApiCall draggedCall = apiCallService.loadApiCall(draggedName);
+            ApiCall targetCall = apiCallService.loadApiCall(targetName);
 
             if (draggedCall == null || targetCall == null) {
                 return false;
@@ -92,8 +90,7 @@ public class ApiCallDragDropHandler {
     }
 
     private void addApiCallToGroup(String apiCallName, String groupName) throws IOException {
-        Map<String, ApiCall> apiCalls = apiCallService.loadApiCalls();
-        ApiCall apiCall = apiCalls.get(apiCallName);
+        ApiCall apiCall = apiCallService.loadApiCall(apiCallName);
 
         if (apiCall != null) {
             apiCall.setGroupName(groupName);
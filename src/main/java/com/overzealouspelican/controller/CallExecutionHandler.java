@@ -2,10 +2,13 @@ package com.overzealouspelican.controller;
 
 import javax.swing.*;
 import java.util.Map;
+import com.overzealouspelican.component.StreamView;
 import com.overzealouspelican.frame.CallOutputFrame;
 import com.overzealouspelican.model.ApiCall;
 import com.overzealouspelican.model.ApplicationState;
 import com.overzealouspelican.service.ApiCallService;
+import com.overzealouspelican.service.CallExecutionEngine;
+import com.overzealouspelican.service.CallOptions;
 import com.overzealouspelican.service.HttpRequestExecutor;
 import com.overzealouspelican.service.VariableSubstitutionService;
 
@@ -17,31 +20,44 @@ public class CallExecutionHandler {
 
     private final ApiCallService apiCallService;
     private final VariableSubstitutionService substitutionService;
+    private final CallExecutionEngine executionEngine;
     private final ApplicationState appState;
 
     public CallExecutionHandler(ApiCallService apiCallService) {
         this.apiCallService = apiCallService;
         this.substitutionService = new VariableSubstitutionService();
+        this.executionEngine = CallExecutionEngine.getInstance();
         this.appState = ApplicationState.getInstance();
     }
 
     /**
-     * Execute an API call asynchronously and display the result.
+     * Execute an API call on the shared execution engine and display the result.
      *
      * @param apiCall the API call to execute
+     * @return the engine task, which can be cancelled while the call is running
      */
-    public void execute(ApiCall apiCall) {
+    public CallExecutionEngine.CallTask<HttpRequestExecutor.HttpCallResult> execute(ApiCall apiCall) {
         appState.setStatusLoading();
 
         String environment = appState.getSelectedEnvironment();
         Map<String, String> environmentVariables = appState.getEnvironmentVariables();
 
-        new Thread(() -> {
-            HttpRequestExecutor.HttpCallResult result = apiCallService.executeApiCall(apiCall, environmentVariables);
+        String taskName = apiCall.getName() != null && !apiCall.getName().isEmpty()
+            ? apiCall.getName()
+            : apiCall.getHttpMethod() + " " + apiCall.getUrl();
+
+        // Streamed responses show their events as they arrive, before the call completes
+        StreamView streamView = CallOutputFrame.getInstance().createStreamView();
+
+        CallExecutionEngine.CallTask<HttpRequestExecutor.HttpCallResult> task = executionEngine.submit(taskName, () -> {
+            HttpRequestExecutor.HttpCallResult result = apiCallService.executeApiCall(apiCall, environmentVariables,
+                CallOptions.DEFAULT.withStreamListener(streamView));
+            // Format off the EDT; pretty-printing a large body would otherwise freeze the UI
+            String formattedResponse = result.formatResponse();
 
             SwingUtilities.invokeLater(() -> {
                 String headersDisplay = formatKeyValuePairs(apiCall.getHeaders(), environmentVariables);
-                String bodyDisplay = formatKeyValuePairs(apiCall.getBody(), environmentVariables);
+                String bodyDisplay = formatBody(apiCall, environmentVariables);
 
                 CallOutputFrame outputFrame = CallOutputFrame.getInstance();
                 outputFrame.displayCallOutput(
@@ -51,17 +67,59 @@ public class CallExecutionHandler {
                     apiCall.getHttpMethod(),
                     headersDisplay,
                     bodyDisplay,
-                    result.formatResponse(),
-                    environmentVariables
+                    formattedResponse,
+                    environmentVariables,
+                    result.getResponseBody(),
+                    result.getPhaseTimings()
                 );
+                if (streamView.hasStarted()) {
+                    outputFrame.showStream(streamView);
+                }
 
                 if (result.isSuccess()) {
                     appState.setStatusSuccess("API call completed successfully");
+                } else if (result.isCancelled()) {
+                    appState.setStatusWarning("API call cancelled");
                 } else {
                     appState.setStatusError("API call failed");
                 }
             });
-        }).start();
+            return result;
+        });
+
+        Runnable stopAction = task::cancel;
+        CallOutputFrame.getInstance().showRunning(taskName, stopAction);
+        task.whenDone(() -> SwingUtilities.invokeLater(() -> {
+            streamView.finish();
+            CallOutputFrame.getInstance().clearRunning(stopAction);
+            if (task.isCancelled()) {
+                // Covers calls stopped while still queued, which never get to show a result
+                appState.setStatusWarning("API call cancelled");
+            }
+        }));
+        return task;
+    }
+
+    /**
+     * Describe the request body for its body mode
+     */
+    private String formatBody(ApiCall apiCall, Map<String, String> environmentVariables) {
+        if (ApiCall.METHOD_WEBSOCKET.equals(apiCall.getHttpMethod())) {
+            String script = apiCall.getRawBody();
+            return script == null || script.isEmpty() ? "Messages: (None)"
+                : "Messages:\n" + substitutionService.substitute(script, environmentVariables);
+        }
+        switch (apiCall.getBodyMode()) {
+            case ApiCall.BODY_RAW:
+                String raw = apiCall.getRawBody();
+                return raw == null || raw.isEmpty() ? "(None)" : substitutionService.substitute(raw, environmentVariables);
+            case ApiCall.BODY_FILE:
+                return "File: " + substitutionService.substitute(apiCall.getBodyFile(), environmentVariables);
+            case ApiCall.BODY_MULTIPART:
+                return "Multipart form:\n" + formatKeyValuePairs(apiCall.getBody(), environmentVariables);
+            default:
+                return formatKeyValuePairs(apiCall.getBody(), environmentVariables);
+        }
     }
 
     private String formatKeyValuePairs(Map<String, String> pairs, Map<String, String> environmentVariables) {
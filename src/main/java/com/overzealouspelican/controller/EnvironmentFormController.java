@@ -40,6 +40,13 @@ public class EnvironmentFormController {
         return environmentService.loadEnvironment(name);
     }
 
+    /**
+     * True if the given changed data file holds environments.
+     */
+    public boolean isEnvironmentsFile(Object fileName) {
+        return EnvironmentService.ENVIRONMENTS_FILE.equals(fileName);
+    }
+
     /**
      * Check if an environment exists.
      */
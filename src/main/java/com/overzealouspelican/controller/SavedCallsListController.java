@@ -40,7 +40,7 @@ public class SavedCallsListController {
     }
 
     /**
-     * Load and organize all API calls by group.
+     * Organize all API calls by group. Served from the in-memory store, so this does no disk I/O.
      */
     public GroupedCalls loadGroupedCalls() {
         Map<String, ApiCall> apiCalls = apiCallService.loadApiCalls();
@@ -91,15 +91,11 @@ public class SavedCallsListController {
     }
 
     /**
-     * Expand or collapse all groups.
+     * Expand or collapse all of the given groups.
      */
-    public void setAllGroupsExpanded(boolean expanded) {
-        Map<String, ApiCall> apiCalls = apiCallService.loadApiCalls();
-        for (ApiCall call : apiCalls.values()) {
-            String groupName = call.getGroupName();
-            if (groupName != null && !groupName.trim().isEmpty()) {
-                groupExpandedState.put(groupName, expanded);
-            }
+    public void setAllGroupsExpanded(Set<String> groupNames, boolean expanded) {
+        for (String groupName : groupNames) {
+            groupExpandedState.put(groupName, expanded);
         }
     }
 
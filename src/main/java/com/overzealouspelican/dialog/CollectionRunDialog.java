@@ -0,0 +1,308 @@
+package com.overzealouspelican.dialog;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import com.overzealouspelican.frame.CallOutputFrame;
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApiCallGroup;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.ApiCallService;
+import com.overzealouspelican.service.CollectionRunner;
+import com.overzealouspelican.service.CollectionRunner.CallRunResult;
+import com.overzealouspelican.service.CollectionRunner.CollectionRunConfig;
+import com.overzealouspelican.service.CollectionRunner.CollectionRunResult;
+
+/**
+ * Dialog for running every call in a group.
+ * Single responsibility: collect run settings, stream per-call results into a table and show the run summary.
+ */
+public class CollectionRunDialog {
+
+    private static final String MODE_SEQUENTIAL = "Sequential";
+    private static final String MODE_PARALLEL = "Parallel";
+    private static final String USE_ENVIRONMENT = "Environment";
+    private static final String[] COLUMNS = {"#", "Call", "Method", "Status", "Time (ms)", "Result"};
+
+    private final ApiCallService apiCallService;
+    private final ApplicationState appState;
+
+    public CollectionRunDialog(ApiCallService apiCallService) {
+        this.apiCallService = apiCallService;
+        this.appState = ApplicationState.getInstance();
+    }
+
+    /**
+     * Show the collection run dialog for a group.
+     *
+     * @param parent the parent component for dialog positioning
+     * @param groupName the group to run
+     * @param callNames the calls in the group, in the order they should run
+     */
+    public void show(Component parent, String groupName, List<String> callNames) {
+        ApiCallGroup group = new ApiCallGroup(groupName);
+        callNames.forEach(group::addApiCall);
+
+        JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(parent),
+            "Run Collection: " + groupName, false);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(1100, 520);
+        dialog.setLocationRelativeTo(parent);
+
+        // Settings form
+        JPanel form = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        form.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+
+        JComboBox<String> modeCombo = new JComboBox<>(new String[]{MODE_SEQUENTIAL, MODE_PARALLEL});
+        JSpinner concurrencySpinner = new JSpinner(new SpinnerNumberModel(
+            Math.max(1, Math.min(8, callNames.size())), 1, 256, 1));
+        concurrencySpinner.setEnabled(false);
+        modeCombo.addActionListener(e -> concurrencySpinner.setEnabled(MODE_PARALLEL.equals(modeCombo.getSelectedItem())));
+
+        form.add(new JLabel("Mode:"));
+        form.add(modeCombo);
+        form.add(new JLabel("Concurrency:"));
+        form.add(concurrencySpinner);
+        // Group-wide retry policy for calls without their own
+        JComboBox<String> retriesCombo = new JComboBox<>(new String[]{USE_ENVIRONMENT, "0", "1", "2", "3", "5"});
+        retriesCombo.setToolTipText("Retries for calls that do not set their own; Environment uses protocaller.retries");
+        JComboBox<String> hedgeCombo = new JComboBox<>(new String[]{USE_ENVIRONMENT, "Off", "p90", "p95", "p99"});
+        hedgeCombo.setToolTipText("Hedging for calls that do not set their own; Environment uses protocaller.hedge");
+        form.add(new JLabel("Retries:"));
+        form.add(retriesCombo);
+        form.add(new JLabel("Hedge:"));
+        form.add(hedgeCombo);
+        // Group-wide limits on how long calls and the run as a whole may take
+        JComboBox<String> timeoutCombo = new JComboBox<>(new String[]{USE_ENVIRONMENT, "5s", "10s", "30s", "60s", "Off"});
+        timeoutCombo.setEditable(true);
+        timeoutCombo.setToolTipText("Total time for each call that does not set its own, retries included; "
+            + "Environment uses protocaller.timeout");
+        JComboBox<String> deadlineCombo = new JComboBox<>(new String[]{USE_ENVIRONMENT, "10s", "30s", "60s", "5m", "Off"});
+        deadlineCombo.setEditable(true);
+        deadlineCombo.setToolTipText("Latency budget for the whole run; once spent, the remaining calls fail "
+            + "without being sent. Environment uses protocaller.deadline");
+        form.add(new JLabel("Timeout:"));
+        form.add(timeoutCombo);
+        form.add(new JLabel("Deadline:"));
+        form.add(deadlineCombo);
+        form.add(new JLabel(callNames.size() + " calls"));
+        dialog.add(form, BorderLayout.NORTH);
+
+        // Results table, one row per call in group order
+        DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable resultsTable = new JTable(tableModel);
+        resultsTable.setFillsViewportHeight(true);
+        resultsTable.getColumnModel().getColumn(0).setMaxWidth(40);
+        resultsTable.getColumnModel().getColumn(2).setMaxWidth(80);
+        resultsTable.getColumnModel().getColumn(3).setMaxWidth(70);
+        resultsTable.getColumnModel().getColumn(4).setMaxWidth(90);
+        resultsTable.setToolTipText("Double-click a finished call to open its response");
+        resetRows(tableModel, callNames);
+
+        JScrollPane scrollPane = new JScrollPane(resultsTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        dialog.add(scrollPane, BorderLayout.CENTER);
+
+        // Summary, progress and buttons
+        JLabel summaryLabel = new JLabel(" ");
+        JProgressBar progressBar = new JProgressBar(0, callNames.size());
+        progressBar.setStringPainted(true);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout(8, 8));
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        bottomPanel.add(summaryLabel, BorderLayout.NORTH);
+        bottomPanel.add(progressBar, BorderLayout.CENTER);
+
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        JButton closeButton = new JButton("Close");
+        JButton stopButton = new JButton("Stop");
+        JButton runButton = new JButton("Run");
+        stopButton.setEnabled(false);
+
+        CollectionRunner runner = new CollectionRunner(apiCallService);
+        CallRunResult[] latestResults = new CallRunResult[callNames.size()];
+        AtomicReference<Map<String, String>> runVariables = new AtomicReference<>(appState.getEnvironmentVariables());
+
+        runButton.addActionListener(e -> {
+            CollectionRunConfig modeConfig = MODE_PARALLEL.equals(modeCombo.getSelectedItem())
+                ? CollectionRunConfig.parallel((Integer) concurrencySpinner.getValue())
+                : CollectionRunConfig.sequential();
+            String retries = (String) retriesCombo.getSelectedItem();
+            String hedge = (String) hedgeCombo.getSelectedItem();
+            CollectionRunConfig config;
+            try {
+                config = modeConfig.withRetryPolicy(USE_ENVIRONMENT.equals(retries) ? null : Integer.valueOf(retries),
+                        USE_ENVIRONMENT.equals(hedge) ? null : hedge.toLowerCase())
+                    .withTimeouts(selectedSetting(timeoutCombo), selectedSetting(deadlineCombo));
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Invalid Setting", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            Map<String, String> environmentVariables = appState.getEnvironmentVariables();
+            runVariables.set(environmentVariables);
+
+            runButton.setEnabled(false);
+            stopButton.setEnabled(true);
+            resetRows(tableModel, callNames);
+            java.util.Arrays.fill(latestResults, null);
+            progressBar.setValue(0);
+            progressBar.setString("0 / " + callNames.size());
+            summaryLabel.setText("Running '" + groupName + "'...");
+            appState.setStatusLoading();
+
+            Thread.ofVirtual().name("collection-run").start(() -> {
+                int[] completed = {0};
+                try {
+                    CollectionRunResult result = runner.run(group, environmentVariables, config,
+                        callResult -> SwingUtilities.invokeLater(() -> {
+                            latestResults[callResult.getIndex()] = callResult;
+                            updateRow(tableModel, callResult);
+                            completed[0]++;
+                            progressBar.setValue(completed[0]);
+                            progressBar.setString(completed[0] + " / " + callNames.size());
+                        }));
+
+                    SwingUtilities.invokeLater(() -> {
+                        summaryLabel.setText(result.formatSummary());
+                        if (result.getFailed() == 0 && !result.isCancelled()) {
+                            appState.setStatusSuccess("Collection '" + groupName + "' passed");
+                        } else if (result.isCancelled()) {
+                            appState.setStatusWarning(String.format("Collection '%s' stopped: %d failed",
+                                groupName, result.getFailed()));
+                        } else {
+                            appState.setStatusWarning(String.format("Collection '%s': %d failed",
+                                groupName, result.getFailed()));
+                        }
+                    });
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (IllegalArgumentException ex) {
+                    // An environment setting the run depends on is invalid
+                    SwingUtilities.invokeLater(() -> {
+                        summaryLabel.setText(ex.getMessage());
+                        appState.setStatusError(ex.getMessage());
+                    });
+                } finally {
+                    SwingUtilities.invokeLater(() -> {
+                        runButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                    });
+                }
+            });
+        });
+
+        // Double-click a row to see the full response in the output window
+        resultsTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = resultsTable.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0 && latestResults[row] != null) {
+                    showResult(latestResults[row], runVariables.get());
+                }
+            }
+        });
+
+        stopButton.addActionListener(e -> runner.cancel());
+
+        closeButton.addActionListener(e -> {
+            runner.cancel();
+            dialog.dispose();
+        });
+
+        buttonsPanel.add(closeButton);
+        buttonsPanel.add(stopButton);
+        buttonsPanel.add(runButton);
+        bottomPanel.add(buttonsPanel, BorderLayout.SOUTH);
+        dialog.add(bottomPanel, BorderLayout.SOUTH);
+
+        dialog.setVisible(true);
+    }
+
+    /**
+     * The value of an editable setting combo, or null if it defers to the environment
+     */
+    private static String selectedSetting(JComboBox<String> combo) {
+        Object selected = combo.getSelectedItem();
+        String value = selected != null ? selected.toString().trim() : "";
+        return value.isEmpty() || USE_ENVIRONMENT.equals(value) ? null : value.toLowerCase();
+    }
+
+    private void resetRows(DefaultTableModel tableModel, List<String> callNames) {
+        tableModel.setRowCount(0);
+        for (int i = 0; i < callNames.size(); i++) {
+            ApiCall apiCall = apiCallService.loadApiCall(callNames.get(i));
+            String method = apiCall != null ? apiCall.getHttpMethod() : "";
+            tableModel.addRow(new Object[]{i + 1, callNames.get(i), method, "", "", "Pending"});
+        }
+    }
+
+    private void updateRow(DefaultTableModel tableModel, CallRunResult callResult) {
+        int row = callResult.getIndex();
+        int statusCode = callResult.getResult().getStatusCode();
+        tableModel.setValueAt(statusCode > 0 ? String.valueOf(statusCode) : "-", row, 3);
+        tableModel.setValueAt(String.format("%.1f", callResult.getElapsedNanos() / 1_000_000.0), row, 4);
+        tableModel.setValueAt(describe(callResult), row, 5);
+    }
+
+    private String describe(CallRunResult callResult) {
+        if (callResult.isSuccess()) {
+            return "Passed";
+        }
+        if (callResult.getResult().isCancelled()) {
+            return "Cancelled";
+        }
+        Exception error = callResult.getResult().getError();
+        return error != null ? "Failed: " + error.getMessage() : "Failed";
+    }
+
+    private void showResult(CallRunResult callResult, Map<String, String> environmentVariables) {
+        ApiCall apiCall = callResult.getApiCall();
+        if (apiCall == null) {
+            return;
+        }
+        CallOutputFrame.getInstance().displayCallOutput(
+            appState.getSelectedEnvironment(),
+            apiCall.getName(),
+            apiCall.getUrl(),
+            apiCall.getHttpMethod(),
+            formatKeyValuePairs(apiCall.getHeaders()),
+            formatBody(apiCall),
+            callResult.getResult().formatResponse(),
+            environmentVariables,
+            callResult.getResult().getResponseBody(),
+            callResult.getResult().getPhaseTimings()
+        );
+    }
+
+    private String formatBody(ApiCall apiCall) {
+        switch (apiCall.getBodyMode()) {
+            case ApiCall.BODY_RAW:
+                return apiCall.getRawBody() == null || apiCall.getRawBody().isEmpty() ? "(None)" : apiCall.getRawBody();
+            case ApiCall.BODY_FILE:
+                return "File: " + apiCall.getBodyFile();
+            case ApiCall.BODY_MULTIPART:
+                return "Multipart form:\n" + formatKeyValuePairs(apiCall.getBody());
+            default:
+                return formatKeyValuePairs(apiCall.getBody());
+        }
+    }
+
+    private String formatKeyValuePairs(Map<String, String> pairs) {
+        if (pairs == null || pairs.isEmpty()) {
+            return "(None)";
+        }
+        StringBuilder display = new StringBuilder();
+        pairs.forEach((key, value) -> display.append(key).append(": ").append(value).append("\n"));
+        return display.toString();
+    }
+}
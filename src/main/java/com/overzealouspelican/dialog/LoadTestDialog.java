@@ -0,0 +1,175 @@
+package com.overzealouspelican.dialog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.ApiCallService;
+import com.overzealouspelican.service.LoadTestRunner;
+import com.overzealouspelican.service.LoadTestRunner.LoadTestConfig;
+import com.overzealouspelican.service.LoadTestRunner.LoadTestResult;
+
+/**
+ * Dialog for load testing a saved API call.
+ * Single responsibility: collect load test settings, run the test off the EDT and show the summary.
+ */
+public class LoadTestDialog {
+
+    private static final String PROTOCOL_CALL_DEFAULT = "Call default";
+    /** Progress is merged between refreshes, so a long run does not queue one EDT update per call */
+    private static final int PROGRESS_REFRESH_MS = 250;
+
+    private final ApiCallService apiCallService;
+    private final ApplicationState appState;
+
+    public LoadTestDialog(ApiCallService apiCallService) {
+        this.apiCallService = apiCallService;
+        this.appState = ApplicationState.getInstance();
+    }
+
+    /**
+     * Show the load test dialog.
+     *
+     * @param parent the parent component for dialog positioning
+     */
+    public void show(Component parent) {
+        Map<String, ApiCall> apiCalls = apiCallService.loadApiCalls();
+        if (apiCalls.isEmpty()) {
+            JOptionPane.showMessageDialog(parent,
+                "Save an API call before running a load test.",
+                "No Saved Calls",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(parent), "Load Test", false);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(520, 520);
+        dialog.setLocationRelativeTo(parent);
+
+        // Settings form
+        JPanel form = new JPanel(new GridLayout(5, 2, 8, 8));
+        form.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+
+        JComboBox<String> callCombo = new JComboBox<>(new TreeSet<>(apiCalls.keySet()).toArray(new String[0]));
+        JSpinner iterationsSpinner = new JSpinner(new SpinnerNumberModel(100, 1, 1_000_000, 10));
+        JSpinner concurrencySpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 1));
+        JSpinner rateSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 100_000, 10));
+        rateSpinner.setToolTipText("Target requests per second (0 = as fast as concurrency allows)");
+        JComboBox<String> protocolCombo = new JComboBox<>(new String[]{PROTOCOL_CALL_DEFAULT, "HTTP/1.1", "HTTP/2"});
+        protocolCombo.setToolTipText("Override the call's HTTP version to compare protocols under the same load");
+
+        form.add(new JLabel("Saved call:"));
+        form.add(callCombo);
+        form.add(new JLabel("Iterations:"));
+        form.add(iterationsSpinner);
+        form.add(new JLabel("Concurrency:"));
+        form.add(concurrencySpinner);
+        form.add(new JLabel("Requests/second (0 = unlimited):"));
+        form.add(rateSpinner);
+        form.add(new JLabel("Protocol:"));
+        form.add(protocolCombo);
+        dialog.add(form, BorderLayout.NORTH);
+
+        // Results area
+        JTextArea resultsArea = new JTextArea();
+        resultsArea.setEditable(false);
+        resultsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JScrollPane scrollPane = new JScrollPane(resultsArea);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        dialog.add(scrollPane, BorderLayout.CENTER);
+
+        // Progress and buttons
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout(8, 8));
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        bottomPanel.add(progressBar, BorderLayout.NORTH);
+
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        JButton closeButton = new JButton("Close");
+        JButton stopButton = new JButton("Stop");
+        JButton startButton = new JButton("Start");
+        stopButton.setEnabled(false);
+
+        LoadTestRunner runner = new LoadTestRunner(apiCallService);
+
+        startButton.addActionListener(e -> {
+            ApiCall apiCall = new ApiCall(apiCalls.get((String) callCombo.getSelectedItem()));
+            String protocol = (String) protocolCombo.getSelectedItem();
+            if (!PROTOCOL_CALL_DEFAULT.equals(protocol)) {
+                apiCall.setHttpVersion(protocol);
+            }
+            LoadTestConfig config = new LoadTestConfig(
+                (Integer) iterationsSpinner.getValue(),
+                (Integer) concurrencySpinner.getValue(),
+                (Integer) rateSpinner.getValue());
+            Map<String, String> environmentVariables = appState.getEnvironmentVariables();
+
+            startButton.setEnabled(false);
+            stopButton.setEnabled(true);
+            progressBar.setMaximum(config.getIterations());
+            progressBar.setValue(0);
+            resultsArea.setText("Running " + config.getIterations() + " calls to '" + apiCall.getName() + "'...\n");
+            appState.setStatusLoading();
+
+            AtomicInteger completedCount = new AtomicInteger();
+            AtomicInteger errorCount = new AtomicInteger();
+            Runnable showProgress = () -> {
+                int completed = completedCount.get();
+                progressBar.setValue(completed);
+                progressBar.setString(completed + " / " + config.getIterations() + " (" + errorCount.get() + " errors)");
+            };
+            Timer progressTimer = new Timer(PROGRESS_REFRESH_MS, tick -> showProgress.run());
+            progressTimer.start();
+
+            Thread.ofVirtual().name("load-test").start(() -> {
+                try {
+                    // Listeners run on the threads completing calls, possibly out of order
+                    LoadTestResult result = runner.run(apiCall, environmentVariables, config,
+                        (completed, total, errors) -> {
+                            completedCount.accumulateAndGet(completed, Math::max);
+                            errorCount.accumulateAndGet(errors, Math::max);
+                        });
+
+                    SwingUtilities.invokeLater(() -> {
+                        resultsArea.setText(result.formatSummary());
+                        if (result.getErrors() == 0) {
+                            appState.setStatusSuccess(String.format("Load test finished: %.1f req/s", result.getThroughput()));
+                        } else {
+                            appState.setStatusWarning(String.format("Load test finished with %d errors", result.getErrors()));
+                        }
+                    });
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    SwingUtilities.invokeLater(() -> {
+                        progressTimer.stop();
+                        showProgress.run();
+                        startButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                    });
+                }
+            });
+        });
+
+        stopButton.addActionListener(e -> runner.cancel());
+
+        closeButton.addActionListener(e -> {
+            runner.cancel();
+            dialog.dispose();
+        });
+
+        buttonsPanel.add(closeButton);
+        buttonsPanel.add(stopButton);
+        buttonsPanel.add(startButton);
+        bottomPanel.add(buttonsPanel, BorderLayout.SOUTH);
+        dialog.add(bottomPanel, BorderLayout.SOUTH);
+
+        dialog.setVisible(true);
+    }
+}
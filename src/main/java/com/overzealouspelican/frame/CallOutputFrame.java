@@ -3,27 +3,48 @@ package com.overzealouspelican.frame;
 import javax.swing.*;
 import java.awt.*;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import com.overzealouspelican.component.StreamView;
+import com.overzealouspelican.service.PhaseTimings;
+import com.overzealouspelican.service.ResponseBody;
+import com.overzealouspelican.service.VariableSubstitutionService;
 import com.overzealouspelican.util.UITheme;
 
 /**
  * Frame to display the output of API calls.
  * Uses singleton pattern to reuse the same window for multiple calls.
  * Automatically updates with new call results.
+ * Spooled response bodies are paged through lazily rather than loaded into the text area at once.
+ * Streamed responses are shown event by event in a {@link StreamView} while they arrive.
  */
 public class CallOutputFrame extends JFrame {
 
+    private static final String OUTPUT_CARD = "output";
+    private static final String EVENTS_CARD = "events";
+
     private static CallOutputFrame instance;
+    private final VariableSubstitutionService substitutionService = new VariableSubstitutionService();
     private JTextArea outputTextArea;
-    private Gson prettyGson;
+    private JPanel pagerPanel;
+    private JLabel pageLabel;
+    private JButton previousPageButton;
+    private JButton nextPageButton;
+    private JButton stopButton;
+    private JButton streamToggleButton;
+    private CardLayout contentCards;
+    private JPanel contentPanel;
+    private JPanel streamHolder;
+    // The stream of the call on display, or null if it was not streamed
+    private StreamView streamView;
+    private String shownCard = OUTPUT_CARD;
+    // Stops the call this frame is waiting on, or null when none is running
+    private Runnable stopAction;
+
+    // Paging state: page -1 is the call summary, pages 0..n-1 are body pages
+    private String summaryText;
+    private ResponseBody pagedBody;
+    private int currentPage;
 
     private CallOutputFrame() {
-        this.prettyGson = new GsonBuilder().setPrettyPrinting().create();
         initializeFrame();
         addComponents();
     }
@@ -69,20 +90,73 @@ public class CallOutputFrame extends JFrame {
         JScrollPane scrollPane = new JScrollPane(outputTextArea);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
         scrollPane.setBorder(null);
-        add(scrollPane, BorderLayout.CENTER);
+
+        // The output text, or the events of a streamed response
+        streamHolder = new JPanel(new BorderLayout());
+        contentCards = new CardLayout();
+        contentPanel = new JPanel(contentCards);
+        contentPanel.add(scrollPane, OUTPUT_CARD);
+        contentPanel.add(streamHolder, EVENTS_CARD);
+        add(contentPanel, BorderLayout.CENTER);
 
         // Bottom button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, UITheme.SPACING_MD, UITheme.SPACING_SM));
-        buttonPanel.setBackground(UIManager.getColor("Panel.background"));
-        buttonPanel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, UIManager.getColor("Component.borderColor")));
+        buttonPanel.setOpaque(false);
+
+        stopButton = new JButton("Stop");
+        stopButton.setToolTipText("Cancel the running call");
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> {
+            if (stopAction != null) {
+                stopAction.run();
+            }
+        });
+
+        streamToggleButton = new JButton();
+        streamToggleButton.setToolTipText("Switch between the streamed events and the full call output");
+        streamToggleButton.setVisible(false);
+        streamToggleButton.addActionListener(e -> {
+            if (EVENTS_CARD.equals(shownCard)) {
+                showCard(OUTPUT_CARD);
+            } else {
+                showCard(EVENTS_CARD);
+            }
+        });
 
         JButton closeButton = new JButton("Close");
         closeButton.setToolTipText("Close this window");
         closeButton.addActionListener(e -> setVisible(false));
 
+        buttonPanel.add(streamToggleButton);
+        buttonPanel.add(stopButton);
         buttonPanel.add(closeButton);
 
-        add(buttonPanel, BorderLayout.SOUTH);
+        // Pager for spooled response bodies, hidden for bodies that fit in memory
+        pagerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, UITheme.SPACING_SM, UITheme.SPACING_SM));
+        pagerPanel.setOpaque(false);
+
+        previousPageButton = new JButton("\u25C0 Prev");
+        previousPageButton.setToolTipText("Show the previous page of the response body");
+        previousPageButton.addActionListener(e -> showPage(currentPage - 1));
+
+        pageLabel = new JLabel("");
+
+        nextPageButton = new JButton("Next \u25B6");
+        nextPageButton.setToolTipText("Show the next page of the response body");
+        nextPageButton.addActionListener(e -> showPage(currentPage + 1));
+
+        pagerPanel.add(previousPageButton);
+        pagerPanel.add(pageLabel);
+        pagerPanel.add(nextPageButton);
+        pagerPanel.setVisible(false);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBackground(UIManager.getColor("Panel.background"));
+        bottomPanel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, UIManager.getColor("Component.borderColor")));
+        bottomPanel.add(pagerPanel, BorderLayout.WEST);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     /**
@@ -90,14 +164,31 @@ public class CallOutputFrame extends JFrame {
      */
     public void displayCallOutput(String environment, String name, String url, String method,
                                    String headers, String body, String response, Map<String, String> environmentVariables) {
+        displayCallOutput(environment, name, url, method, headers, body, response, environmentVariables, null);
+    }
+
+    /**
+     * Display the output of an API call, enabling the pager when the response body was spooled to disk.
+     * The response text is expected to be formatted already (see HttpCallResult.formatResponse).
+     */
+    public void displayCallOutput(String environment, String name, String url, String method,
+                                   String headers, String body, String response, Map<String, String> environmentVariables,
+                                   ResponseBody responseBody) {
+        displayCallOutput(environment, name, url, method, headers, body, response, environmentVariables,
+            responseBody, null);
+    }
+
+    /**
+     * Display the output of an API call with a waterfall of its phase timings above the response
+     */
+    public void displayCallOutput(String environment, String name, String url, String method,
+                                   String headers, String body, String response, Map<String, String> environmentVariables,
+                                   ResponseBody responseBody, PhaseTimings phaseTimings) {
         // Substitute environment variables in URL, headers, and body for display
         String resolvedUrl = substituteVariables(url, environmentVariables);
         String resolvedHeaders = substituteVariables(headers, environmentVariables);
         String resolvedBody = substituteVariables(body, environmentVariables);
-
-        // Check if response contains JSON content-type to enable pretty printing
-        boolean isJsonResponse = isJsonContentType(response);
-        String formattedResponse = isJsonResponse ? prettyPrintJson(response) : response;
+        String formattedResponse = response;
 
         StringBuilder output = new StringBuilder();
         output.append("═══════════════════════════════════════════════════════════════\n");
@@ -131,6 +222,13 @@ public class CallOutputFrame extends JFrame {
         output.append("───────────────────────────────────────────────────────────────\n");
         output.append(resolvedBody).append("\n\n");
 
+        if (phaseTimings != null) {
+            output.append("───────────────────────────────────────────────────────────────\n");
+            output.append("TIMING:\n");
+            output.append("───────────────────────────────────────────────────────────────\n");
+            output.append(phaseTimings.formatWaterfall()).append("\n");
+        }
+
         output.append("───────────────────────────────────────────────────────────────\n");
         output.append("RESPONSE:\n");
         output.append("───────────────────────────────────────────────────────────────\n");
@@ -138,8 +236,11 @@ public class CallOutputFrame extends JFrame {
 
         output.append("═══════════════════════════════════════════════════════════════\n");
 
-        outputTextArea.setText(output.toString());
-        outputTextArea.setCaretPosition(0); // Scroll to top
+        summaryText = output.toString();
+        resetStream();
+        pagedBody = responseBody != null && responseBody.isSpooled() ? responseBody : null;
+        pagerPanel.setVisible(pagedBody != null);
+        showPage(-1);
 
         // Show the frame if hidden
         if (!isVisible()) {
@@ -156,99 +257,131 @@ public class CallOutputFrame extends JFrame {
      * Substitute {{key}} placeholders with environment variable values
      */
     private String substituteVariables(String input, Map<String, String> environmentVariables) {
-        if (input == null || environmentVariables == null) {
-            return input;
-        }
-
-        Pattern pattern = Pattern.compile("\\{\\{([^}]+)\\}\\}");
-        Matcher matcher = pattern.matcher(input);
-        StringBuffer result = new StringBuffer();
+        return substitutionService.substitute(input, environmentVariables);
+    }
 
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String value = environmentVariables.get(key);
-            if (value != null) {
-                matcher.appendReplacement(result, Matcher.quoteReplacement(value));
-            } else {
-                // Keep the placeholder if no value found
-                matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(0)));
+    /**
+     * Show the summary (page -1) or one page of a spooled response body
+     */
+    private void showPage(int page) {
+        if (pagedBody == null || page < 0) {
+            currentPage = -1;
+            outputTextArea.setText(summaryText);
+        } else {
+            int pageCount = pagedBody.getPageCount(ResponseBody.PAGE_SIZE);
+            currentPage = Math.min(page, pageCount - 1);
+            try {
+                long from = (long) currentPage * ResponseBody.PAGE_SIZE;
+                long to = Math.min(from + ResponseBody.PAGE_SIZE, pagedBody.getSize());
+                outputTextArea.setText("RESPONSE BODY, bytes " + from + "-" + to + " of " + pagedBody.getSize() + "\n"
+                    + "───────────────────────────────────────────────────────────────\n"
+                    + pagedBody.readPage(currentPage, ResponseBody.PAGE_SIZE));
+            } catch (Exception e) {
+                outputTextArea.setText("Failed to read response body page: " + e.getMessage());
             }
         }
-        matcher.appendTail(result);
+        outputTextArea.setCaretPosition(0); // Scroll to top
 
-        return result.toString();
+        if (pagedBody != null) {
+            int pageCount = pagedBody.getPageCount(ResponseBody.PAGE_SIZE);
+            pageLabel.setText(currentPage < 0 ? "Summary · " + pageCount + " body pages"
+                : "Body page " + (currentPage + 1) + " of " + pageCount);
+            previousPageButton.setEnabled(currentPage >= 0);
+            nextPageButton.setEnabled(currentPage < pageCount - 1);
+        }
     }
 
     /**
-     * Check if the response indicates JSON content type
+     * Display a simple text message
      */
-    private boolean isJsonContentType(String response) {
-        if (response == null) {
-            return false;
+    public void displayMessage(String message) {
+        resetStream();
+        pagedBody = null;
+        pagerPanel.setVisible(false);
+        outputTextArea.setText(message);
+        outputTextArea.setCaretPosition(0);
+
+        if (!isVisible()) {
+            setLocationRelativeTo(null);
+            setVisible(true);
         }
 
-        // Check if response headers contain application/json
-        String lowerResponse = response.toLowerCase();
-        return lowerResponse.contains("content-type:") &&
-               (lowerResponse.contains("application/json") || lowerResponse.contains("application/vnd.api+json"));
+        toFront();
+        requestFocus();
     }
 
     /**
-     * Pretty print JSON response body
+     * Note that a call is running and let the Stop button cancel it.
+     * The frame is not brought up for it; if it is already showing, it says what is running.
      */
-    private String prettyPrintJson(String response) {
-        if (response == null || response.isEmpty()) {
-            return response;
+    public void showRunning(String description, Runnable stop) {
+        stopAction = stop;
+        stopButton.setEnabled(true);
+        if (isVisible()) {
+            resetStream();
+            pagedBody = null;
+            pagerPanel.setVisible(false);
+            outputTextArea.setText("Running " + description + "\u2026");
         }
+    }
 
-        try {
-            // Extract the response body (after "Response Body:" section)
-            String[] parts = response.split("Response Body:\n", 2);
-            if (parts.length < 2) {
-                return response;
-            }
-
-            String headerPart = parts[0];
-            String bodyPart = parts[1].trim();
-
-            // Check if body is empty or error message
-            if (bodyPart.isEmpty() || bodyPart.startsWith("(Empty") || bodyPart.startsWith("Error:")) {
-                return response;
-            }
-
-            // Try to parse and pretty print the JSON
-            JsonElement jsonElement = JsonParser.parseString(bodyPart);
-            String prettyJson = prettyGson.toJson(jsonElement);
-
-            // Reconstruct the response with pretty-printed JSON
-            return headerPart + "Response Body:\n" + prettyJson;
-
-        } catch (Exception e) {
-            // If parsing fails, return original response
-            return response;
+    /**
+     * Disable the Stop button once the call it stops has finished, unless a newer call took it over
+     */
+    public void clearRunning(Runnable stop) {
+        if (stopAction == stop) {
+            stopAction = null;
+            stopButton.setEnabled(false);
         }
     }
 
     /**
-     * Display a simple text message
+     * A view for the events of a call about to run; the frame switches to it once a response starts streaming
      */
-    public void displayMessage(String message) {
-        outputTextArea.setText(message);
-        outputTextArea.setCaretPosition(0);
+    public StreamView createStreamView() {
+        StreamView view = new StreamView();
+        view.setStartAction(() -> showStream(view));
+        return view;
+    }
 
-        if (!isVisible()) {
-            setLocationRelativeTo(null);
-            setVisible(true);
+    /**
+     * Show the events of a streamed response, bringing the frame up if needed.
+     * The full output of the call stays one click away.
+     */
+    public void showStream(StreamView view) {
+        if (streamView != view) {
+            streamView = view;
+            streamHolder.removeAll();
+            streamHolder.add(view, BorderLayout.CENTER);
         }
+        showCard(EVENTS_CARD);
+        display();
+    }
 
-        toFront();
-        requestFocus();
+    private void showCard(String card) {
+        shownCard = card;
+        contentCards.show(contentPanel, card);
+        streamToggleButton.setVisible(streamView != null);
+        streamToggleButton.setText(EVENTS_CARD.equals(card) ? "Show Output" : "Show Events");
+        streamHolder.revalidate();
+    }
+
+    /**
+     * Go back to plain output for content that was not streamed
+     */
+    private void resetStream() {
+        streamView = null;
+        streamHolder.removeAll();
+        showCard(OUTPUT_CARD);
     }
 
     /**
      * Clear the output
      */
     public void clearOutput() {
+        resetStream();
+        pagedBody = null;
+        pagerPanel.setVisible(false);
         outputTextArea.setText("");
     }
 
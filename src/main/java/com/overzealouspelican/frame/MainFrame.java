@@ -4,8 +4,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import com.overzealouspelican.dialog.LoadTestDialog;
 import com.overzealouspelican.panel.*;
 import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.ApiCallService;
 import com.overzealouspelican.util.IconUtils;
 
 /**
@@ -115,8 +117,18 @@ public class MainFrame extends JFrame {
         importMenu.add(importCurlItem);
         importMenu.add(importHarItem);
 
+        // Tools menu
+        JMenu toolsMenu = new JMenu("Tools");
+        toolsMenu.setMnemonic('T');
+
+        JMenuItem loadTestItem = new JMenuItem("Load Test...");
+        loadTestItem.setAccelerator(KeyStroke.getKeyStroke("ctrl shift L"));
+        loadTestItem.addActionListener(e -> handleLoadTest());
+        toolsMenu.add(loadTestItem);
+
         menuBar.add(fileMenu);
         menuBar.add(importMenu);
+        menuBar.add(toolsMenu);
 
         return menuBar;
     }
@@ -135,6 +147,13 @@ public class MainFrame extends JFrame {
         mainContentPanel.getCallConfigurationPanel().showImportHarDialog();
     }
 
+    /**
+     * Handle running a load test against a saved call
+     */
+    private void handleLoadTest() {
+        new LoadTestDialog(new ApiCallService()).show(this);
+    }
+
     private void layoutComponents() {
         // Toolbar at top
         add(toolbarPanel, BorderLayout.NORTH);
@@ -7,6 +7,15 @@ import java.util.Map;
  * Model class representing a saved API call configuration.
  */
 public class ApiCall {
+    /** Body modes; a null mode is treated as BODY_JSON so calls saved before body modes existed still load */
+    public static final String BODY_JSON = "JSON";
+    public static final String BODY_RAW = "RAW";
+    public static final String BODY_FILE = "FILE";
+    public static final String BODY_MULTIPART = "MULTIPART";
+
+    /** HTTP method value of a WebSocket call, whose raw body holds the script of messages it sends */
+    public static final String METHOD_WEBSOCKET = "WS";
+
     private String name;
     private String url;
     private String httpMethod;
@@ -14,6 +23,17 @@ public class ApiCall {
     private Map<String, String> body;
     private String groupName; // Group this API call belongs to
     private String description; // Optional description of the API call
+    private String httpVersion; // "HTTP/1.1", "HTTP/2" or null to use the environment's setting
+    private Boolean compression; // Advertise gzip/deflate; null to use the environment's setting
+    private String bodyMode; // One of the BODY_* modes; null for BODY_JSON
+    private String rawBody; // Request body text for BODY_RAW, or the message script of a WebSocket call
+    private String bodyFile; // Path of the file streamed as the request body for BODY_FILE
+    private Integer retries; // Retries after a transient failure; null to use the environment's setting
+    private String hedge; // "off", a percentile such as "p95" or milliseconds; null to use the environment's setting
+    private String connectTimeout; // e.g. "5", "2.5s", "500ms" or "off"; null to use the environment's setting
+    private String readTimeout; // Time until the response starts, same format; null to use the environment's setting
+    private String timeout; // Time for the whole call, same format; null to use the environment's setting
+    private Boolean stream; // Show the response line by line as it arrives; null to stream event-stream and NDJSON only
 
     public ApiCall() {
         this.headers = new HashMap<>();
@@ -28,6 +48,26 @@ public class ApiCall {
         this.body = body != null ? new HashMap<>(body) : new HashMap<>();
     }
 
+    /**
+     * Copy constructor
+     */
+    public ApiCall(ApiCall other) {
+        this(other.name, other.url, other.httpMethod, other.headers, other.body);
+        this.groupName = other.groupName;
+        this.description = other.description;
+        this.httpVersion = other.httpVersion;
+        this.compression = other.compression;
+        this.bodyMode = other.bodyMode;
+        this.rawBody = other.rawBody;
+        this.bodyFile = other.bodyFile;
+        this.retries = other.retries;
+        this.hedge = other.hedge;
+        this.connectTimeout = other.connectTimeout;
+        this.readTimeout = other.readTimeout;
+        this.timeout = other.timeout;
+        this.stream = other.stream;
+    }
+
     public String getName() {
         return name;
     }
@@ -84,6 +124,97 @@ public class ApiCall {
         this.description = description;
     }
 
+    public String getHttpVersion() {
+        return httpVersion;
+    }
+
+    public void setHttpVersion(String httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
+    public Boolean getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * The body mode, BODY_JSON when none is set
+     */
+    public String getBodyMode() {
+        return bodyMode != null ? bodyMode : BODY_JSON;
+    }
+
+    public void setBodyMode(String bodyMode) {
+        this.bodyMode = BODY_JSON.equals(bodyMode) ? null : bodyMode;
+    }
+
+    public String getRawBody() {
+        return rawBody;
+    }
+
+    public void setRawBody(String rawBody) {
+        this.rawBody = rawBody;
+    }
+
+    public String getBodyFile() {
+        return bodyFile;
+    }
+
+    public void setBodyFile(String bodyFile) {
+        this.bodyFile = bodyFile;
+    }
+
+    public Integer getRetries() {
+        return retries;
+    }
+
+    public void setRetries(Integer retries) {
+        this.retries = retries;
+    }
+
+    public String getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(String hedge) {
+        this.hedge = hedge;
+    }
+
+    public String getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(String connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public String getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(String readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public String getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(String timeout) {
+        this.timeout = timeout;
+    }
+
+    public Boolean getStream() {
+        return stream;
+    }
+
+    public void setStream(Boolean stream) {
+        this.stream = stream;
+    }
+
     @Override
     public String toString() {
         return "ApiCall{name='" + name + "', url='" + url + "', method='" + httpMethod + "'}";
@@ -4,6 +4,8 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Centralized application state following the Singleton pattern.
@@ -20,12 +22,33 @@ public class ApplicationState {
     private Map<String, String> environmentVariables;
     private String statusMessage;
     private String statusIcon;
+    private final Map<String, Summary> summaries;
 
     // Property names for change events
     public static final String PROPERTY_SELECTED_ENVIRONMENT = "selectedEnvironment";
     public static final String PROPERTY_ENVIRONMENT_VARIABLES = "environmentVariables";
     public static final String PROPERTY_STATUS_MESSAGE = "statusMessage";
     public static final String PROPERTY_STATUS_ICON = "statusIcon";
+    /** Fired with the new {@link Summary} when a background service publishes its one-line summary */
+    public static final String PROPERTY_SUMMARY = "summary";
+    /** Fired with the file name when a data file was changed outside the application and reloaded */
+    public static final String PROPERTY_STORED_DATA_CHANGED = "storedDataChanged";
+
+    // Sources of summaries; summaries are published from background threads
+    /** Shared HTTP connection pool: live connections, reuse and handshakes avoided */
+    public static final String SUMMARY_CONNECTION_POOL = "connectionPool";
+    /** Calls running and queued on the execution engine */
+    public static final String SUMMARY_EXECUTION = "execution";
+    /** Latest background save of calls or environments */
+    public static final String SUMMARY_PERSISTENCE = "persistence";
+    /** Progress of the latest large request body upload */
+    public static final String SUMMARY_UPLOAD = "upload";
+    /** Permitted and achieved rates of the busy rate limit buckets; empty when none are in use */
+    public static final String SUMMARY_RATE_LIMIT = "rateLimit";
+    /** Requests answered by sharing an identical request's exchange */
+    public static final String SUMMARY_COALESCING = "coalescing";
+    /** Connections opened ahead of use to the selected environment's origins; empty when warming is off */
+    public static final String SUMMARY_WARM_UP = "warmUp";
 
     private ApplicationState() {
         this.propertyChangeSupport = new PropertyChangeSupport(this);
@@ -33,6 +56,7 @@ public class ApplicationState {
         this.environmentVariables = new HashMap<>();
         this.statusMessage = "Ready";
         this.statusIcon = "🟢"; // Green circle emoji for ready status
+        this.summaries = new ConcurrentHashMap<>();
     }
 
     /**
@@ -126,6 +150,25 @@ public class ApplicationState {
         propertyChangeSupport.firePropertyChange(PROPERTY_STATUS_ICON, oldIcon, newIcon);
     }
 
+    // Background service summaries
+
+    /**
+     * The latest summary published by a source, or null if it has not published one
+     */
+    public String getSummary(String source) {
+        Summary summary = summaries.get(source);
+        return summary != null ? summary.getText() : null;
+    }
+
+    /**
+     * Publish a source's one-line summary, e.g. one of the SUMMARY_* sources; may be called from any thread
+     */
+    public void setSummary(String source, String text) {
+        Summary newSummary = new Summary(source, text);
+        Summary oldSummary = summaries.put(source, newSummary);
+        propertyChangeSupport.firePropertyChange(PROPERTY_SUMMARY, oldSummary, newSummary);
+    }
+
     /**
      * Convenience method to set both status message and icon
      */
@@ -156,4 +199,38 @@ public class ApplicationState {
     public void setStatusWarning(String message) {
         setStatus(message, "🟠");
     }
+
+    /**
+     * One-line summary published by a background service
+     */
+    public static final class Summary {
+        private final String source;
+        private final String text;
+
+        public Summary(String source, String text) {
+            this.source = source;
+            this.text = text;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Summary)) return false;
+            Summary that = (Summary) o;
+            return source.equals(that.source) && Objects.equals(text, that.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, text);
+        }
+    }
 }
@@ -2,8 +2,10 @@ package com.overzealouspelican.panel;
 
 import javax.swing.*;
 import java.awt.*;
+import com.overzealouspelican.component.CallOptionsPanel;
 import com.overzealouspelican.component.KeyValueInputGroup;
 import com.overzealouspelican.component.LabeledTextField;
+import com.overzealouspelican.component.RequestBodyPanel;
 import com.overzealouspelican.component.UrlWithMethodInput;
 import com.overzealouspelican.controller.CallExecutionHandler;
 import com.overzealouspelican.controller.CallFormController;
@@ -23,8 +25,9 @@ public class CallConfigurationPanel extends JPanel {
     private LabeledTextField nameField;
     private JTextArea descriptionArea;
     private UrlWithMethodInput urlInput;
+    private CallOptionsPanel callOptions;
     private KeyValueInputGroup headersGroup;
-    private KeyValueInputGroup bodyGroup;
+    private RequestBodyPanel bodyPanel;
 
     private final CallExecutionHandler executionHandler;
     private final CallFormController formController;
@@ -108,6 +111,10 @@ public class CallConfigurationPanel extends JPanel {
 
         urlInput = new UrlWithMethodInput();
         topSection.add(urlInput);
+        topSection.add(Box.createVerticalStrut(UITheme.SPACING_SM));
+
+        callOptions = new CallOptionsPanel();
+        topSection.add(callOptions);
 
         contentPanel.add(topSection, BorderLayout.NORTH);
 
@@ -135,10 +142,13 @@ public class CallConfigurationPanel extends JPanel {
         kvPanel.setBackground(UIManager.getColor("Panel.background"));
 
         headersGroup = new KeyValueInputGroup("Headers", "+ Add Header", "Remove this header");
-        bodyGroup = new KeyValueInputGroup("Body", "+ Add Parameter", "Remove this body parameter");
+        bodyPanel = new RequestBodyPanel();
 
         kvPanel.add(headersGroup);
-        kvPanel.add(bodyGroup);
+        kvPanel.add(bodyPanel);
+        // WebSocket calls edit a message script in place of the body
+        urlInput.addHttpMethodListener(e ->
+            bodyPanel.setWebSocket(ApiCall.METHOD_WEBSOCKET.equals(urlInput.getHttpMethod())));
 
         // Split pane: description on top, headers/body on bottom
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, descriptionPanel, kvPanel);
@@ -162,8 +172,10 @@ public class CallConfigurationPanel extends JPanel {
             urlInput.getHttpMethod(),
             descriptionArea.getText(),
             headersGroup.getKeyValuePairs(),
-            bodyGroup.getKeyValuePairs()
+            bodyPanel.getFieldsGroup().getKeyValuePairs()
         );
+        bodyPanel.applyTo(apiCall);
+        callOptions.applyTo(apiCall);
         executionHandler.execute(apiCall);
     }
 
@@ -174,8 +186,10 @@ public class CallConfigurationPanel extends JPanel {
             urlInput.getHttpMethod(),
             descriptionArea.getText(),
             headersGroup.getKeyValuePairs(),
-            bodyGroup.getKeyValuePairs()
+            bodyPanel.getFieldsGroup().getKeyValuePairs()
         );
+        bodyPanel.applyTo(apiCall);
+        callOptions.applyTo(apiCall);
         formController.save(this, apiCall);
     }
 
@@ -185,7 +199,8 @@ public class CallConfigurationPanel extends JPanel {
         urlInput.setHttpMethod("GET");
         descriptionArea.setText("");
         headersGroup.clear();
-        bodyGroup.clear();
+        bodyPanel.clear();
+        callOptions.clear();
         formController.clearGroupName();
         appState.setStatus("Ready", "\u2705");
     }
@@ -203,7 +218,8 @@ public class CallConfigurationPanel extends JPanel {
         urlInput.setHttpMethod(apiCall.getHttpMethod());
         descriptionArea.setText(apiCall.getDescription() != null ? apiCall.getDescription() : "");
         headersGroup.setKeyValuePairs(apiCall.getHeaders());
-        bodyGroup.setKeyValuePairs(apiCall.getBody());
+        bodyPanel.loadFrom(apiCall);
+        callOptions.loadFrom(apiCall);
         formController.setCurrentGroupName(apiCall.getGroupName());
     }
 
@@ -252,6 +268,6 @@ public class CallConfigurationPanel extends JPanel {
     }
 
     public KeyValueInputGroup getBodyGroup() {
-        return bodyGroup;
+        return bodyPanel.getFieldsGroup();
     }
 }
@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import com.overzealouspelican.controller.EnvironmentFormController;
+import com.overzealouspelican.model.ApplicationState;
 import com.overzealouspelican.model.Environment;
 import com.overzealouspelican.util.SaveButtonStyler;
 import com.overzealouspelican.util.UITheme;
@@ -38,6 +39,7 @@ public class EnvironmentEditorPanel extends JPanel {
         formController = new EnvironmentFormController();
         isLoadingEnvironment = false;
         initializePanel();
+        setupListeners();
         loadEnvironmentsFromDisk();
     }
 
@@ -303,6 +305,24 @@ public class EnvironmentEditorPanel extends JPanel {
         }
     }
 
+    private void setupListeners() {
+        // Environments edited outside the app have already been reloaded into memory;
+        // only pick them up if that would not throw away unsaved edits in the form
+        ApplicationState.getInstance().addPropertyChangeListener(
+            ApplicationState.PROPERTY_STORED_DATA_CHANGED,
+            evt -> SwingUtilities.invokeLater(() -> {
+                if (!formController.isEnvironmentsFile(evt.getNewValue())) {
+                    return;
+                }
+                if (formController.hasChanges(formController.buildCurrentState(keyFields, valueFields))) {
+                    ApplicationState.getInstance()
+                        .setStatusWarning("environments.json changed on disk; save or reselect to reload");
+                } else {
+                    loadEnvironmentsFromDisk();
+                }
+            }));
+    }
+
     private void updateSaveButtonState() {
         if (isLoadingEnvironment) return;
 
@@ -2,6 +2,8 @@ package com.overzealouspelican.panel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
 import com.overzealouspelican.model.ApplicationState;
 import com.overzealouspelican.util.UITheme;
 
@@ -12,6 +14,9 @@ public class StatusPanel extends JPanel {
 
     private JLabel statusLabel;
     private JLabel iconLabel;
+    /** Right-hand labels by summary source */
+    private final Map<String, JLabel> summaryLabels = new HashMap<>();
+    private JPanel rightPanel;
     private ApplicationState appState;
 
     public StatusPanel() {
@@ -41,19 +46,64 @@ public class StatusPanel extends JPanel {
 
         add(leftPanel, BorderLayout.WEST);
 
+        // Background service summaries on the right
+        rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, UITheme.SPACING_SM, 2));
+        rightPanel.setOpaque(false);
+
+        addSummaryLabel(ApplicationState.SUMMARY_UPLOAD,
+            "Progress and throughput of the latest large request body upload");
+        addSummaryLabel(ApplicationState.SUMMARY_RATE_LIMIT,
+            "Achieved and permitted request rate of rate-limited hosts, and requests waiting for a token");
+        addSummaryLabel(ApplicationState.SUMMARY_COALESCING,
+            "GET requests that shared an identical request's exchange instead of going to the server");
+        addSummaryLabel(ApplicationState.SUMMARY_PERSISTENCE,
+            "Most recent background save of calls or environments");
+        addSummaryLabel(ApplicationState.SUMMARY_EXECUTION,
+            "Calls running on the execution engine and calls waiting for an in-flight slot");
+        addSummaryLabel(ApplicationState.SUMMARY_WARM_UP,
+            "Origins of the selected environment with a connection opened ahead of the first call");
+        addSummaryLabel(ApplicationState.SUMMARY_CONNECTION_POOL,
+            "Shared HTTP connection pool: estimated live connections, reuse ratio and TLS handshakes avoided");
+
+        add(rightPanel, BorderLayout.EAST);
+
         // Add top border
         setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0,
             UIManager.getColor("Component.borderColor")));
         setPreferredSize(new Dimension(0, UITheme.STATUS_BAR_HEIGHT));
     }
 
+    /**
+     * Add a label to the right of the status bar showing the latest summary from a source
+     */
+    private void addSummaryLabel(String source, String tooltip) {
+        JLabel label = new JLabel("");
+        label.setFont(label.getFont().deriveFont(Font.PLAIN, UITheme.FONT_SIZE_XS));
+        label.setForeground(UIManager.getColor("Label.disabledForeground"));
+        label.setToolTipText(tooltip);
+        summaryLabels.put(source, label);
+        rightPanel.add(label);
+    }
+
     private void setupListeners() {
+        // Status can also be set by the background persistence writer
         appState.addPropertyChangeListener(ApplicationState.PROPERTY_STATUS_MESSAGE, evt -> {
-            statusLabel.setText("Status: " + evt.getNewValue());
+            SwingUtilities.invokeLater(() -> statusLabel.setText("Status: " + evt.getNewValue()));
         });
 
         appState.addPropertyChangeListener(ApplicationState.PROPERTY_STATUS_ICON, evt -> {
-            iconLabel.setText((String) evt.getNewValue());
+            SwingUtilities.invokeLater(() -> iconLabel.setText((String) evt.getNewValue()));
+        });
+
+        // Summaries are published from background threads
+        appState.addPropertyChangeListener(ApplicationState.PROPERTY_SUMMARY, evt -> {
+            ApplicationState.Summary summary = (ApplicationState.Summary) evt.getNewValue();
+            SwingUtilities.invokeLater(() -> {
+                JLabel label = summaryLabels.get(summary.getSource());
+                if (label != null) {
+                    label.setText(summary.getText());
+                }
+            });
         });
     }
 
@@ -2,6 +2,10 @@ package com.overzealouspelican.panel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.CallExecutionEngine;
 import com.overzealouspelican.util.UITheme;
 
 /**
@@ -11,6 +15,7 @@ public class ToolbarPanel extends JPanel {
 
     private JButton toggleSidebarButton;
     private JLabel environmentLabel;
+    private JButton stopButton;
 
     public ToolbarPanel(Runnable toggleSidebarAction) {
         initializePanel(toggleSidebarAction);
@@ -41,11 +46,68 @@ public class ToolbarPanel extends JPanel {
 
         add(leftPanel, BorderLayout.WEST);
 
+        // Right side - stop running calls
+        JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, UITheme.SPACING_SM, 6));
+        rightPanel.setOpaque(false);
+
+        stopButton = new JButton("■ Stop");
+        stopButton.setToolTipText("Cancel running calls, collection runs and load tests");
+        stopButton.setFocusPainted(false);
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> stopCalls());
+        rightPanel.add(stopButton);
+
+        add(rightPanel, BorderLayout.EAST);
+
+        // The engine publishes its counts from a background thread whenever they change
+        ApplicationState.getInstance().addPropertyChangeListener(ApplicationState.PROPERTY_SUMMARY, evt -> {
+            ApplicationState.Summary summary = (ApplicationState.Summary) evt.getNewValue();
+            if (ApplicationState.SUMMARY_EXECUTION.equals(summary.getSource())) {
+                SwingUtilities.invokeLater(() -> stopButton.setEnabled(!CallExecutionEngine.getInstance().isIdle()));
+            }
+        });
+
         // Add bottom border
         setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0,
             UIManager.getColor("Component.borderColor")));
     }
 
+    /**
+     * Stop the only thing running, or let the user pick what to stop when there is more than one
+     */
+    private void stopCalls() {
+        CallExecutionEngine engine = CallExecutionEngine.getInstance();
+        Map<String, Integer> callsByName = new LinkedHashMap<>();
+        for (CallExecutionEngine.CallTask<?> task : engine.getPendingTasks()) {
+            callsByName.merge(task.getName(), 1, Integer::sum);
+        }
+
+        if (callsByName.size() <= 1) {
+            reportStopped(engine.cancelAll());
+            return;
+        }
+
+        JPopupMenu menu = new JPopupMenu();
+        for (Map.Entry<String, Integer> entry : callsByName.entrySet()) {
+            String label = entry.getValue() > 1
+                ? "Stop " + entry.getKey() + " (" + entry.getValue() + " calls)"
+                : "Stop " + entry.getKey();
+            JMenuItem item = new JMenuItem(label);
+            item.addActionListener(e -> reportStopped(engine.cancel(entry.getKey())));
+            menu.add(item);
+        }
+        menu.addSeparator();
+        JMenuItem stopAll = new JMenuItem("Stop All");
+        stopAll.addActionListener(e -> reportStopped(engine.cancelAll()));
+        menu.add(stopAll);
+        menu.show(stopButton, 0, stopButton.getHeight());
+    }
+
+    private void reportStopped(int cancelled) {
+        ApplicationState.getInstance().setStatusWarning(
+            "Cancelled " + cancelled + (cancelled == 1 ? " call" : " calls"));
+    }
+
     public void setEnvironmentLabel(String environment) {
         if (environment != null && !environment.isEmpty()) {
             environmentLabel.setText("Environment: " + environment);
@@ -54,4 +116,3 @@ public class ToolbarPanel extends JPanel {
         }
     }
 }
-
@@ -11,6 +11,7 @@ import java.util.List;
 import com.overzealouspelican.controller.ApiCallDragDropHandler;
 import com.overzealouspelican.controller.SavedCallsListController;
 import com.overzealouspelican.controller.SavedCallsListController.GroupedCalls;
+import com.overzealouspelican.dialog.CollectionRunDialog;
 import com.overzealouspelican.model.ApiCall;
 import com.overzealouspelican.model.ApplicationState;
 import com.overzealouspelican.service.ApiCallService;
@@ -23,6 +24,7 @@ import com.overzealouspelican.util.UITheme;
 public class UrlPanel extends JPanel {
 
     private final ApplicationState appState;
+    private final ApiCallService apiCallService;
     private final SavedCallsListController listController;
     private final ApiCallDragDropHandler dragDropHandler;
     private JPanel listPanel;
@@ -30,7 +32,7 @@ public class UrlPanel extends JPanel {
     private CallConfigurationPanel configPanel;
 
     public UrlPanel() {
-        ApiCallService apiCallService = new ApiCallService();
+        this.apiCallService = new ApiCallService();
         this.appState = ApplicationState.getInstance();
         this.listController = new SavedCallsListController(apiCallService);
         this.dragDropHandler = new ApiCallDragDropHandler(apiCallService);
@@ -98,6 +100,13 @@ public class UrlPanel extends JPanel {
                 refreshList();
             }
         });
+
+        // Saved calls edited outside the app have already been reloaded into memory
+        appState.addPropertyChangeListener(ApplicationState.PROPERTY_STORED_DATA_CHANGED, evt -> {
+            if (ApiCallService.API_CALLS_FILE.equals(evt.getNewValue())) {
+                SwingUtilities.invokeLater(this::refreshList);
+            }
+        });
     }
 
     // --- Action handlers ---
@@ -105,11 +114,15 @@ public class UrlPanel extends JPanel {
     private void handleToggleAll() {
         GroupedCalls grouped = listController.loadGroupedCalls();
         boolean anyExpanded = listController.isAnyGroupExpanded(grouped.getGroups().keySet());
-        listController.setAllGroupsExpanded(!anyExpanded);
+        listController.setAllGroupsExpanded(grouped.getGroups().keySet(), !anyExpanded);
         updateToggleButtonIcon(!anyExpanded);
         refreshList();
     }
 
+    private void handleRunGroup(String groupName, List<String> members) {
+        new CollectionRunDialog(apiCallService).show(this, groupName, members);
+    }
+
     private void handleLoadApiCall(String name) {
         if (name == null || configPanel == null) return;
 
@@ -201,6 +214,18 @@ public class UrlPanel extends JPanel {
         nameLabel.setFont(nameLabel.getFont().deriveFont(Font.BOLD, UITheme.FONT_SIZE_MD));
         headerPanel.add(nameLabel, BorderLayout.CENTER);
 
+        // Run the whole group
+        JButton runButton = new JButton("\u25B7"); // ▷
+        runButton.setPreferredSize(new Dimension(28, 24));
+        runButton.setToolTipText("Run all calls in this group");
+        runButton.setFocusPainted(false);
+        runButton.setContentAreaFilled(false);
+        runButton.setBorderPainted(false);
+        runButton.setFont(runButton.getFont().deriveFont(12f));
+        runButton.setMargin(new Insets(0, 0, 0, 0));
+        runButton.addActionListener(e -> handleRunGroup(groupName, members));
+        headerPanel.add(runButton, BorderLayout.EAST);
+
         // Click to expand/collapse
         headerPanel.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
@@ -3,30 +3,35 @@ package com.overzealouspelican.service;
 import com.overzealouspelican.model.ApiCall;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for persisting API calls to JSON files on the local filesystem.
  * Follows the Single Responsibility Principle - handles only API call persistence.
+ * Calls are served from an in-memory index shared by every instance for the same data directory;
+ * single-call writes append to a journal instead of rewriting the whole file, and happen on the
+ * {@link PersistenceWriter} thread so saving never blocks the UI.
+ * The index is reloaded when {@link DataDirectoryWatcher} sees the file change outside the application.
  */
 public class ApiCallPersistenceService {
 
-    private static final String API_CALLS_FILE = "api-calls.json";
+    static final String API_CALLS_FILE = "api-calls.json";
+    private static final Map<Path, JournaledJsonStore<ApiCall>> STORES = new ConcurrentHashMap<>();
+
     private final Gson gson;
     private final StoragePathService storagePathService;
 
     public ApiCallPersistenceService() {
+        this(new StoragePathService());
+    }
+
+    ApiCallPersistenceService(StoragePathService storagePathService) {
         this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.storagePathService = new StoragePathService();
+        this.storagePathService = storagePathService;
         ensureDataDirectoryExists();
     }
 
@@ -51,68 +56,56 @@ public class ApiCallPersistenceService {
     }
 
     /**
-     * Load all API calls from the JSON file
+     * Get the shared store for the current data directory, loading it on first use
      */
-    public Map<String, ApiCall> loadApiCalls() {
-        Path apiCallsFile = getApiCallsFile();
-        if (!Files.exists(apiCallsFile)) {
-            return new HashMap<>();
-        }
+    private JournaledJsonStore<ApiCall> getStore() {
+        return STORES.computeIfAbsent(getApiCallsFile(), file -> {
+            JournaledJsonStore<ApiCall> store = new JournaledJsonStore<>(file, ApiCall.class, gson, ApiCall::new);
+            DataDirectoryWatcher.getInstance().watch(store);
+            return store;
+        });
+    }
 
-        try (FileReader reader = new FileReader(apiCallsFile.toFile())) {
-            Type type = new TypeToken<Map<String, ApiCall>>(){}.getType();
-            Map<String, ApiCall> apiCalls = gson.fromJson(reader, type);
-            return apiCalls != null ? apiCalls : new HashMap<>();
-        } catch (IOException e) {
-            System.err.println("Failed to load API calls: " + e.getMessage());
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+    /**
+     * Load all API calls
+     */
+    public Map<String, ApiCall> loadApiCalls() {
+        return getStore().snapshot();
     }
 
     /**
-     * Save all API calls to the JSON file
+     * Save all API calls; the JSON file is rewritten in the background
      */
     public void saveApiCalls(Map<String, ApiCall> apiCalls) throws IOException {
-        Path apiCallsFile = getApiCallsFile();
-        try (FileWriter writer = new FileWriter(apiCallsFile.toFile())) {
-            gson.toJson(apiCalls, writer);
-            System.out.println("Saved API calls to: " + apiCallsFile);
-        }
+        getStore().replaceAll(apiCalls);
     }
 
     /**
      * Save a single API call
      */
     public void saveApiCall(ApiCall apiCall) throws IOException {
-        Map<String, ApiCall> apiCalls = loadApiCalls();
-        apiCalls.put(apiCall.getName(), apiCall);
-        saveApiCalls(apiCalls);
+        getStore().put(apiCall.getName(), apiCall);
     }
 
     /**
      * Load a specific API call by name
      */
     public ApiCall loadApiCall(String name) {
-        Map<String, ApiCall> apiCalls = loadApiCalls();
-        return apiCalls.get(name);
+        return getStore().get(name);
     }
 
     /**
      * Delete an API call
      */
     public void deleteApiCall(String name) throws IOException {
-        Map<String, ApiCall> apiCalls = loadApiCalls();
-        apiCalls.remove(name);
-        saveApiCalls(apiCalls);
+        getStore().remove(name);
     }
 
     /**
      * Check if an API call exists
      */
     public boolean apiCallExists(String name) {
-        Map<String, ApiCall> apiCalls = loadApiCalls();
-        return apiCalls.containsKey(name);
+        return getStore().containsKey(name);
     }
 
     /**
@@ -122,4 +115,3 @@ public class ApiCallPersistenceService {
         return getApiCallsFile().toString();
     }
 }
-
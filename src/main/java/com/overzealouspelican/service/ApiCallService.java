@@ -4,26 +4,51 @@ import com.overzealouspelican.model.ApiCall;
 import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
 
 import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for managing API calls.
  * Follows the Single Responsibility Principle - orchestrates between specialized services.
  * This is a facade that delegates to:
  * - ApiCallPersistenceService for data persistence
- * - VariableSubstitutionService for variable resolution
+ * - CompiledApiCall for variable resolution, with saved calls reused across executions through CompiledCallCache
  * - HttpRequestExecutor for executing HTTP requests
+ * - HttpResponseCache for answering GETs from stored responses where caching headers allow
+ * - RequestCoalescer for sharing one exchange between identical GETs in flight together
+ * - RateLimiter for holding requests to the environment's rate limits
+ * - RetryingCall for retrying and hedging calls under a RetryPolicy
  */
 public class ApiCallService {
 
+    /** Name of the saved calls file, as reported by {@link com.overzealouspelican.model.ApplicationState#PROPERTY_STORED_DATA_CHANGED} */
+    public static final String API_CALLS_FILE = ApiCallPersistenceService.API_CALLS_FILE;
+
     private final ApiCallPersistenceService persistenceService;
-    private final VariableSubstitutionService substitutionService;
     private final HttpRequestExecutor requestExecutor;
+    private final RateLimiter rateLimiter;
+    private final RequestCoalescer requestCoalescer;
+    private final HttpResponseCache httpResponseCache;
+    private final CompiledCallCache compiledCallCache;
 
     public ApiCallService() {
-        this.persistenceService = new ApiCallPersistenceService();
-        this.substitutionService = new VariableSubstitutionService();
+        this(new ApiCallPersistenceService());
+    }
+
+    /**
+     * A service storing its calls with the given persistence service, e.g. one kept in a temp directory
+     */
+    ApiCallService(ApiCallPersistenceService persistenceService) {
+        this.persistenceService = persistenceService;
         this.requestExecutor = new HttpRequestExecutor();
+        this.rateLimiter = RateLimiter.getInstance();
+        this.requestCoalescer = RequestCoalescer.getInstance();
+        this.httpResponseCache = HttpResponseCache.getInstance();
+        this.compiledCallCache = CompiledCallCache.getInstance();
     }
 
     /**
@@ -38,6 +63,7 @@ public class ApiCallService {
      */
     public void saveApiCalls(Map<String, ApiCall> apiCalls) throws IOException {
         persistenceService.saveApiCalls(apiCalls);
+        compiledCallCache.clear();
     }
 
     /**
@@ -45,6 +71,7 @@ public class ApiCallService {
      */
     public void saveApiCall(ApiCall apiCall) throws IOException {
         persistenceService.saveApiCall(apiCall);
+        compiledCallCache.invalidate(apiCall.getName());
     }
 
     /**
@@ -59,6 +86,7 @@ public class ApiCallService {
      */
     public void deleteApiCall(String name) throws IOException {
         persistenceService.deleteApiCall(name);
+        compiledCallCache.invalidate(name);
     }
 
     /**
@@ -75,22 +103,82 @@ public class ApiCallService {
         return persistenceService.getApiCallsFilePath();
     }
 
+    /**
+     * Compile a call as it is, e.g. a form with unsaved edits. Callers that run the same call repeatedly
+     * (load runs) compile it once and render it against the environment on each execution.
+     */
+    public CompiledApiCall compileApiCall(ApiCall apiCall) {
+        return CompiledApiCall.compile(apiCall);
+    }
+
+    /**
+     * The compiled form of a saved call, reused until the call is saved again, deleted or changed on disk
+     *
+     * @return the compiled call, or null if no call with that name is saved
+     */
+    public CompiledApiCall loadCompiledApiCall(String name) {
+        return compiledCallCache.get(name, persistenceService::loadApiCall);
+    }
+
     /**
      * Execute an API call with environment variable substitution
      */
     public HttpCallResult executeApiCall(ApiCall apiCall, Map<String, String> environmentVariables) {
+        return executeApiCall(apiCall, environmentVariables, CallOptions.DEFAULT);
+    }
+
+    /**
+     * Execute an API call with environment variable substitution; see {@link CallOptions} for the flow,
+     * deadline and stream listener
+     */
+    public HttpCallResult executeApiCall(ApiCall apiCall, Map<String, String> environmentVariables,
+                                         CallOptions options) {
+        return executeApiCall(compileApiCall(apiCall), environmentVariables, options);
+    }
+
+    /**
+     * Execute a precompiled API call; see {@link #compileApiCall}
+     */
+    public HttpCallResult executeApiCall(CompiledApiCall compiledCall, Map<String, String> environmentVariables,
+                                         CallOptions options) {
+        return AsyncCalls.await(executeApiCallAsync(compiledCall, environmentVariables, options));
+    }
+
+    /**
+     * Execute a precompiled API call without blocking; see {@link #executeApiCallAsync(CompiledApiCall, Map, CallOptions)}
+     */
+    public CompletableFuture<HttpCallResult> executeApiCallAsync(CompiledApiCall compiledCall,
+                                                                 Map<String, String> environmentVariables) {
+        return executeApiCallAsync(compiledCall, environmentVariables, CallOptions.DEFAULT);
+    }
+
+    /**
+     * Execute a precompiled API call without blocking. The future always completes with a result,
+     * a failed one if the call could not be made; cancelling it aborts the exchange.
+     * Use {@link AsyncCalls} to run many calls with bounded concurrency or to time-limit a call.
+     * <p>
+     * Every request sent for the call, retries and hedges included, waits for the environment's rate limits
+     * in the options' flow. With a deadline the call gets at most what is left of it, or its own total timeout
+     * if that is shorter; if the deadline has already passed the call fails without being sent.
+     */
+    public CompletableFuture<HttpCallResult> executeApiCallAsync(CompiledApiCall compiledCall,
+                                                                 Map<String, String> environmentVariables,
+                                                                 CallOptions options) {
+        String flow = options.getFlow();
+        Deadline deadline = options.getDeadline();
+        StreamListener streamListener = options.getStreamListener();
         try {
-            // Log environment variables for debugging
-            System.out.println("Environment variables available: " + environmentVariables);
+            if (deadline != null && deadline.isExpired()) {
+                return CompletableFuture.completedFuture(HttpCallResult.failed(new HttpTimeoutException(
+                    "Deadline of " + Timeouts.format(deadline.getBudget()) + " spent before the call was sent")));
+            }
 
             // Substitute environment variables in URL
-            String resolvedUrl = substitutionService.substitute(apiCall.getUrl(), environmentVariables);
-            System.out.println("Original URL: " + apiCall.getUrl());
-            System.out.println("Resolved URL: " + resolvedUrl);
+            java.util.List<String> missingVars = new java.util.ArrayList<>();
+            String resolvedUrl = compiledCall.renderUrl(environmentVariables, missingVars);
 
             // Check if URL still contains unresolved variables
-            if (substitutionService.hasUnresolvedVariables(resolvedUrl)) {
-                java.util.List<String> missingVars = substitutionService.getUnresolvedVariables(resolvedUrl);
+            if (!missingVars.isEmpty()) {
                 throw new IllegalArgumentException(
                     "URL contains unresolved environment variables: " + String.join(", ", missingVars) +
                     "\nAvailable variables: " + environmentVariables.keySet()
@@ -98,28 +186,88 @@ public class ApiCallService {
             }
 
             // Substitute environment variables in headers and body
-            Map<String, String> resolvedHeaders = substitutionService.substituteMap(apiCall.getHeaders(), environmentVariables);
-            Map<String, String> resolvedBody = substitutionService.substituteMap(apiCall.getBody(), environmentVariables);
+            Map<String, String> resolvedHeaders = compiledCall.renderHeaders(environmentVariables);
+
+            String proxy = EnvironmentSettings.parseProxy(EnvironmentSettings.PROXY,
+                environmentVariables.get(EnvironmentSettings.PROXY));
+
+            // A WebSocket call sends its script's messages over one connection instead of a request
+            if (ApiCall.METHOD_WEBSOCKET.equals(compiledCall.getHttpMethod())) {
+                WebSocketScript script = WebSocketScript.parse(compiledCall.renderRawBody(environmentVariables));
+                Timeouts timeouts = Timeouts.resolve(compiledCall.getConnectTimeout(), compiledCall.getReadTimeout(),
+                    compiledCall.getTimeout(), environmentVariables);
+                return limitDuration(requestExecutor.openWebSocket(resolvedUrl, resolvedHeaders, script,
+                    RequestOptions.DEFAULT.withTimeouts(timeouts).withProxy(proxy).withStreamListener(streamListener)),
+                    timeouts.getTotal(), deadline);
+            }
+
+            Map<String, String> resolvedBody = compiledCall.renderBody(environmentVariables);
 
             // Create a temporary ApiCall with resolved values
             ApiCall resolvedApiCall = new ApiCall();
             resolvedApiCall.setUrl(resolvedUrl);
-            resolvedApiCall.setHttpMethod(apiCall.getHttpMethod());
+            resolvedApiCall.setHttpMethod(compiledCall.getHttpMethod());
             resolvedApiCall.setHeaders(resolvedHeaders);
             resolvedApiCall.setBody(resolvedBody);
+            resolvedApiCall.setBodyMode(compiledCall.getBodyMode());
+            resolvedApiCall.setBodyFile(compiledCall.renderBodyFile(environmentVariables));
+            // Raw and JSON bodies are sent from bytes encoded once per set of variable values
+            byte[] encodedBody = compiledCall.hasEncodedBody() ? compiledCall.encodeBody(environmentVariables) : null;
+            resolvedApiCall.setHttpVersion(EnvironmentSettings.label(
+                EnvironmentSettings.resolveHttpVersion(compiledCall.getHttpVersion(), environmentVariables)));
+            resolvedApiCall.setCompression(
+                EnvironmentSettings.resolveCompression(compiledCall.getCompression(), environmentVariables));
+            resolvedApiCall.setStream(compiledCall.getStream());
+
+            Timeouts timeouts = Timeouts.resolve(compiledCall.getConnectTimeout(), compiledCall.getReadTimeout(),
+                compiledCall.getTimeout(), environmentVariables);
+            RequestOptions requestOptions = RequestOptions.DEFAULT.withTimeouts(timeouts).withProxy(proxy)
+                .withEncodedBody(encodedBody).withStreamListener(streamListener);
+            RetryPolicy retryPolicy = RetryPolicy.resolve(compiledCall.getRetries(), compiledCall.getHedge(),
+                environmentVariables);
+            RateLimiter.Limits limits = RateLimiter.Limits.resolve(environmentVariables);
+            boolean coalesce = RequestCoalescer.canCoalesce(resolvedApiCall.getHttpMethod()) && Boolean.TRUE.equals(
+                EnvironmentSettings.parseSwitch(EnvironmentSettings.COALESCE,
+                    environmentVariables.get(EnvironmentSettings.COALESCE)));
 
-            // Execute the request and return the result directly
-            return requestExecutor.execute(resolvedApiCall, resolvedHeaders, resolvedBody);
+            // Sends the call with the given headers; the HTTP cache adds validators when revalidating
+            Function<Map<String, String>, CompletableFuture<HttpCallResult>> network = requestHeaders -> {
+                Supplier<CompletableFuture<HttpCallResult>> send = () -> rateLimiter.run(limits, resolvedUrl, flow,
+                    () -> requestExecutor.executeAsync(resolvedApiCall, requestHeaders, resolvedBody, requestOptions));
+                Supplier<CompletableFuture<HttpCallResult>> call = retryPolicy.isNone() ? send
+                    : () -> RetryingCall.run(retryPolicy, resolvedApiCall.getHttpMethod(), requestHeaders, resolvedUrl, send);
+                if (coalesce) {
+                    return requestCoalescer.execute(resolvedApiCall.getHttpMethod(), resolvedUrl, requestHeaders,
+                        resolvedApiCall.getHttpVersion(), resolvedApiCall.getCompression(), call);
+                }
+                return call.get();
+            };
+
+            CompletableFuture<HttpCallResult> call = HttpResponseCache.isEnabled(environmentVariables)
+                ? httpResponseCache.execute(resolvedApiCall.getHttpMethod(), resolvedUrl, resolvedHeaders,
+                    environmentVariables, network)
+                : network.apply(resolvedHeaders);
+            return limitDuration(call, timeouts.getTotal(), deadline);
 
         } catch (Exception e) {
             e.printStackTrace();
-            return new HttpCallResult(
-                0,
-                "Error: " + e.getMessage(),
-                new java.util.HashMap<>(),
-                0,
-                e
-            );
+            return CompletableFuture.completedFuture(HttpCallResult.failed(e));
+        }
+    }
+
+    /**
+     * Fail a call that outlives its total timeout or the run's deadline, whichever comes first
+     */
+    private static CompletableFuture<HttpCallResult> limitDuration(CompletableFuture<HttpCallResult> call,
+                                                                   Duration total, Deadline deadline) {
+        Duration remaining = deadline != null ? deadline.remaining() : null;
+        if (remaining != null && (total == null || remaining.compareTo(total) < 0)) {
+            return AsyncCalls.withTimeout(call, remaining,
+                "Deadline of " + Timeouts.format(deadline.getBudget()) + " spent while the call was running");
+        }
+        if (total != null) {
+            return AsyncCalls.withTimeout(call, total, "Call timed out after " + Timeouts.format(total));
         }
+        return call;
     }
 }
@@ -0,0 +1,263 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Composition helpers for asynchronous calls.
+ * Every future handled here completes with an {@link HttpCallResult}, a failed result rather than an
+ * exception when a call goes wrong, so runs of many calls never need exception handling of their own.
+ * Cancelling a composed future cancels the calls it is waiting on.
+ */
+public final class AsyncCalls {
+
+    private AsyncCalls() {
+    }
+
+    /**
+     * Block until a call completes. An interrupt cancels the call, matching HttpClient.send.
+     */
+    public static HttpCallResult await(CompletableFuture<HttpCallResult> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            return HttpCallResult.cancelled();
+        } catch (CancellationException e) {
+            return HttpCallResult.cancelled();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            return HttpCallResult.failed(cause instanceof Exception ? (Exception) cause : e);
+        }
+    }
+
+    /**
+     * Start {@code count} calls, keeping at most {@code maxInFlight} in flight at once, and hand each result
+     * to {@code handler} as it arrives. Call {@code i} is started with {@code start.apply(i)} once a slot is
+     * free, so no thread waits for one, and results are not collected, so a run of any length holds only
+     * the calls in flight.
+     * The future completes once every started call has been handled and no more will start: all of them ran,
+     * or the handler asked to stop. Cancelling it starts no further calls and cancels those in flight,
+     * handing their cancelled results to the handler before the cancel returns.
+     */
+    public static CompletableFuture<Void> forEach(int count, int maxInFlight,
+                                                  IntFunction<CompletableFuture<HttpCallResult>> start,
+                                                  ResultHandler handler) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        return new Batch(count, maxInFlight, start, handler).start();
+    }
+
+    /**
+     * Start a call after a delay. Cancelling the returned future before then means the call is never
+     * started, and afterwards cancels it.
+     */
+    public static CompletableFuture<HttpCallResult> delayed(Duration delay,
+                                                            Supplier<CompletableFuture<HttpCallResult>> call) {
+        CompletableFuture<HttpCallResult> delayedCall = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpCallResult>> started = new AtomicReference<>();
+        Runnable begin = () -> {
+            if (delayedCall.isDone()) {
+                return;
+            }
+            CompletableFuture<HttpCallResult> running = startSafely(call);
+            started.set(running);
+            if (delayedCall.isCancelled()) {
+                running.cancel(true);
+            }
+            running.whenComplete((result, error) -> delayedCall.complete(resultOf(result, error)));
+        };
+        if (delay.isNegative() || delay.isZero()) {
+            begin.run();
+        } else {
+            CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(begin);
+        }
+
+        delayedCall.whenComplete((ignored, error) -> {
+            CompletableFuture<HttpCallResult> running = started.get();
+            if (delayedCall.isCancelled() && running != null) {
+                running.cancel(true);
+            }
+        });
+        return delayedCall;
+    }
+
+    /**
+     * Give a call a deadline. When it passes, the returned future completes with a failed result
+     * carrying an HttpTimeoutException and the call itself is cancelled.
+     */
+    public static CompletableFuture<HttpCallResult> withTimeout(CompletableFuture<HttpCallResult> call,
+                                                                Duration timeout) {
+        return withTimeout(call, timeout, "Call timed out after " + timeout.toMillis() + " ms");
+    }
+
+    /**
+     * Give a call a deadline, failing it with the given message when it passes
+     */
+    static CompletableFuture<HttpCallResult> withTimeout(CompletableFuture<HttpCallResult> call, Duration timeout,
+                                                         String message) {
+        CompletableFuture<HttpCallResult> timed = new CompletableFuture<>();
+        call.whenComplete((result, error) -> timed.complete(resultOf(result, error)));
+
+        CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            HttpTimeoutException timedOut = new HttpTimeoutException(message);
+            if (timed.complete(HttpCallResult.failed(timedOut))) {
+                call.cancel(true);
+            }
+        });
+        timed.whenComplete((ignored, error) -> {
+            if (timed.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return timed;
+    }
+
+    /**
+     * The underlying cause of an exception thrown through a future
+     */
+    static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * A call's result, or a failed result if the call itself was cancelled or failed
+     */
+    private static HttpCallResult resultOf(HttpCallResult result, Throwable error) {
+        if (error == null) {
+            return result;
+        }
+        Throwable cause = unwrap(error);
+        return HttpCallResult.failed(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+    }
+
+    /**
+     * Start a call, turning an exception thrown while starting it into a failed result
+     */
+    private static CompletableFuture<HttpCallResult> startSafely(Supplier<CompletableFuture<HttpCallResult>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(HttpCallResult.failed(e));
+        }
+    }
+
+    /**
+     * Receives the result of each call started by {@link #forEach}, on the thread that completed the call
+     */
+    public interface ResultHandler {
+        /**
+         * @return whether to keep starting calls
+         */
+        boolean handle(int index, HttpCallResult result);
+    }
+
+    /**
+     * Runs calls with bounded concurrency. Calls are started from a trampoline, so calls that complete
+     * immediately (failures, cached responses) do not recurse once per call.
+     */
+    private static final class Batch {
+        private final int count;
+        private final int maxInFlight;
+        private final IntFunction<CompletableFuture<HttpCallResult>> start;
+        private final ResultHandler handler;
+
+        private final Set<CompletableFuture<HttpCallResult>> running = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<Void> all = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                cancelRunning();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        private final AtomicInteger pumping = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int next;
+        private volatile boolean stopped;
+        private volatile boolean cancelRequested;
+
+        Batch(int count, int maxInFlight, IntFunction<CompletableFuture<HttpCallResult>> start,
+              ResultHandler handler) {
+            this.count = count;
+            this.maxInFlight = maxInFlight;
+            this.start = start;
+            this.handler = handler;
+        }
+
+        CompletableFuture<Void> start() {
+            pump();
+            return all;
+        }
+
+        /**
+         * Stop starting calls and cancel those in flight. A cancelled call completes on this thread,
+         * so its result is handled before this returns.
+         */
+        private void cancelRunning() {
+            cancelRequested = true;
+            stopped = true;
+            running.forEach(call -> call.cancel(true));
+        }
+
+        /**
+         * Start calls while there are free slots. Only one thread pumps at a time; a completion that
+         * arrives meanwhile makes the current pump go round again instead of starting its own.
+         */
+        private void pump() {
+            if (pumping.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!stopped && !all.isDone() && next < count && inFlight.get() < maxInFlight) {
+                    int index = next++;
+                    inFlight.incrementAndGet();
+                    CompletableFuture<HttpCallResult> call = startSafely(() -> start.apply(index));
+                    running.add(call);
+                    if (cancelRequested) {
+                        call.cancel(true);
+                    }
+                    call.whenComplete((result, error) -> {
+                        running.remove(call);
+                        onResult(index, resultOf(result, error));
+                    });
+                }
+                if (inFlight.get() == 0 && (stopped || next >= count)) {
+                    all.complete(null);
+                }
+            } while (pumping.decrementAndGet() != 0);
+        }
+
+        private void onResult(int index, HttpCallResult result) {
+            try {
+                if (!handler.handle(index, result)) {
+                    stopped = true;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Stopped starting calls after a result handler failure: " + e.getMessage());
+                stopped = true;
+            } finally {
+                inFlight.decrementAndGet();
+                pump();
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.net.http.HttpClient;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A stored response and the HTTP caching rules (RFC 9111) that decide how long it may be reused.
+ * Holds everything but the body, which {@link HttpResponseCache} keeps alongside it; stored on disk as JSON.
+ * Times are wall-clock milliseconds so entries stay valid across restarts.
+ */
+public class CachedResponse {
+
+    /** Statuses a cache may store without explicit freshness information (RFC 9110 section 15.1) */
+    private static final Set<Integer> CACHEABLE_BY_DEFAULT = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+    /** Upper bound on heuristic freshness, which is only a guess from Last-Modified */
+    private static final long MAX_HEURISTIC_MILLIS = 24L * 60 * 60 * 1000;
+    /** Headers a 304 must not overwrite, as they describe the stored body rather than the response */
+    private static final Set<String> BODY_HEADERS = Set.of("content-length", "content-encoding", "transfer-encoding",
+        "content-range");
+
+    private String url;
+    private int statusCode;
+    private Map<String, List<String>> headers;
+    /** Values of the request headers named by Vary when the response was stored, keyed by lower-case name */
+    private Map<String, String> varyValues;
+    private long requestTime;
+    private long responseTime;
+    private long bodySize;
+    private String charset;
+    private String protocol;
+
+    public CachedResponse() {
+    }
+
+    /**
+     * Capture a response that was just received
+     */
+    static CachedResponse of(String url, Map<String, String> requestHeaders, HttpCallResult result,
+                             long requestTime, long responseTime) {
+        CachedResponse entry = new CachedResponse();
+        entry.url = url;
+        entry.statusCode = result.getStatusCode();
+        entry.headers = new LinkedHashMap<>(result.getHeaders());
+        entry.varyValues = new HashMap<>();
+        for (String name : entry.varyNames()) {
+            entry.varyValues.put(name, headerValue(requestHeaders, name));
+        }
+        entry.requestTime = requestTime;
+        entry.responseTime = responseTime;
+        entry.bodySize = result.getResponseBody().getSize();
+        entry.charset = result.getResponseBody().getCharset().name();
+        entry.protocol = result.getProtocolVersion() != null ? result.getProtocolVersion().name() : null;
+        return entry;
+    }
+
+    /**
+     * Whether a response to a GET may be stored (RFC 9111 section 3)
+     */
+    static boolean isStorable(Map<String, String> requestDirectives, HttpCallResult result) {
+        if (result.getError() != null || requestDirectives.containsKey("no-store")) {
+            return false;
+        }
+        Map<String, String> directives = parseCacheControl(headerValues(result.getHeaders(), "Cache-Control"));
+        if (directives.containsKey("no-store") || varyNamesOf(result.getHeaders()).contains("*")) {
+            return false;
+        }
+        boolean explicit = directives.containsKey("max-age") || firstHeader(result.getHeaders(), "Expires") != null;
+        if (!CACHEABLE_BY_DEFAULT.contains(result.getStatusCode()) && !explicit) {
+            return false;
+        }
+        // Worth keeping only if it can be reused as is or revalidated cheaply
+        return explicit || firstHeader(result.getHeaders(), "ETag") != null
+            || firstHeader(result.getHeaders(), "Last-Modified") != null;
+    }
+
+    /**
+     * Whether this entry can answer a request with these headers, i.e. the headers named by Vary match
+     */
+    boolean matches(Map<String, String> requestHeaders) {
+        for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+            String value = headerValue(requestHeaders, vary.getKey());
+            if (value == null ? vary.getValue() != null : !value.trim().equals(vary.getValue() != null ? vary.getValue().trim() : null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * How long the response stays fresh: max-age, else Expires minus Date, else 10% of the time since
+     * Last-Modified (RFC 9111 section 4.2.1 and 4.2.2)
+     */
+    long freshnessLifetimeMillis() {
+        Map<String, String> directives = getDirectives();
+        Long maxAge = seconds(directives.get("max-age"));
+        if (maxAge != null) {
+            return maxAge * 1000;
+        }
+        String expires = firstHeader(headers, "Expires");
+        if (expires != null) {
+            Long expiresAt = parseDate(expires);
+            // An invalid Expires, such as "0", means already expired
+            return expiresAt != null ? Math.max(0, expiresAt - dateValue()) : 0;
+        }
+        Long lastModified = parseDate(firstHeader(headers, "Last-Modified"));
+        if (lastModified != null && CACHEABLE_BY_DEFAULT.contains(statusCode)) {
+            return Math.min(MAX_HEURISTIC_MILLIS, Math.max(0, (dateValue() - lastModified) / 10));
+        }
+        return 0;
+    }
+
+    /**
+     * The response's age now (RFC 9111 section 4.2.3)
+     */
+    long currentAgeMillis(long now) {
+        long apparentAge = Math.max(0, responseTime - dateValue());
+        Long ageValue = seconds(firstHeader(headers, "Age"));
+        long correctedAge = (ageValue != null ? ageValue * 1000 : 0) + (responseTime - requestTime);
+        long residentTime = now - responseTime;
+        return Math.max(apparentAge, correctedAge) + residentTime;
+    }
+
+    /**
+     * Whether the entry may be used without asking the server, given the request's own directives
+     */
+    boolean isFresh(long now, Map<String, String> requestDirectives) {
+        if (getDirectives().containsKey("no-cache") || requestDirectives.containsKey("no-cache")) {
+            return false;
+        }
+        long age = currentAgeMillis(now);
+        long lifetime = freshnessLifetimeMillis();
+        Long maxAge = seconds(requestDirectives.get("max-age"));
+        if (maxAge != null && age > maxAge * 1000) {
+            return false;
+        }
+        Long minFresh = seconds(requestDirectives.get("min-fresh"));
+        if (minFresh != null) {
+            lifetime -= minFresh * 1000;
+        }
+        return age < lifetime;
+    }
+
+    boolean hasValidators() {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    String getETag() {
+        return firstHeader(headers, "ETag");
+    }
+
+    String getLastModified() {
+        return firstHeader(headers, "Last-Modified");
+    }
+
+    /**
+     * The entry after a 304: stored headers are updated with those of the 304 (RFC 9111 section 4.3.4)
+     * and the entry's age starts over
+     */
+    CachedResponse revalidated(HttpCallResult notModified, long newRequestTime, long newResponseTime) {
+        CachedResponse entry = new CachedResponse();
+        entry.url = url;
+        entry.statusCode = statusCode;
+        entry.headers = new LinkedHashMap<>(headers);
+        for (Map.Entry<String, List<String>> header : notModified.getHeaders().entrySet()) {
+            if (header.getKey() == null || BODY_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            String existing = findHeader(entry.headers, header.getKey());
+            if (existing != null) {
+                entry.headers.remove(existing);
+            }
+            entry.headers.put(header.getKey(), header.getValue());
+        }
+        entry.varyValues = varyValues;
+        entry.requestTime = newRequestTime;
+        entry.responseTime = newResponseTime;
+        entry.bodySize = bodySize;
+        entry.charset = charset;
+        entry.protocol = notModified.getProtocolVersion() != null ? notModified.getProtocolVersion().name() : protocol;
+        return entry;
+    }
+
+    /**
+     * The stored response as a call result, with an Age header as a cache must add (RFC 9111 section 5.1)
+     */
+    HttpCallResult toResult(ResponseBody body, long now, long durationMillis, String cacheStatus) {
+        Map<String, List<String>> resultHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        resultHeaders.putAll(headers);
+        resultHeaders.put("age", List.of(String.valueOf(currentAgeMillis(now) / 1000)));
+        return HttpCallResult.builder(statusCode)
+            .body(body)
+            .headers(resultHeaders)
+            .duration(durationMillis)
+            .protocolVersion(protocol != null ? HttpClient.Version.valueOf(protocol) : null)
+            .cacheStatus(cacheStatus)
+            .build();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getBodySize() {
+        return bodySize;
+    }
+
+    Charset getCharset() {
+        try {
+            return Charset.forName(charset);
+        } catch (RuntimeException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private Map<String, String> getDirectives() {
+        return parseCacheControl(headerValues(headers, "Cache-Control"));
+    }
+
+    private List<String> varyNames() {
+        return varyNamesOf(headers);
+    }
+
+    private long dateValue() {
+        Long date = parseDate(firstHeader(headers, "Date"));
+        return date != null ? date : responseTime;
+    }
+
+    private static List<String> varyNamesOf(Map<String, List<String>> headers) {
+        List<String> names = new ArrayList<>();
+        List<String> values = headerValues(headers, "Vary");
+        if (values != null) {
+            for (String value : values) {
+                for (String name : value.split(",")) {
+                    if (!name.isBlank()) {
+                        names.add(name.trim().toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parse Cache-Control directives into lower-case names and their values ("" when a directive has none)
+     */
+    static Map<String, String> parseCacheControl(List<String> values) {
+        Map<String, String> directives = new HashMap<>();
+        if (values == null) {
+            return directives;
+        }
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String trimmed = directive.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int equals = trimmed.indexOf('=');
+                String name = (equals >= 0 ? trimmed.substring(0, equals) : trimmed).trim().toLowerCase(Locale.ROOT);
+                String argument = equals >= 0 ? trimmed.substring(equals + 1).trim().replace("\"", "") : "";
+                directives.putIfAbsent(name, argument);
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Directives of a request's Cache-Control header; Pragma: no-cache counts as no-cache
+     */
+    static Map<String, String> requestDirectives(Map<String, String> requestHeaders) {
+        String cacheControl = headerValue(requestHeaders, "cache-control");
+        Map<String, String> directives = parseCacheControl(cacheControl != null ? List.of(cacheControl) : null);
+        String pragma = headerValue(requestHeaders, "pragma");
+        if (cacheControl == null && pragma != null && pragma.toLowerCase(Locale.ROOT).contains("no-cache")) {
+            directives.put("no-cache", "");
+        }
+        return directives;
+    }
+
+    static String headerValue(Map<String, String> headers, String name) {
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey() != null && header.getKey().equalsIgnoreCase(name)) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String findHeader(Map<String, List<String>> headers, String name) {
+        for (String key : headers.keySet()) {
+            if (key != null && key.equalsIgnoreCase(name)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> headerValues(Map<String, List<String>> headers, String name) {
+        String key = findHeader(headers, name);
+        return key != null ? headers.get(key) : null;
+    }
+
+    private static String firstHeader(Map<String, List<String>> headers, String name) {
+        List<String> values = headerValues(headers, name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private static Long seconds(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.overzealouspelican.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.net.spi.InetAddressResolver;
+import java.net.spi.InetAddressResolverProvider;
+import java.util.stream.Stream;
+
+/**
+ * Installs {@link DnsCache} as the JVM's host name resolver, so lookups made inside HttpClient are
+ * cached as well. Registered in META-INF/services/java.net.spi.InetAddressResolverProvider; the JVM
+ * loads it on the first host lookup. Cache misses and reverse lookups go to the built-in resolver.
+ */
+public class CachingResolverProvider extends InetAddressResolverProvider {
+
+    @Override
+    public InetAddressResolver get(Configuration configuration) {
+        InetAddressResolver builtin = configuration.builtinResolver();
+        DnsCache cache = DnsCache.getInstance();
+        cache.markInstalled();
+
+        return new InetAddressResolver() {
+            @Override
+            public Stream<InetAddress> lookupByName(String host, LookupPolicy lookupPolicy) throws UnknownHostException {
+                // The policy comes from JVM-wide properties, so it is the same for every lookup
+                return cache.lookup(host, () -> builtin.lookupByName(host, lookupPolicy).toList()).stream();
+            }
+
+            @Override
+            public String lookupByAddress(byte[] address) throws UnknownHostException {
+                return builtin.lookupByAddress(address);
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return "ProtoCaller DNS cache";
+    }
+}
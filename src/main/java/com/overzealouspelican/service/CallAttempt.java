@@ -0,0 +1,97 @@
+package com.overzealouspelican.service;
+
+/**
+ * One request sent on behalf of a call that was retried or hedged, kept on the call's result
+ */
+public class CallAttempt {
+
+    public static final String USED = "used";
+    public static final String RETRIED = "retried";
+    public static final String FAILED = "failed";
+    public static final String CANCELLED = "cancelled";
+
+    private final int number;
+    private final boolean hedge;
+    private final long startedAfterMillis;
+    private final long durationMillis;
+    private final int statusCode;
+    private final String errorMessage;
+    private final String outcome;
+    private final long delayAfterMillis;
+
+    /**
+     * @param number 1 for the first request sent for the call
+     * @param hedge whether this was a backup request sent while another was still in flight
+     * @param startedAfterMillis when the request was sent, relative to the call's first request
+     * @param durationMillis how long the request took
+     * @param statusCode the response status, or 0 if there was no response
+     * @param errorMessage why the request failed, or null if it got a response
+     * @param outcome one of USED, RETRIED, FAILED or CANCELLED
+     * @param delayAfterMillis for RETRIED attempts, the backoff before the next request
+     */
+    public CallAttempt(int number, boolean hedge, long startedAfterMillis, long durationMillis, int statusCode,
+                       String errorMessage, String outcome, long delayAfterMillis) {
+        this.number = number;
+        this.hedge = hedge;
+        this.startedAfterMillis = startedAfterMillis;
+        this.durationMillis = durationMillis;
+        this.statusCode = statusCode;
+        this.errorMessage = errorMessage;
+        this.outcome = outcome;
+        this.delayAfterMillis = delayAfterMillis;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public boolean isHedge() {
+        return hedge;
+    }
+
+    public long getStartedAfterMillis() {
+        return startedAfterMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public long getDelayAfterMillis() {
+        return delayAfterMillis;
+    }
+
+    /**
+     * One line for the response view, e.g. "#2 hedge at +180 ms: 200 in 42 ms, used"
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('#').append(number);
+        if (hedge) {
+            sb.append(" hedge");
+        }
+        sb.append(" at +").append(startedAfterMillis).append(" ms: ");
+        if (CANCELLED.equals(outcome)) {
+            sb.append("cancelled after ").append(durationMillis).append(" ms");
+            return sb.toString();
+        }
+        sb.append(statusCode > 0 ? String.valueOf(statusCode) : errorMessage);
+        sb.append(" in ").append(durationMillis).append(" ms, ").append(outcome);
+        if (RETRIED.equals(outcome)) {
+            sb.append(" after ").append(delayAfterMillis).append(" ms");
+        }
+        return sb.toString();
+    }
+}
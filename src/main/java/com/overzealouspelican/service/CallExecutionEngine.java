@@ -0,0 +1,332 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApplicationState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared execution engine for API calls, backed by virtual threads.
+ * Follows the Singleton pattern so interactive calls, load runs and batch runs share one
+ * in-flight limit. Each task runs on its own named virtual thread, so a call blocked in
+ * HttpClient.send costs no OS thread, and cancelling a task interrupts the exchange.
+ * Runs register themselves, so stopping them from the toolbar also stops them from starting more calls.
+ * A run may also make its calls without blocking and bound their concurrency itself; it reports them
+ * through its registration so they count as active.
+ */
+public class CallExecutionEngine {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger("protocaller.maxInFlightCalls", 256);
+    private static final long STATS_PUBLISH_INTERVAL_MS = 250;
+
+    private static CallExecutionEngine instance;
+
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+    private final Map<Long, CallTask<?>> tasks;
+    private final Map<Long, RunRegistration> runs;
+    private final AtomicLong taskIds;
+    private final AtomicInteger queued;
+    private final AtomicInteger active;
+    private final AtomicBoolean statsDirty;
+
+    private CallExecutionEngine(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight, true);
+        this.tasks = new ConcurrentHashMap<>();
+        this.runs = new ConcurrentHashMap<>();
+        this.taskIds = new AtomicLong();
+        this.queued = new AtomicInteger();
+        this.active = new AtomicInteger();
+        this.statsDirty = new AtomicBoolean();
+        startStatsPublisher();
+    }
+
+    /**
+     * Get the singleton instance of CallExecutionEngine
+     */
+    public static synchronized CallExecutionEngine getInstance() {
+        if (instance == null) {
+            instance = new CallExecutionEngine(DEFAULT_MAX_IN_FLIGHT);
+        }
+        return instance;
+    }
+
+    /**
+     * Submit a named task. It waits for an in-flight permit on its own virtual thread,
+     * so submitting never blocks the caller.
+     */
+    public <T> CallTask<T> submit(String name, Callable<T> work) {
+        long id = taskIds.incrementAndGet();
+        CallTask<T> task = new CallTask<>(id, name, work);
+        tasks.put(id, task);
+        queued.incrementAndGet();
+        statsDirty.set(true);
+
+        Thread.ofVirtual()
+            .name("call-" + id + " " + name)
+            .start(task.future);
+        return task;
+    }
+
+    /**
+     * Register a run that submits its tasks under one name, so that cancelling that name or everything
+     * also stops the run itself. Close the registration when the run ends.
+     */
+    public RunRegistration registerRun(String name, Runnable cancel) {
+        RunRegistration registration = new RunRegistration(taskIds.incrementAndGet(), name, cancel);
+        runs.put(registration.id, registration);
+        statsDirty.set(true);
+        return registration;
+    }
+
+    /**
+     * Cancel every queued or running task with the given name, and the runs registered under it
+     *
+     * @return the number of tasks cancelled
+     */
+    public int cancel(String name) {
+        List<CallTask<?>> named = new ArrayList<>();
+        for (CallTask<?> task : tasks.values()) {
+            if (task.getName().equals(name)) {
+                named.add(task);
+            }
+        }
+        for (RunRegistration run : new ArrayList<>(runs.values())) {
+            if (run.name.equals(name)) {
+                run.cancel.run();
+            }
+        }
+        return cancelTasks(named);
+    }
+
+    /**
+     * Cancel every registered run and every queued or running task
+     *
+     * @return the number of tasks cancelled
+     */
+    public int cancelAll() {
+        List<CallTask<?>> snapshot = new ArrayList<>(tasks.values());
+        for (RunRegistration run : new ArrayList<>(runs.values())) {
+            run.cancel.run();
+        }
+        return cancelTasks(snapshot);
+    }
+
+    /**
+     * Cancel the given tasks, counting those a run already cancelled while stopping itself
+     */
+    private static int cancelTasks(List<CallTask<?>> snapshot) {
+        int cancelled = 0;
+        for (CallTask<?> task : snapshot) {
+            if (task.cancel() || task.isCancelled()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    public List<CallTask<?>> getPendingTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * Whether nothing is queued, running or registered as a run, i.e. there is nothing to stop
+     */
+    public boolean isIdle() {
+        return tasks.isEmpty() && runs.isEmpty();
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * One-line summary suitable for the status bar
+     */
+    public String summary() {
+        return "Calls: " + active.get() + " active · " + queued.get() + " queued";
+    }
+
+    /**
+     * Publish queue depth and active counts periodically rather than per task,
+     * so a load run does not flood the event dispatch thread
+     */
+    private void startStatsPublisher() {
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "call-engine-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(() -> {
+            if (statsDirty.getAndSet(false)) {
+                ApplicationState.getInstance().setSummary(ApplicationState.SUMMARY_EXECUTION, summary());
+            }
+        }, STATS_PUBLISH_INTERVAL_MS, STATS_PUBLISH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A run registered with {@link #registerRun}; closing it unregisters the run
+     */
+    public final class RunRegistration implements AutoCloseable {
+        private final long id;
+        private final String name;
+        private final Runnable cancel;
+
+        private RunRegistration(long id, String name, Runnable cancel) {
+            this.id = id;
+            this.name = name;
+            this.cancel = cancel;
+        }
+
+        /**
+         * Count a call the run made without a task as active until it completes.
+         * Such a call holds no thread and no in-flight permit; the run bounds its own concurrency.
+         */
+        public void track(CompletableFuture<?> call) {
+            active.incrementAndGet();
+            statsDirty.set(true);
+            call.whenComplete((result, error) -> {
+                active.decrementAndGet();
+                statsDirty.set(true);
+            });
+        }
+
+        @Override
+        public void close() {
+            runs.remove(id);
+            statsDirty.set(true);
+        }
+    }
+
+    /**
+     * Handle for a submitted task
+     */
+    public final class CallTask<T> {
+        private final long id;
+        private final String name;
+        private final AtomicBoolean started;
+        private final List<Runnable> doneActions;
+        private final FutureTask<T> future;
+
+        private CallTask(long id, String name, Callable<T> work) {
+            this.id = id;
+            this.name = name;
+            this.started = new AtomicBoolean();
+            this.doneActions = new CopyOnWriteArrayList<>();
+            this.future = new FutureTask<>(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return null; // Cancelled before it started; cancel() already left the queue
+                }
+                boolean acquired = false;
+                try {
+                    inFlightPermits.acquire();
+                    acquired = true;
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    statsDirty.set(true);
+                    return work.call();
+                } finally {
+                    if (acquired) {
+                        active.decrementAndGet();
+                        inFlightPermits.release();
+                    } else {
+                        queued.decrementAndGet();
+                    }
+                    tasks.remove(id);
+                    statsDirty.set(true);
+                }
+            }) {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    boolean cancelled = super.cancel(mayInterruptIfRunning);
+                    if (cancelled && started.compareAndSet(false, true)) {
+                        // The body will never run, so release its queue slot here
+                        queued.decrementAndGet();
+                        tasks.remove(id);
+                        statsDirty.set(true);
+                    }
+                    return cancelled;
+                }
+
+                @Override
+                protected void done() {
+                    for (Runnable action : doneActions) {
+                        runOnce(action);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Run an action once the task has finished or been cancelled, including a task cancelled before
+         * it started. It runs on the task's thread or the cancelling one, or at once if the task is done.
+         */
+        public void whenDone(Runnable action) {
+            doneActions.add(action);
+            if (future.isDone()) {
+                runOnce(action);
+            }
+        }
+
+        private void runOnce(Runnable action) {
+            if (doneActions.remove(action)) {
+                action.run();
+            }
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Cancel the task, interrupting its thread if it is already running
+         */
+        public boolean cancel() {
+            return future.cancel(true);
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        /**
+         * Wait for the task's result
+         *
+         * @throws CancellationException if the task was cancelled
+         */
+        public T get() throws Exception {
+            return future.get();
+        }
+    }
+}
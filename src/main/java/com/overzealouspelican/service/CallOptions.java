@@ -0,0 +1,63 @@
+package com.overzealouspelican.service;
+
+/**
+ * How {@link ApiCallService} runs one call: the flow it belongs to, the deadline it shares with the
+ * rest of its run, and a listener for streamed responses.
+ * Immutable; each {@code with...} method returns a copy, so new options do not need new service overloads.
+ */
+public final class CallOptions {
+
+    /** An interactive call: its own flow, no deadline and no stream listener */
+    public static final CallOptions DEFAULT = new CallOptions(RateLimiter.INTERACTIVE, null, null);
+
+    private final String flow;
+    private final Deadline deadline;
+    private final StreamListener streamListener;
+
+    private CallOptions(String flow, Deadline deadline, StreamListener streamListener) {
+        this.flow = flow;
+        this.deadline = deadline;
+        this.streamListener = streamListener;
+    }
+
+    /**
+     * Copy of these options running the call as part of a flow of calls, such as one collection run or load run.
+     * Rate-limited hosts admit waiting calls from different flows in turn.
+     */
+    public CallOptions withFlow(String flow) {
+        return new CallOptions(flow != null ? flow : RateLimiter.INTERACTIVE, deadline, streamListener);
+    }
+
+    /**
+     * Copy of these options giving the call at most what is left of a run's deadline (null for no budget)
+     */
+    public CallOptions withDeadline(Deadline deadline) {
+        return new CallOptions(flow, deadline, streamListener);
+    }
+
+    /**
+     * Copy of these options passing the events of a streamed response to a listener as they arrive
+     * (null to only collect the body)
+     */
+    public CallOptions withStreamListener(StreamListener streamListener) {
+        return new CallOptions(flow, deadline, streamListener);
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    /**
+     * The run's deadline, or null if the call has no budget beyond its own timeouts
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * The listener for streamed responses, or null
+     */
+    public StreamListener getStreamListener() {
+        return streamListener;
+    }
+}
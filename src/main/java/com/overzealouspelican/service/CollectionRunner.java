@@ -0,0 +1,401 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApiCallGroup;
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+/**
+ * Service for running every call in a group, one after another or several at a time.
+ * Follows the Single Responsibility Principle - only drives execution of a collection and aggregates results.
+ * Calls are started through {@link AsyncCalls#forEach}, so a call waiting for its response holds no thread;
+ * a sequential run is simply a run with a concurrency of one, so calls start in group order and each
+ * waits for the previous one to finish.
+ * A parallel run that may use HTTP/2 lets the first call finish before starting the rest, so calls to
+ * the same host multiplex over the connection it opened instead of each negotiating a new one.
+ */
+public class CollectionRunner {
+
+    private final ApiCallService apiCallService;
+    private final CallExecutionEngine executionEngine;
+    private volatile CompletableFuture<Void> currentBatch;
+    private volatile boolean cancelled;
+
+    public CollectionRunner(ApiCallService apiCallService) {
+        this.apiCallService = apiCallService;
+        this.executionEngine = CallExecutionEngine.getInstance();
+    }
+
+    /**
+     * Listener notified from the threads completing calls as each call completes
+     */
+    public interface ResultListener {
+        void onResult(CallRunResult result);
+    }
+
+    /**
+     * Run every call in the group and block until all have finished or the run is cancelled.
+     * Calls that no longer exist are reported as failures rather than silently skipped.
+     * With a deadline, every call gets only what is left of it and calls still to run once it is spent
+     * fail without being sent.
+     *
+     * @throws IllegalArgumentException if the environment's protocaller.deadline is not a valid duration
+     */
+    public CollectionRunResult run(ApiCallGroup group, Map<String, String> selectedEnvironment,
+                                   CollectionRunConfig config, ResultListener listener) throws InterruptedException {
+        cancelled = false;
+        Map<String, String> environmentVariables = config.applyGroupSettings(selectedEnvironment);
+        Deadline deadline = Deadline.fromEnvironment(environmentVariables);
+
+        List<String> names = group.getApiCallNames();
+        CallRunResult[] results = new CallRunResult[names.size()];
+        ApiCall[] calls = new ApiCall[names.size()];
+        long[] startNanos = new long[names.size()];
+        CallOptions options = CallOptions.DEFAULT.withFlow("collection " + group.getName()).withDeadline(deadline);
+        boolean primeConnection = config.getConcurrency() > 1 && names.size() > 1
+            && mayUseHttp2(names.get(0), environmentVariables);
+
+        long wallStart = System.nanoTime();
+        CallExecutionEngine.RunRegistration registration = executionEngine.registerRun(options.getFlow(), this::cancel);
+        try {
+            int first = primeConnection ? 1 : 0;
+            IntFunction<CompletableFuture<HttpCallResult>> start = index -> {
+                String name = names.get(index);
+                // Compile before timing so the call time is the exchange alone
+                CompiledApiCall compiledCall = apiCallService.loadCompiledApiCall(name);
+                if (compiledCall == null) {
+                    return CompletableFuture.completedFuture(
+                        HttpCallResult.failed(new IllegalStateException("Saved call '" + name + "' not found")));
+                }
+                calls[index] = compiledCall.getSource();
+                startNanos[index] = System.nanoTime();
+                CompletableFuture<HttpCallResult> call = apiCallService.executeApiCallAsync(compiledCall,
+                    environmentVariables, options);
+                registration.track(call);
+                return call;
+            };
+            AsyncCalls.ResultHandler handler = (index, result) -> {
+                long elapsed = calls[index] != null ? System.nanoTime() - startNanos[index] : 0;
+                results[index] = new CallRunResult(index, names.get(index), calls[index], result, elapsed);
+                if (listener != null) {
+                    listener.onResult(results[index]);
+                }
+                return !cancelled;
+            };
+
+            if (primeConnection) {
+                await(AsyncCalls.forEach(1, 1, start, handler));
+            }
+            if (!cancelled) {
+                await(AsyncCalls.forEach(names.size() - first, config.getConcurrency(),
+                    i -> start.apply(i + first), (i, result) -> handler.handle(i + first, result)));
+            }
+        } finally {
+            registration.close();
+            currentBatch = null;
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+
+        List<CallRunResult> finished = new ArrayList<>();
+        for (CallRunResult result : results) {
+            if (result != null) {
+                finished.add(result);
+            }
+        }
+        return new CollectionRunResult(group.getName(), finished, names.size(), wallNanos, cancelled);
+    }
+
+    /**
+     * Request that a running collection stop starting calls and abort the ones in flight
+     */
+    public void cancel() {
+        cancelled = true;
+        CompletableFuture<Void> batch = currentBatch;
+        if (batch != null) {
+            batch.cancel(true);
+        }
+    }
+
+    /**
+     * Wait for a batch of calls to finish. An interrupt cancels the batch, and with it the calls in flight.
+     */
+    private void await(CompletableFuture<Void> batch) throws InterruptedException {
+        currentBatch = batch;
+        if (cancelled) {
+            batch.cancel(true);
+        }
+        try {
+            batch.get();
+        } catch (CancellationException e) {
+            // Stopped through cancel(); the calls that finished are already recorded
+        } catch (InterruptedException e) {
+            batch.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // A batch only completes normally or by being cancelled
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private boolean mayUseHttp2(String name, Map<String, String> environmentVariables) {
+        CompiledApiCall compiledCall = apiCallService.loadCompiledApiCall(name);
+        return compiledCall != null
+            && EnvironmentSettings.mayUseHttp2(compiledCall.getHttpVersion(), environmentVariables);
+    }
+
+    /**
+     * Configuration for a collection run
+     */
+    public static class CollectionRunConfig {
+        private final boolean parallel;
+        private final int concurrency;
+        private final Integer retries;
+        private final String hedge;
+        private final String timeout;
+        private final String deadline;
+
+        private CollectionRunConfig(boolean parallel, int concurrency) {
+            this(parallel, concurrency, null, null, null, null);
+        }
+
+        private CollectionRunConfig(boolean parallel, int concurrency, Integer retries, String hedge,
+                                    String timeout, String deadline) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be at least 1");
+            }
+            this.parallel = parallel;
+            this.concurrency = concurrency;
+            this.retries = retries;
+            this.hedge = hedge;
+            this.timeout = timeout;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Run calls one at a time, in group order
+         */
+        public static CollectionRunConfig sequential() {
+            return new CollectionRunConfig(false, 1);
+        }
+
+        /**
+         * Run up to the given number of calls at once
+         */
+        public static CollectionRunConfig parallel(int concurrency) {
+            return new CollectionRunConfig(true, concurrency);
+        }
+
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Retry and hedge every call in the group that has no policy of its own, overriding the environment.
+         * Null leaves that setting to the environment.
+         */
+        public CollectionRunConfig withRetryPolicy(Integer retries, String hedge) {
+            return new CollectionRunConfig(parallel, concurrency, retries, hedge, timeout, deadline);
+        }
+
+        /**
+         * Give every call in the group that has no timeout of its own this total timeout, and the run as a
+         * whole this deadline, both overriding the environment. Values are in the protocaller.timeout format;
+         * null leaves that setting to the environment.
+         *
+         * @throws IllegalArgumentException if a value is not a valid duration
+         */
+        public CollectionRunConfig withTimeouts(String timeout, String deadline) {
+            EnvironmentSettings.parseTimeout(EnvironmentSettings.TIMEOUT, timeout);
+            EnvironmentSettings.parseTimeout(EnvironmentSettings.DEADLINE, deadline);
+            return new CollectionRunConfig(parallel, concurrency, retries, hedge, timeout, deadline);
+        }
+
+        public Integer getRetries() {
+            return retries;
+        }
+
+        public String getHedge() {
+            return hedge;
+        }
+
+        public String getTimeout() {
+            return timeout;
+        }
+
+        public String getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * The environment with the group's settings in place of its own, so a call's setting still wins
+         */
+        Map<String, String> applyGroupSettings(Map<String, String> environmentVariables) {
+            if (retries == null && hedge == null && timeout == null && deadline == null) {
+                return environmentVariables;
+            }
+            Map<String, String> variables = new java.util.HashMap<>(environmentVariables);
+            if (retries != null) {
+                variables.put(EnvironmentSettings.RETRIES, String.valueOf(retries));
+            }
+            if (hedge != null) {
+                variables.put(EnvironmentSettings.HEDGE, hedge);
+            }
+            if (timeout != null) {
+                variables.put(EnvironmentSettings.TIMEOUT, timeout);
+            }
+            if (deadline != null) {
+                variables.put(EnvironmentSettings.DEADLINE, deadline);
+            }
+            return variables;
+        }
+    }
+
+    /**
+     * Outcome of one call within a collection run
+     */
+    public static class CallRunResult {
+        private final int index;
+        private final String name;
+        private final ApiCall apiCall;
+        private final HttpCallResult result;
+        private final long elapsedNanos;
+
+        public CallRunResult(int index, String name, ApiCall apiCall, HttpCallResult result, long elapsedNanos) {
+            this.index = index;
+            this.name = name;
+            this.apiCall = apiCall;
+            this.result = result;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Position of the call within the group
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The saved call that was run, or null if it no longer exists
+         */
+        public ApiCall getApiCall() {
+            return apiCall;
+        }
+
+        public HttpCallResult getResult() {
+            return result;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public boolean isSuccess() {
+            return result.isSuccess();
+        }
+    }
+
+    /**
+     * Aggregated outcome of a collection run
+     */
+    public static class CollectionRunResult {
+        private final String groupName;
+        private final List<CallRunResult> results;
+        private final int total;
+        private final long wallNanos;
+        private final boolean cancelled;
+
+        public CollectionRunResult(String groupName, List<CallRunResult> results, int total,
+                                   long wallNanos, boolean cancelled) {
+            this.groupName = groupName;
+            this.results = Collections.unmodifiableList(new ArrayList<>(results));
+            this.total = total;
+            this.wallNanos = wallNanos;
+            this.cancelled = cancelled;
+        }
+
+        public List<CallRunResult> getResults() {
+            return results;
+        }
+
+        public int getPassed() {
+            int passed = 0;
+            for (CallRunResult result : results) {
+                if (result.isSuccess()) {
+                    passed++;
+                }
+            }
+            return passed;
+        }
+
+        public int getFailed() {
+            return results.size() - getPassed() - getCancelled();
+        }
+
+        /**
+         * Calls that were stopped while running
+         */
+        public int getCancelled() {
+            int cancelledCalls = 0;
+            for (CallRunResult result : results) {
+                if (result.getResult().isCancelled()) {
+                    cancelledCalls++;
+                }
+            }
+            return cancelledCalls;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Sum of the individual call times, i.e. roughly what a one-by-one run would have taken
+         */
+        public long getSumOfCallNanos() {
+            long sum = 0;
+            for (CallRunResult result : results) {
+                sum += result.getElapsedNanos();
+            }
+            return sum;
+        }
+
+        public String formatSummary() {
+            double wallSeconds = wallNanos / 1_000_000_000.0;
+            double sumSeconds = getSumOfCallNanos() / 1_000_000_000.0;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%s: %d passed · %d failed", groupName, getPassed(), getFailed()));
+            if (getCancelled() > 0) {
+                sb.append(String.format(" · %d cancelled", getCancelled()));
+            }
+            if (cancelled || results.size() < total) {
+                sb.append(String.format(" · %d not run", total - results.size()));
+            }
+            sb.append(String.format(" · wall %.2f s · sum of calls %.2f s", wallSeconds, sumSeconds));
+            if (wallSeconds > 0) {
+                sb.append(String.format(" (%.1fx)", sumSeconds / wallSeconds));
+            }
+            return sb.toString();
+        }
+    }
+}
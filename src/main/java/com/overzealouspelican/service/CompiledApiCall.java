@@ -0,0 +1,231 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An ApiCall whose URL, header and body templates have been compiled once.
+ * Load runs and collection runs compile each call up front and then only render it per iteration,
+ * so repeated executions do no template parsing at all. Raw and JSON bodies are also kept encoded,
+ * so sending the same body again reuses its bytes instead of rendering and serializing it again.
+ */
+public final class CompiledApiCall {
+
+    private static final Gson GSON = new Gson();
+
+    /** A call usually meets only a few environments; the encoded bodies are simply dropped beyond this */
+    private static final int MAX_ENCODED_BODIES = 8;
+
+    private final ApiCall source;
+    private final CompiledTemplate url;
+    private final CompiledTemplate[] headerKeys;
+    private final CompiledTemplate[] headerValues;
+    private final CompiledTemplate[] bodyKeys;
+    private final CompiledTemplate[] bodyValues;
+    private final CompiledTemplate rawBody;
+    private final CompiledTemplate bodyFile;
+    // Variables the body of the call's mode depends on, and its encoded form by their values
+    private final String[] bodyVariables;
+    private final Map<List<String>, byte[]> encodedBodies;
+
+    private CompiledApiCall(ApiCall source) {
+        this.source = new ApiCall(source);
+        this.url = CompiledTemplate.parse(source.getUrl() != null ? source.getUrl() : "");
+
+        Map<String, String> headers = this.source.getHeaders();
+        this.headerKeys = new CompiledTemplate[headers.size()];
+        this.headerValues = new CompiledTemplate[headers.size()];
+        compileEntries(headers, headerKeys, headerValues);
+
+        Map<String, String> body = this.source.getBody();
+        this.bodyKeys = new CompiledTemplate[body.size()];
+        this.bodyValues = new CompiledTemplate[body.size()];
+        compileEntries(body, bodyKeys, bodyValues);
+
+        this.rawBody = CompiledTemplate.parse(source.getRawBody() != null ? source.getRawBody() : "");
+        this.bodyFile = CompiledTemplate.parse(source.getBodyFile() != null ? source.getBodyFile() : "");
+
+        Set<String> variables = new LinkedHashSet<>();
+        if (ApiCall.BODY_RAW.equals(this.source.getBodyMode())) {
+            variables.addAll(rawBody.getVariableNames());
+        } else {
+            for (CompiledTemplate[] templates : new CompiledTemplate[][]{bodyKeys, bodyValues}) {
+                for (CompiledTemplate template : templates) {
+                    if (template != null) {
+                        variables.addAll(template.getVariableNames());
+                    }
+                }
+            }
+        }
+        this.bodyVariables = variables.toArray(new String[0]);
+        this.encodedBodies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Compile a call. The call is copied, so later edits to the original do not affect the compiled form.
+     */
+    public static CompiledApiCall compile(ApiCall apiCall) {
+        return new CompiledApiCall(apiCall);
+    }
+
+    private static void compileEntries(Map<String, String> entries, CompiledTemplate[] keys, CompiledTemplate[] values) {
+        int i = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            keys[i] = entry.getKey() != null ? CompiledTemplate.parse(entry.getKey()) : null;
+            values[i] = entry.getValue() != null ? CompiledTemplate.parse(entry.getValue()) : null;
+            i++;
+        }
+    }
+
+    /**
+     * The call as it was compiled, before substitution
+     */
+    public ApiCall getSource() {
+        return new ApiCall(source);
+    }
+
+    public String getName() {
+        return source.getName();
+    }
+
+    public String getHttpMethod() {
+        return source.getHttpMethod();
+    }
+
+    public String getHttpVersion() {
+        return source.getHttpVersion();
+    }
+
+    public Boolean getCompression() {
+        return source.getCompression();
+    }
+
+    public String getBodyMode() {
+        return source.getBodyMode();
+    }
+
+    public Integer getRetries() {
+        return source.getRetries();
+    }
+
+    public String getHedge() {
+        return source.getHedge();
+    }
+
+    public String getConnectTimeout() {
+        return source.getConnectTimeout();
+    }
+
+    public String getReadTimeout() {
+        return source.getReadTimeout();
+    }
+
+    public String getTimeout() {
+        return source.getTimeout();
+    }
+
+    public Boolean getStream() {
+        return source.getStream();
+    }
+
+    /**
+     * Render the URL, adding the names of any variables without a value to {@code unresolved}
+     */
+    public String renderUrl(Map<String, String> variables, List<String> unresolved) {
+        return url.render(variables, unresolved);
+    }
+
+    public Map<String, String> renderHeaders(Map<String, String> variables) {
+        return renderEntries(headerKeys, headerValues, variables);
+    }
+
+    public Map<String, String> renderBody(Map<String, String> variables) {
+        return renderEntries(bodyKeys, bodyValues, variables);
+    }
+
+    public String renderRawBody(Map<String, String> variables) {
+        return rawBody.render(variables);
+    }
+
+    public String renderBodyFile(Map<String, String> variables) {
+        return bodyFile.render(variables);
+    }
+
+    /**
+     * Whether the body is sent as bytes from {@link #encodeBody}, i.e. the call uses the raw or JSON body mode
+     */
+    public boolean hasEncodedBody() {
+        return ApiCall.BODY_RAW.equals(source.getBodyMode()) || ApiCall.BODY_JSON.equals(source.getBodyMode());
+    }
+
+    /**
+     * The raw or JSON body rendered with the given variables and encoded as UTF-8.
+     * It is built once for each combination of values of the variables the body uses, so the returned
+     * array is shared and must not be modified.
+     *
+     * @throws IllegalStateException if the call uses another body mode
+     */
+    public byte[] encodeBody(Map<String, String> variables) {
+        if (!hasEncodedBody()) {
+            throw new IllegalStateException("A " + source.getBodyMode() + " body is not sent from an encoded buffer");
+        }
+        String[] values = new String[bodyVariables.length];
+        for (int i = 0; i < bodyVariables.length; i++) {
+            values[i] = variables != null ? variables.get(bodyVariables[i]) : null;
+        }
+        List<String> key = Arrays.asList(values);
+        byte[] encoded = encodedBodies.get(key);
+        if (encoded == null) {
+            if (encodedBodies.size() >= MAX_ENCODED_BODIES) {
+                encodedBodies.clear();
+            }
+            encoded = encodedBodies.computeIfAbsent(key, k -> encode(variables));
+        }
+        return encoded;
+    }
+
+    private byte[] encode(Map<String, String> variables) {
+        if (ApiCall.BODY_RAW.equals(source.getBodyMode())) {
+            return rawBody.render(variables).getBytes(StandardCharsets.UTF_8);
+        }
+        Map<String, String> fields = renderBody(variables);
+        return fields.isEmpty() ? new byte[0] : GSON.toJson(fields).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> renderEntries(CompiledTemplate[] keys, CompiledTemplate[] values,
+                                                     Map<String, String> variables) {
+        Map<String, String> rendered = new HashMap<>(Math.max(4, keys.length * 2));
+        for (int i = 0; i < keys.length; i++) {
+            rendered.put(keys[i] != null ? keys[i].render(variables) : null,
+                values[i] != null ? values[i].render(variables) : null);
+        }
+        return rendered;
+    }
+
+    /**
+     * Names of all variables referenced by the URL, headers or body
+     */
+    public List<String> getVariableNames() {
+        List<String> names = new ArrayList<>(url.getVariableNames());
+        names.addAll(rawBody.getVariableNames());
+        names.addAll(bodyFile.getVariableNames());
+        for (CompiledTemplate[] templates : new CompiledTemplate[][]{headerKeys, headerValues, bodyKeys, bodyValues}) {
+            for (CompiledTemplate template : templates) {
+                if (template != null) {
+                    names.addAll(template.getVariableNames());
+                }
+            }
+        }
+        return names;
+    }
+}
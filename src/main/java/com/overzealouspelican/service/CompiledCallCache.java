@@ -0,0 +1,72 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApplicationState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compiled forms of saved calls, so running a saved call again skips compiling its templates and reuses
+ * the bodies it already encoded for the environment.
+ * Follows the Singleton pattern so interactive calls, collection runs and load runs share one cache.
+ * Entries are keyed by call name and hold the call as it was saved. A call's entry is dropped when it is
+ * saved or deleted, and the cache is cleared when the saved calls file changes outside the application.
+ * Calls that may differ from their saved form, such as a form being edited, are compiled directly instead.
+ */
+public class CompiledCallCache {
+
+    private static CompiledCallCache instance;
+
+    private final Map<String, CompiledApiCall> compiledByName;
+
+    private CompiledCallCache() {
+        this.compiledByName = new ConcurrentHashMap<>();
+        ApplicationState.getInstance().addPropertyChangeListener(ApplicationState.PROPERTY_STORED_DATA_CHANGED,
+            evt -> {
+                if (ApiCallService.API_CALLS_FILE.equals(evt.getNewValue())) {
+                    clear();
+                }
+            });
+    }
+
+    /**
+     * Get the singleton instance of CompiledCallCache
+     */
+    public static synchronized CompiledCallCache getInstance() {
+        if (instance == null) {
+            instance = new CompiledCallCache();
+        }
+        return instance;
+    }
+
+    /**
+     * The compiled form of a saved call, loading and compiling it on first use
+     *
+     * @param load loads the saved call by name, returning null if there is none
+     * @return the compiled call, or null if no call with that name is saved
+     */
+    public CompiledApiCall get(String name, Function<String, ApiCall> load) {
+        return compiledByName.computeIfAbsent(name, key -> {
+            ApiCall apiCall = load.apply(key);
+            return apiCall != null ? CompiledApiCall.compile(apiCall) : null;
+        });
+    }
+
+    /**
+     * Drop the compiled form of a saved or deleted call
+     */
+    public void invalidate(String name) {
+        if (name != null) {
+            compiledByName.remove(name);
+        }
+    }
+
+    /**
+     * Drop every compiled call
+     */
+    public void clear() {
+        compiledByName.clear();
+    }
+}
@@ -0,0 +1,110 @@
+package com.overzealouspelican.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {{variable}} template parsed once into alternating literal and variable segments.
+ * Rendering is a single pass over the segments into a pre-sized StringBuilder, with no regex
+ * matching at render time; a template without variables renders to its original string.
+ * Parsing follows the {@code \{\{([^}]+)\}\}} syntax the application has always used.
+ */
+public final class CompiledTemplate {
+
+    private final String source;
+    /** literals.length == variables.length + 1; literal i precedes variable i */
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String source, String[] literals, String[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a template. Nothing is cached here: callers that render the same template repeatedly keep the
+     * compiled form, as {@link CompiledApiCall} does for a call's templates.
+     */
+    public static CompiledTemplate parse(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+
+        while (i < template.length() - 1) {
+            if (template.charAt(i) == '{' && template.charAt(i + 1) == '{') {
+                int nameStart = i + 2;
+                int close = template.indexOf('}', nameStart);
+                if (close > nameStart && close + 1 < template.length() && template.charAt(close + 1) == '}') {
+                    literals.add(template.substring(literalStart, i));
+                    variables.add(template.substring(nameStart, close));
+                    i = close + 2;
+                    literalStart = i;
+                    continue;
+                }
+            }
+            i++;
+        }
+        literals.add(template.substring(literalStart));
+
+        return new CompiledTemplate(template, literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    /**
+     * Render with the given variables. Placeholders without a value are kept as-is.
+     */
+    public String render(Map<String, String> values) {
+        return render(values, null);
+    }
+
+    /**
+     * Render with the given variables, adding the name of each variable without a value to {@code unresolved}
+     */
+    public String render(Map<String, String> values, List<String> unresolved) {
+        if (variables.length == 0) {
+            return source;
+        }
+
+        StringBuilder result = new StringBuilder(literalLength + variables.length * 16);
+        for (int i = 0; i < variables.length; i++) {
+            result.append(literals[i]);
+            String value = values != null ? values.get(variables[i]) : null;
+            if (value != null) {
+                result.append(value);
+            } else {
+                result.append("{{").append(variables[i]).append("}}");
+                if (unresolved != null) {
+                    unresolved.add(variables[i]);
+                }
+            }
+        }
+        result.append(literals[variables.length]);
+        return result.toString();
+    }
+
+    public boolean hasVariables() {
+        return variables.length > 0;
+    }
+
+    /**
+     * Names of the variables in the template, in order of appearance
+     */
+    public List<String> getVariableNames() {
+        List<String> names = new ArrayList<>(variables.length);
+        Collections.addAll(names, variables);
+        return names;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
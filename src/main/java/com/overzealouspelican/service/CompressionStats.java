@@ -0,0 +1,60 @@
+package com.overzealouspelican.service;
+
+/**
+ * Sizes of a compressed response body: what came over the wire and what it decoded to
+ */
+public final class CompressionStats {
+
+    private final String encoding;
+    private final long wireBytes;
+    private final long decodedBytes;
+
+    public CompressionStats(String encoding, long wireBytes, long decodedBytes) {
+        this.encoding = encoding;
+        this.wireBytes = wireBytes;
+        this.decodedBytes = decodedBytes;
+    }
+
+    /**
+     * The Content-Encoding that was decoded, e.g. "gzip"
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    /**
+     * Decoded size divided by wire size, e.g. 8.0 when compression saved seven eighths of the transfer
+     */
+    public double getRatio() {
+        return wireBytes == 0 ? 1.0 : (double) decodedBytes / wireBytes;
+    }
+
+    /**
+     * e.g. "gzip, 12.3 KB on the wire, 98.4 KB decoded (8.0x)"
+     */
+    public String format() {
+        return String.format("%s, %s on the wire, %s decoded (%.1fx)",
+            encoding, formatBytes(wireBytes), formatBytes(decodedBytes), getRatio());
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+        }
+        return String.format("%.1f GB", bytes / (1024.0 * 1024.0 * 1024.0));
+    }
+}
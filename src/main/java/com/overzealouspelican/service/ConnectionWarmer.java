@@ -0,0 +1,235 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.model.Environment;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens connections to an environment's origins as soon as it is selected, when the environment sets
+ * protocaller.warmConnections. The origins are those of the saved calls' URLs rendered with the
+ * environment, so the first call after a switch finds a pooled connection and skips TCP and TLS setup.
+ * Follows the Singleton pattern so there is one set of warm origins and one keep-warm timer.
+ * For a while after the switch, origins that go idle are warmed again before the client's keep-alive
+ * timeout closes their connections.
+ */
+public class ConnectionWarmer {
+
+    /** How long after a switch idle origins are kept warm */
+    private static final long KEEP_WARM_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private static ConnectionWarmer instance;
+
+    private final ApplicationState appState;
+    private final EnvironmentService environmentService;
+    private final ApiCallPersistenceService apiCallPersistenceService;
+    private final HttpRequestExecutor requestExecutor;
+    private final ScheduledExecutorService scheduler;
+    /** Incremented on every switch, so a slow warm-up for an earlier environment does not keep its origins warm */
+    private final AtomicLong generation;
+    private volatile WarmUpPlan warmPlan;
+    private volatile long keepWarmUntil;
+    private ScheduledFuture<?> keepWarmTask;
+
+    private ConnectionWarmer() {
+        this.appState = ApplicationState.getInstance();
+        this.environmentService = new EnvironmentService();
+        this.apiCallPersistenceService = new ApiCallPersistenceService();
+        this.requestExecutor = new HttpRequestExecutor();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.generation = new AtomicLong();
+        this.warmPlan = WarmUpPlan.NONE;
+    }
+
+    /**
+     * Get the singleton instance of ConnectionWarmer
+     */
+    public static synchronized ConnectionWarmer getInstance() {
+        if (instance == null) {
+            instance = new ConnectionWarmer();
+        }
+        return instance;
+    }
+
+    /**
+     * Start warming connections whenever the selected environment changes
+     */
+    public void install() {
+        appState.addPropertyChangeListener(ApplicationState.PROPERTY_SELECTED_ENVIRONMENT,
+            evt -> warm((String) evt.getNewValue()));
+    }
+
+    /**
+     * Warm the origins of a stored environment in the background, if the environment asks for it.
+     * The future completes with the number of origins that now have an open connection.
+     */
+    public CompletableFuture<Integer> warm(String environmentName) {
+        long switchGeneration = generation.incrementAndGet();
+        stopKeepingWarm();
+        if (environmentName == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Environment environment = environmentService.loadEnvironment(environmentName);
+            if (environment == null || !isEnabled(environment.getVariables())) {
+                return WarmUpPlan.NONE;
+            }
+            return plan(environment.getVariables());
+        }, Thread.ofVirtual()::start).thenCompose(plan -> {
+            Map<URI, HttpClient.Version> origins = plan.origins;
+            if (origins.isEmpty()) {
+                appState.setSummary(ApplicationState.SUMMARY_WARM_UP, "");
+                return CompletableFuture.completedFuture(0);
+            }
+            long start = System.nanoTime();
+            return warmAll(plan).thenApply(warmed -> {
+                if (switchGeneration == generation.get()) {
+                    appState.setSummary(ApplicationState.SUMMARY_WARM_UP, String.format("Warm: %d/%d origins in %d ms",
+                        warmed, origins.size(), (System.nanoTime() - start) / 1_000_000));
+                }
+                keepWarm(plan, switchGeneration);
+                return warmed;
+            });
+        });
+    }
+
+    private boolean isEnabled(Map<String, String> variables) {
+        try {
+            return Boolean.TRUE.equals(EnvironmentSettings.parseSwitch(EnvironmentSettings.WARM_CONNECTIONS,
+                variables.get(EnvironmentSettings.WARM_CONNECTIONS)));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * The origins to warm and the proxy their calls go through. With an invalid proxy setting there is
+     * nothing to warm: the calls fail on it when they run.
+     */
+    private WarmUpPlan plan(Map<String, String> variables) {
+        String proxy;
+        try {
+            proxy = EnvironmentSettings.parseProxy(EnvironmentSettings.PROXY, variables.get(EnvironmentSettings.PROXY));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return WarmUpPlan.NONE;
+        }
+        return new WarmUpPlan(collectOrigins(variables), proxy);
+    }
+
+    /**
+     * Distinct origins of the saved calls that render completely, each with the HTTP version its first
+     * call would use, so an HTTP/2 origin gets the one multiplexed connection its calls will share
+     */
+    private Map<URI, HttpClient.Version> collectOrigins(Map<String, String> variables) {
+        Map<URI, HttpClient.Version> origins = new LinkedHashMap<>();
+        for (ApiCall apiCall : apiCallPersistenceService.loadApiCalls().values()) {
+            if (apiCall.getUrl() == null) {
+                continue;
+            }
+            List<String> unresolved = new ArrayList<>();
+            String url = CompiledTemplate.parse(apiCall.getUrl()).render(variables, unresolved);
+            URI origin = unresolved.isEmpty() ? originOf(url) : null;
+            if (origin == null || origins.containsKey(origin)) {
+                continue;
+            }
+            try {
+                origins.put(origin, EnvironmentSettings.resolveHttpVersion(apiCall.getHttpVersion(), variables));
+            } catch (IllegalArgumentException e) {
+                origins.put(origin, null); // The call reports the bad setting when it runs
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * The root of a URL's origin, e.g. https://api.example.com:8443/, or null if it is not an HTTP URL
+     */
+    private static URI originOf(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "";
+            if (!scheme.equals("http") && !scheme.equals("https") || uri.getHost() == null) {
+                return null;
+            }
+            return new URI(scheme, null, uri.getHost(), uri.getPort(), "/", null, null);
+        } catch (IllegalArgumentException | URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<Integer> warmAll(WarmUpPlan plan) {
+        AtomicInteger warmed = new AtomicInteger();
+        List<CompletableFuture<Void>> warmUps = new ArrayList<>();
+        plan.origins.forEach((origin, version) -> warmUps.add(requestExecutor.warmUp(origin, version, plan.proxy)
+            .thenAccept(open -> {
+                if (open) {
+                    warmed.incrementAndGet();
+                }
+            })));
+        return CompletableFuture.allOf(warmUps.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> warmed.get());
+    }
+
+    /**
+     * Re-warm idle origins a few times per keep-alive window until KEEP_WARM_NANOS have passed
+     */
+    private synchronized void keepWarm(WarmUpPlan plan, long switchGeneration) {
+        if (switchGeneration != generation.get()) {
+            return;
+        }
+        warmPlan = plan;
+        keepWarmUntil = System.nanoTime() + KEEP_WARM_NANOS;
+        long period = Math.max(1, HttpClientRegistry.PoolStatistics.getKeepAliveNanos() / 4);
+        keepWarmTask = scheduler.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() - keepWarmUntil > 0) {
+                stopKeepingWarm();
+                return;
+            }
+            // warmUp skips origins whose connection was used recently
+            WarmUpPlan current = warmPlan;
+            current.origins.forEach((origin, version) -> requestExecutor.warmUp(origin, version, current.proxy));
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void stopKeepingWarm() {
+        if (keepWarmTask != null) {
+            keepWarmTask.cancel(false);
+            keepWarmTask = null;
+        }
+        warmPlan = WarmUpPlan.NONE;
+    }
+
+    /**
+     * Origins to keep warm, each with the HTTP version of its first call, and the proxy they are reached through
+     */
+    private static final class WarmUpPlan {
+        static final WarmUpPlan NONE = new WarmUpPlan(Map.of(), null);
+
+        final Map<URI, HttpClient.Version> origins;
+        final String proxy;
+
+        WarmUpPlan(Map<URI, HttpClient.Version> origins, String proxy) {
+            this.origins = origins;
+            this.proxy = proxy;
+        }
+    }
+}
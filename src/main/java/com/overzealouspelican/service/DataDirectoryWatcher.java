@@ -0,0 +1,131 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApplicationState;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the data directory for edits made outside the application.
+ * Follows the Singleton pattern so every store is watched by one background thread.
+ * When a store's snapshot or journal changes and the change was not one of the store's own writes,
+ * the store is reloaded and {@link ApplicationState#PROPERTY_STORED_DATA_CHANGED} is fired
+ * with the snapshot file name, so views can refresh from the new in-memory data.
+ */
+public class DataDirectoryWatcher {
+
+    /** Bursts of events (e.g. an editor's save-via-rename) are coalesced over this window */
+    private static final long SETTLE_MILLIS = 200;
+
+    private static DataDirectoryWatcher instance;
+
+    private final Map<Path, JournaledJsonStore<?>> storesByFile;
+    private final Set<Path> watchedDirectories;
+    private WatchService watchService;
+
+    private DataDirectoryWatcher() {
+        this.storesByFile = new ConcurrentHashMap<>();
+        this.watchedDirectories = ConcurrentHashMap.newKeySet();
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this::processEvents, "data-directory-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("File watching unavailable, external edits will not be picked up: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the singleton instance of DataDirectoryWatcher
+     */
+    public static synchronized DataDirectoryWatcher getInstance() {
+        if (instance == null) {
+            instance = new DataDirectoryWatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Start watching a store's snapshot and journal files
+     */
+    public void watch(JournaledJsonStore<?> store) {
+        if (watchService == null) {
+            return;
+        }
+        Path directory = store.getSnapshotFile().toAbsolutePath().getParent();
+        storesByFile.put(store.getSnapshotFile().toAbsolutePath(), store);
+        storesByFile.put(store.getJournalFile().toAbsolutePath(), store);
+
+        if (watchedDirectories.add(directory)) {
+            try {
+                directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                System.out.println("Watching for external changes in: " + directory);
+            } catch (IOException e) {
+                watchedDirectories.remove(directory);
+                System.err.println("Failed to watch " + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<JournaledJsonStore<?>> touched = new HashSet<>();
+                collect(key, touched);
+
+                // Drain the rest of the burst before reloading
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(next, touched);
+                }
+
+                for (JournaledJsonStore<?> store : touched) {
+                    if (store.reloadIfChanged()) {
+                        String fileName = store.getSnapshotFile().getFileName().toString();
+                        System.out.println("Reloaded after external change: " + store.getSnapshotFile());
+                        ApplicationState.getInstance().firePropertyChange(
+                            ApplicationState.PROPERTY_STORED_DATA_CHANGED, null, fileName);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void collect(WatchKey key, Set<JournaledJsonStore<?>> touched) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; check every store in this directory
+                storesByFile.forEach((file, store) -> {
+                    if (file.getParent().equals(directory)) {
+                        touched.add(store);
+                    }
+                });
+                continue;
+            }
+            JournaledJsonStore<?> store = storesByFile.get(directory.resolve((Path) event.context()));
+            if (store != null) {
+                touched.add(store);
+            }
+        }
+        key.reset();
+    }
+}
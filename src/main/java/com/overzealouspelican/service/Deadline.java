@@ -0,0 +1,52 @@
+package com.overzealouspelican.service;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A latency budget shared by the calls of a multi-step run. Each call may only take what is left of it,
+ * and once it is spent the remaining calls fail at once instead of each waiting for its own timeout.
+ */
+public final class Deadline {
+
+    private final Duration budget;
+    private final long expiresAtNanos;
+
+    private Deadline(Duration budget) {
+        this.budget = budget;
+        this.expiresAtNanos = System.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * A deadline that starts counting now
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(budget);
+    }
+
+    /**
+     * The deadline set by the environment's protocaller.deadline, or null if it sets none
+     *
+     * @throws IllegalArgumentException if the setting is not a valid duration
+     */
+    public static Deadline fromEnvironment(Map<String, String> environmentVariables) {
+        Duration budget = EnvironmentSettings.parseTimeout(EnvironmentSettings.DEADLINE,
+            environmentVariables.get(EnvironmentSettings.DEADLINE));
+        return budget != null && !budget.isZero() ? after(budget) : null;
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Time left, never negative
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,338 @@
+package com.overzealouspelican.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Body subscriber that decodes a gzip or deflate Content-Encoding as the buffers arrive and passes the
+ * decoded bytes on to another subscriber. Decoding is push-based on an {@link Inflater}, the engine behind
+ * InflaterInputStream, so it works with HttpClient.sendAsync without a thread blocking on a stream.
+ * Each batch of compressed buffers becomes at most one batch of decoded buffers, so demand passes
+ * straight through to the connection.
+ */
+public final class DecompressingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private enum State { HEADER, BODY, TRAILER, DONE }
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final String encoding;
+    private final boolean gzip;
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private Inflater inflater;
+    private Flow.Subscription upstream;
+    private State state = State.HEADER;
+    private long memberSize;
+    private long wireBytes;
+    private long decodedBytes;
+
+    private DecompressingSubscriber(String encoding, HttpResponse.BodySubscriber<T> downstream) {
+        this.encoding = encoding;
+        this.gzip = !"deflate".equals(encoding);
+        this.downstream = downstream;
+    }
+
+    /**
+     * Wrap a subscriber so it receives the decoded body, or return null if the encoding is not gzip or deflate
+     */
+    public static <T> DecompressingSubscriber<T> forEncoding(String contentEncoding,
+                                                             HttpResponse.BodySubscriber<T> downstream) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            return new DecompressingSubscriber<>("gzip", downstream);
+        }
+        if (encoding.equals("deflate")) {
+            return new DecompressingSubscriber<>("deflate", downstream);
+        }
+        return null;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Bytes received on the wire, before decoding
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * Bytes after decoding
+     */
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.upstream = subscription;
+        downstream.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstream.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                upstream.cancel();
+            }
+        });
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        List<ByteBuffer> decoded = new ArrayList<>();
+        try {
+            for (ByteBuffer buffer : buffers) {
+                wireBytes += buffer.remaining();
+                decode(buffer, decoded);
+            }
+        } catch (IOException e) {
+            upstream.cancel();
+            onError(e);
+            return;
+        }
+
+        if (decoded.isEmpty()) {
+            // Nothing to hand on (e.g. only header bytes arrived), so ask for more ourselves
+            upstream.request(1);
+        } else {
+            downstream.onNext(decoded);
+        }
+    }
+
+    private void decode(ByteBuffer input, List<ByteBuffer> decoded) throws IOException {
+        while (input.hasRemaining()) {
+            switch (state) {
+                case HEADER:
+                    if (!readHeader(input)) {
+                        return;
+                    }
+                    break;
+                case BODY:
+                    // Returns once the stream ends or all input so far is consumed
+                    inflate(input, decoded);
+                    if (inflater.finished()) {
+                        state = gzip ? State.TRAILER : State.DONE;
+                    }
+                    break;
+                case TRAILER:
+                    if (!readTrailer(input)) {
+                        return;
+                    }
+                    break;
+                case DONE:
+                    // Another gzip member may follow; anything else after the end of the stream is padding
+                    if (gzip && input.get(input.position()) == 0x1f) {
+                        state = State.HEADER;
+                    } else {
+                        input.position(input.limit());
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Collect header bytes until the whole header is available, then start inflating after it
+     */
+    private boolean readHeader(ByteBuffer input) throws IOException {
+        while (input.hasRemaining()) {
+            pending.write(input.get());
+            byte[] header = pending.toByteArray();
+            int length = gzip ? gzipHeaderLength(header) : deflateHeaderLength(header);
+            if (length >= 0) {
+                pending.reset();
+                startMember(gzip || length == 2);
+                // A deflate stream's first bytes are compressed data too, so the inflater gets them back
+                if (!gzip) {
+                    inflater.setInput(header, 0, header.length);
+                }
+                state = State.BODY;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startMember(boolean nowrap) {
+        if (inflater != null) {
+            inflater.end();
+        }
+        inflater = new Inflater(nowrap);
+        crc.reset();
+        memberSize = 0;
+    }
+
+    /**
+     * Length of a complete gzip header (RFC 1952), or -1 if more bytes are needed
+     */
+    private static int gzipHeaderLength(byte[] header) throws IOException {
+        if (header.length < 10) {
+            if (header.length >= 2 && ((header[0] & 0xff) | (header[1] & 0xff) << 8) != GZIP_MAGIC) {
+                throw new IOException("Response is not in gzip format");
+            }
+            return -1;
+        }
+        if ((header[2] & 0xff) != 8) {
+            throw new IOException("Unsupported gzip compression method " + (header[2] & 0xff));
+        }
+        int flags = header[3] & 0xff;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (header.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xff) | (header[position + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(header, position);
+            if (position < 0) {
+                return -1;
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(header, position);
+            if (position < 0) {
+                return -1;
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            position += 2;
+        }
+        return header.length >= position ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] header, int position) {
+        for (int i = position; i < header.length; i++) {
+            if (header[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * HTTP "deflate" should be zlib-wrapped (RFC 1950) but some servers send raw deflate; the first two
+     * bytes tell them apart. Returns 1 for zlib, 2 for raw, or -1 if more bytes are needed.
+     */
+    private static int deflateHeaderLength(byte[] header) {
+        if (header.length < 2) {
+            return -1;
+        }
+        int cmf = header[0] & 0xff;
+        int flg = header[1] & 0xff;
+        boolean zlib = (cmf & 0x0f) == 8 && (cmf >> 4) <= 7 && ((cmf << 8) | flg) % 31 == 0;
+        return zlib ? 1 : 2;
+    }
+
+    private void inflate(ByteBuffer input, List<ByteBuffer> decoded) throws IOException {
+        if (inflater.needsInput() && input.hasRemaining()) {
+            inflater.setInput(input);
+        }
+        try {
+            ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+            while (!inflater.finished()) {
+                int count = inflater.inflate(output);
+                if (count > 0) {
+                    if (gzip) {
+                        crc.update(output.array(), output.position() - count, count);
+                    }
+                    memberSize += count;
+                    decodedBytes += count;
+                }
+                if (!output.hasRemaining()) {
+                    decoded.add(output.flip());
+                    output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+                } else if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        throw new IOException("Compressed response needs a preset dictionary");
+                    }
+                    if (inflater.needsInput()) {
+                        break;
+                    }
+                }
+            }
+            if (output.position() > 0) {
+                // Small batches would otherwise each pin a mostly empty buffer in collecting subscribers
+                decoded.add(output.position() < OUTPUT_BUFFER_SIZE / 2
+                    ? ByteBuffer.wrap(java.util.Arrays.copyOf(output.array(), output.position()))
+                    : output.flip());
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid " + encoding + " data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check the gzip trailer: CRC-32 and size of the decoded member
+     */
+    private boolean readTrailer(ByteBuffer input) throws IOException {
+        while (input.hasRemaining() && pending.size() < GZIP_TRAILER_SIZE) {
+            pending.write(input.get());
+        }
+        if (pending.size() < GZIP_TRAILER_SIZE) {
+            return false;
+        }
+        ByteBuffer trailer = ByteBuffer.wrap(pending.toByteArray()).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        pending.reset();
+        long expectedCrc = trailer.getInt() & 0xffffffffL;
+        long expectedSize = trailer.getInt() & 0xffffffffL;
+        if (expectedCrc != crc.getValue() || expectedSize != (memberSize & 0xffffffffL)) {
+            throw new IOException("Corrupt gzip response: checksum or size mismatch");
+        }
+        state = State.DONE;
+        return true;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        release();
+        downstream.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        boolean truncated = state == State.BODY || state == State.TRAILER
+            || (state == State.HEADER && pending.size() > 0);
+        release();
+        if (truncated) {
+            downstream.onError(new IOException("Unexpected end of " + encoding + " response body"));
+        } else {
+            downstream.onComplete();
+        }
+    }
+
+    private void release() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.overzealouspelican.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches host lookups for a time-to-live, including failed lookups (negative caching).
+ * Follows the Singleton pattern so the request executor and the JVM-wide resolver share one cache.
+ * {@link CachingResolverProvider} installs it as the JVM's resolver, so the HttpClient's own lookups
+ * are served from it too and a host is looked up once per TTL instead of once per connection.
+ * A hit in the last part of an entry's TTL refreshes it in the background, so hosts in regular use
+ * never wait on DNS.
+ */
+public class DnsCache {
+
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(10);
+
+    /** Fraction of the TTL after which a hit also refreshes the entry in the background */
+    private static final double REFRESH_AHEAD_FRACTION = 0.8;
+
+    private static DnsCache instance;
+
+    private final Map<String, Entry> entries;
+    private final ExecutorService lookupExecutor;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private volatile boolean installed;
+    private volatile long ttlNanos;
+    private volatile long negativeTtlNanos;
+
+    /**
+     * Loads a host's addresses, e.g. from the JVM's built-in resolver
+     */
+    @FunctionalInterface
+    interface Loader {
+        List<InetAddress> load() throws UnknownHostException;
+    }
+
+    private DnsCache() {
+        this.entries = new ConcurrentHashMap<>();
+        this.lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.ttlNanos = DEFAULT_TTL.toNanos();
+        this.negativeTtlNanos = DEFAULT_NEGATIVE_TTL.toNanos();
+    }
+
+    /**
+     * Get the singleton instance of DnsCache
+     */
+    public static synchronized DnsCache getInstance() {
+        if (instance == null) {
+            instance = new DnsCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Set how long lookups and failed lookups are cached; null restores the default.
+     * Entries already cached keep the expiry they were stored with.
+     */
+    public void configure(Duration ttl, Duration negativeTtl) {
+        this.ttlNanos = (ttl != null ? ttl : DEFAULT_TTL).toNanos();
+        this.negativeTtlNanos = (negativeTtl != null ? negativeTtl : DEFAULT_NEGATIVE_TTL).toNanos();
+    }
+
+    /**
+     * Resolve a host, from the cache when possible. Blocks while a lookup is needed.
+     *
+     * @throws UnknownHostException if the host does not resolve, including a cached failure
+     */
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        if (installed) {
+            // InetAddress comes back here through CachingResolverProvider
+            return InetAddress.getAllByName(host);
+        }
+        // Not (yet) the JVM's resolver, so cache what InetAddress returns
+        return lookup(host, () -> List.of(InetAddress.getAllByName(host))).toArray(new InetAddress[0]);
+    }
+
+    /**
+     * Whether a lookup of the host would be answered from the cache, successfully or not
+     */
+    public boolean isCached(String host) {
+        Entry entry = entries.get(key(host));
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    /**
+     * Resolve hosts in the background, skipping those already cached. Failures are cached like any other.
+     * The future completes once every lookup has finished.
+     */
+    public CompletableFuture<Void> prefetch(Collection<String> hosts) {
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        for (String host : hosts) {
+            if (host == null || host.isBlank() || isCached(host)) {
+                continue;
+            }
+            lookups.add(CompletableFuture.runAsync(() -> {
+                try {
+                    resolve(host);
+                } catch (UnknownHostException e) {
+                    // Cached as a failure; the call that needs the host reports it
+                }
+            }, lookupExecutor));
+        }
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Called once the cache is installed as the JVM's resolver
+     */
+    void markInstalled() {
+        installed = true;
+    }
+
+    /**
+     * The cached addresses for a host, or the result of {@code loader} if there is no fresh entry
+     */
+    List<InetAddress> lookup(String host, Loader loader) throws UnknownHostException {
+        String key = key(host);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.incrementAndGet();
+            if (entry.shouldRefresh(now)) {
+                refreshInBackground(key, loader);
+            }
+            return entry.get();
+        }
+        misses.incrementAndGet();
+        return load(key, loader).get();
+    }
+
+    private Entry load(String key, Loader loader) {
+        Entry entry;
+        try {
+            entry = new Entry(List.copyOf(loader.load()), null, ttlNanos);
+        } catch (UnknownHostException e) {
+            entry = new Entry(null, e, negativeTtlNanos);
+        }
+        // No lock is held while loading; concurrent misses for one host both look it up and the last one wins
+        if (entry.lifetimeNanos > 0) {
+            entries.put(key, entry);
+        } else {
+            entries.remove(key);
+        }
+        return entry;
+    }
+
+    /**
+     * Look a host up again before its entry expires. A failed refresh keeps the addresses that still work
+     * until they expire, rather than failing the host for the negative TTL; the next hit tries again.
+     */
+    private void refreshInBackground(String key, Loader loader) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.refreshing.compareAndSet(false, true)) {
+            lookupExecutor.execute(() -> {
+                try {
+                    Entry refreshed = new Entry(List.copyOf(loader.load()), null, ttlNanos);
+                    if (refreshed.lifetimeNanos > 0) {
+                        entries.replace(key, entry, refreshed);
+                    } else {
+                        entries.remove(key, entry);
+                    }
+                } catch (UnknownHostException e) {
+                    entry.refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    private static String key(String host) {
+        return host.toLowerCase();
+    }
+
+    /**
+     * Addresses or failure of one lookup, and when it expires
+     */
+    private static final class Entry {
+        private final List<InetAddress> addresses;
+        private final UnknownHostException failure;
+        private final long storedAt;
+        private final long lifetimeNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(List<InetAddress> addresses, UnknownHostException failure, long lifetimeNanos) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.storedAt = System.nanoTime();
+            this.lifetimeNanos = lifetimeNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - storedAt >= lifetimeNanos;
+        }
+
+        /**
+         * Successful lookups are refreshed ahead of expiry; failures are simply retried once expired
+         */
+        boolean shouldRefresh(long now) {
+            return failure == null && now - storedAt >= lifetimeNanos * REFRESH_AHEAD_FRACTION;
+        }
+
+        List<InetAddress> get() throws UnknownHostException {
+            if (failure != null) {
+                UnknownHostException cached = new UnknownHostException(failure.getMessage());
+                cached.initCause(failure);
+                throw cached;
+            }
+            return addresses;
+        }
+    }
+}
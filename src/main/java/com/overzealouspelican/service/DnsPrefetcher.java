@@ -0,0 +1,131 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.model.Environment;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps {@link DnsCache} in step with the selected environment.
+ * Follows the Singleton pattern so the listeners are registered once.
+ * When the environment changes, the hosts it is likely to call are resolved in the background:
+ * hosts of environment values that are URLs, and of saved call URLs rendered with the environment.
+ * The first call after a switch then finds its host already cached.
+ */
+public class DnsPrefetcher {
+
+    private static DnsPrefetcher instance;
+
+    private final ApplicationState appState;
+    private final DnsCache dnsCache;
+    private final EnvironmentService environmentService;
+    private final ApiCallPersistenceService apiCallPersistenceService;
+
+    private DnsPrefetcher() {
+        this.appState = ApplicationState.getInstance();
+        this.dnsCache = DnsCache.getInstance();
+        this.environmentService = new EnvironmentService();
+        this.apiCallPersistenceService = new ApiCallPersistenceService();
+    }
+
+    /**
+     * Get the singleton instance of DnsPrefetcher
+     */
+    public static synchronized DnsPrefetcher getInstance() {
+        if (instance == null) {
+            instance = new DnsPrefetcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Start following environment switches and edits
+     */
+    public void install() {
+        appState.addPropertyChangeListener(ApplicationState.PROPERTY_SELECTED_ENVIRONMENT,
+            evt -> prefetch((String) evt.getNewValue()));
+        // Variables are set right after the selection, and again whenever the environment is saved
+        appState.addPropertyChangeListener(ApplicationState.PROPERTY_ENVIRONMENT_VARIABLES,
+            evt -> applySettings(appState.getEnvironmentVariables()));
+    }
+
+    /**
+     * Resolve the hosts of a stored environment in the background
+     */
+    public CompletableFuture<Void> prefetch(String environmentName) {
+        if (environmentName == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Loading the stores and rendering URLs is cheap but should not hold up the caller (often the EDT)
+        return CompletableFuture.supplyAsync(() -> {
+            Environment environment = environmentService.loadEnvironment(environmentName);
+            return environment != null ? environment.getVariables() : null;
+        }, Thread.ofVirtual()::start).thenCompose(variables -> {
+            if (variables == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            applySettings(variables);
+            return dnsCache.prefetch(collectHosts(variables));
+        });
+    }
+
+    /**
+     * Apply the environment's DNS cache TTLs, falling back to the defaults for missing or invalid values
+     */
+    private void applySettings(Map<String, String> variables) {
+        dnsCache.configure(parseSeconds(EnvironmentSettings.DNS_TTL, variables),
+            parseSeconds(EnvironmentSettings.DNS_NEGATIVE_TTL, variables));
+    }
+
+    private Duration parseSeconds(String name, Map<String, String> variables) {
+        try {
+            return EnvironmentSettings.parseSeconds(name, variables.get(name));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + "; using the default");
+            return null;
+        }
+    }
+
+    /**
+     * Hosts of environment values that are URLs and of saved call URLs that render completely
+     */
+    private Set<String> collectHosts(Map<String, String> variables) {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (String value : variables.values()) {
+            addHost(hosts, value);
+        }
+        for (ApiCall apiCall : apiCallPersistenceService.loadApiCalls().values()) {
+            if (apiCall.getUrl() == null) {
+                continue;
+            }
+            List<String> unresolved = new ArrayList<>();
+            String url = CompiledTemplate.parse(apiCall.getUrl()).render(variables, unresolved);
+            if (unresolved.isEmpty()) {
+                addHost(hosts, url);
+            }
+        }
+        return hosts;
+    }
+
+    private static void addHost(Set<String> hosts, String url) {
+        if (url == null || !url.contains("://")) {
+            return;
+        }
+        try {
+            String host = URI.create(url.trim()).getHost();
+            if (host != null && !host.startsWith("[")) {
+                hosts.add(host.toLowerCase());
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a URL after all
+        }
+    }
+}
@@ -3,24 +3,25 @@ package com.overzealouspelican.service;
 import com.overzealouspelican.model.Environment;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for persisting environments to JSON files on the local filesystem.
  * Follows Single Responsibility Principle - handles only environment persistence.
+ * Environments are served from an in-memory snapshot shared by every instance and written to disk
+ * in the background by {@link PersistenceWriter};
+ * the snapshot is reloaded when {@link DataDirectoryWatcher} sees the file change outside the application.
  */
 public class EnvironmentService {
 
-    private static final String ENVIRONMENTS_FILE = "environments.json";
+    /** Name of the environments file, as reported by {@link com.overzealouspelican.model.ApplicationState#PROPERTY_STORED_DATA_CHANGED} */
+    public static final String ENVIRONMENTS_FILE = "environments.json";
+    private static final Map<Path, JournaledJsonStore<Environment>> STORES = new ConcurrentHashMap<>();
+
     private final Gson gson;
     private final StoragePathService storagePathService;
 
@@ -51,68 +52,57 @@ public class EnvironmentService {
     }
 
     /**
-     * Load all environments from the JSON file
+     * Get the shared store for the current data directory, loading it on first use
      */
-    public Map<String, Environment> loadEnvironments() {
-        Path environmentsFile = getEnvironmentsFile();
-        if (!Files.exists(environmentsFile)) {
-            return new HashMap<>();
-        }
+    private JournaledJsonStore<Environment> getStore() {
+        return STORES.computeIfAbsent(getEnvironmentsFile(), file -> {
+            JournaledJsonStore<Environment> store = new JournaledJsonStore<>(file, Environment.class, gson,
+                environment -> new Environment(environment.getName(), environment.getVariables()));
+            DataDirectoryWatcher.getInstance().watch(store);
+            return store;
+        });
+    }
 
-        try (FileReader reader = new FileReader(environmentsFile.toFile())) {
-            Type type = new TypeToken<Map<String, Environment>>(){}.getType();
-            Map<String, Environment> environments = gson.fromJson(reader, type);
-            return environments != null ? environments : new HashMap<>();
-        } catch (IOException e) {
-            System.err.println("Failed to load environments: " + e.getMessage());
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+    /**
+     * Load all environments
+     */
+    public Map<String, Environment> loadEnvironments() {
+        return getStore().snapshot();
     }
 
     /**
-     * Save all environments to the JSON file
+     * Save all environments; the JSON file is rewritten in the background
      */
     public void saveEnvironments(Map<String, Environment> environments) throws IOException {
-        Path environmentsFile = getEnvironmentsFile();
-        try (FileWriter writer = new FileWriter(environmentsFile.toFile())) {
-            gson.toJson(environments, writer);
-            System.out.println("Saved environments to: " + environmentsFile);
-        }
+        getStore().replaceAll(environments);
     }
 
     /**
      * Save a single environment
      */
     public void saveEnvironment(Environment environment) throws IOException {
-        Map<String, Environment> environments = loadEnvironments();
-        environments.put(environment.getName(), environment);
-        saveEnvironments(environments);
+        getStore().put(environment.getName(), environment);
     }
 
     /**
      * Load a specific environment by name
      */
     public Environment loadEnvironment(String name) {
-        Map<String, Environment> environments = loadEnvironments();
-        return environments.get(name);
+        return getStore().get(name);
     }
 
     /**
      * Delete an environment
      */
     public void deleteEnvironment(String name) throws IOException {
-        Map<String, Environment> environments = loadEnvironments();
-        environments.remove(name);
-        saveEnvironments(environments);
+        getStore().remove(name);
     }
 
     /**
      * Check if an environment exists
      */
     public boolean environmentExists(String name) {
-        Map<String, Environment> environments = loadEnvironments();
-        return environments.containsKey(name);
+        return getStore().containsKey(name);
     }
 
     /**
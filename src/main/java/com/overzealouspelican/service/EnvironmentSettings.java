@@ -0,0 +1,307 @@
+package com.overzealouspelican.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Reserved environment variables that configure how calls are sent rather than what they contain.
+ * They live in the environment alongside ordinary variables, under the "protocaller." prefix,
+ * so switching environments switches these settings too. A setting on the call itself always wins.
+ */
+public final class EnvironmentSettings {
+
+    /** Preferred HTTP version: "HTTP/1.1" or "HTTP/2" (h2 via ALPN on https, h2c upgrade on http) */
+    public static final String HTTP_VERSION = "protocaller.httpVersion";
+
+    /** Advertise gzip/deflate and decode compressed responses: "true" or "false" (default) */
+    public static final String COMPRESSION = "protocaller.compression";
+
+    /** Seconds a resolved host address is reused before it is looked up again */
+    public static final String DNS_TTL = "protocaller.dnsTtl";
+
+    /** Seconds a failed host lookup is remembered, so a bad host fails fast instead of waiting on DNS again */
+    public static final String DNS_NEGATIVE_TTL = "protocaller.dnsNegativeTtl";
+
+    /** Open connections to the environment's origins as soon as it is selected: "true" or "false" (default) */
+    public static final String WARM_CONNECTIONS = "protocaller.warmConnections";
+
+    /** How many times a call that fails transiently is retried (default 0); see {@link RetryPolicy} */
+    public static final String RETRIES = "protocaller.retries";
+
+    /** Base delay in milliseconds of the exponential backoff between retries (default 200) */
+    public static final String RETRY_BACKOFF = "protocaller.retryBackoff";
+
+    /** Requests per second to each origin, e.g. "10", "0.5" or "600/m"; no limit when unset */
+    public static final String RATE_LIMIT = "protocaller.rateLimit";
+
+    /** Requests per second across all origins of the environment; no limit when unset */
+    public static final String ENVIRONMENT_RATE_LIMIT = "protocaller.environmentRateLimit";
+
+    /** Requests that may be sent back to back after a quiet spell (default: one second's worth) */
+    public static final String RATE_BURST = "protocaller.rateBurst";
+
+    /** Send calls through an HTTP proxy given as "host:port"; calls connect directly when unset */
+    public static final String PROXY = "protocaller.proxy";
+
+    /** Let identical GET and HEAD requests in flight at the same time share one exchange: "true" or "false" (default) */
+    public static final String COALESCE = "protocaller.coalesce";
+
+    /** Send a backup request for slow GET, HEAD and OPTIONS calls: "off", a percentile such as "p95", or milliseconds */
+    public static final String HEDGE = "protocaller.hedge";
+
+    /** Answer GET calls from a local HTTP cache that follows the server's caching headers: "true" or "false" (default) */
+    public static final String HTTP_CACHE = "protocaller.httpCache";
+
+    /** Disk space for the HTTP cache in megabytes (default 256); least recently used responses are evicted first */
+    public static final String HTTP_CACHE_SIZE = "protocaller.httpCacheSize";
+
+    /** Time allowed to open a connection, e.g. "5", "2.5s" or "500ms"; "off" for no limit (default 30 seconds) */
+    public static final String CONNECT_TIMEOUT = "protocaller.connectTimeout";
+
+    /** Time allowed from sending a request until its response starts to arrive; "off" for no limit (default 30 seconds) */
+    public static final String READ_TIMEOUT = "protocaller.readTimeout";
+
+    /** Time allowed for the whole call, including retries and the response body; no limit when unset */
+    public static final String TIMEOUT = "protocaller.timeout";
+
+    /** Latency budget for a whole collection run; calls still to run when it is spent fail without being sent */
+    public static final String DEADLINE = "protocaller.deadline";
+
+    private EnvironmentSettings() {
+    }
+
+    /**
+     * Parse an HTTP version setting. Accepts "HTTP/1.1", "1.1", "h1", "HTTP_1_1", "HTTP/2", "2", "h2",
+     * "h2c" and "HTTP_2"; blank or "auto" means no preference.
+     *
+     * @throws IllegalArgumentException for any other value
+     */
+    public static HttpClient.Version parseHttpVersion(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "auto":
+            case "default":
+                return null;
+            case "http/1.1":
+            case "1.1":
+            case "h1":
+            case "http_1_1":
+                return HttpClient.Version.HTTP_1_1;
+            case "http/2":
+            case "2":
+            case "h2":
+            case "h2c":
+            case "http_2":
+                return HttpClient.Version.HTTP_2;
+            default:
+                throw new IllegalArgumentException("Unknown HTTP version '" + value + "'; use HTTP/1.1 or HTTP/2");
+        }
+    }
+
+    /**
+     * The HTTP version for a call: the call's own setting, else the environment's, else null for the client default
+     */
+    public static HttpClient.Version resolveHttpVersion(String callVersion, Map<String, String> environmentVariables) {
+        HttpClient.Version version = parseHttpVersion(callVersion);
+        if (version == null && environmentVariables != null) {
+            version = parseHttpVersion(environmentVariables.get(HTTP_VERSION));
+        }
+        return version;
+    }
+
+    /**
+     * Parse an on/off setting. Accepts true/false, on/off, yes/no and 1/0; blank means no preference.
+     *
+     * @throws IllegalArgumentException for any other value
+     */
+    public static Boolean parseSwitch(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "true":
+            case "on":
+            case "yes":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "off":
+            case "no":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("Invalid value '" + value + "' for " + name + "; use true or false");
+        }
+    }
+
+    /**
+     * Parse a duration in whole seconds; blank means no preference
+     *
+     * @throws IllegalArgumentException for anything but a non-negative integer
+     */
+    public static Duration parseSeconds(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            if (seconds >= 0) {
+                return Duration.ofSeconds(seconds);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + name + "; use a number of seconds");
+    }
+
+    /**
+     * Parse a "host:port" proxy address; blank means a direct connection
+     *
+     * @throws IllegalArgumentException for anything without a host and a port number
+     */
+    public static String parseProxy(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String proxy = value.trim();
+        int colon = proxy.lastIndexOf(':');
+        if (colon > 0) {
+            try {
+                int port = Integer.parseInt(proxy.substring(colon + 1));
+                if (port > 0 && port <= 65535) {
+                    return proxy;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + name + "; use host:port");
+    }
+
+    /**
+     * Parse a count such as a number of retries or milliseconds; blank means no preference
+     *
+     * @throws IllegalArgumentException for anything but a non-negative integer
+     */
+    public static Integer parseCount(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + name + "; use a whole number");
+    }
+
+    /**
+     * Parse a rate in requests per second; "/s", "/m" and "/h" suffixes give other units.
+     * Blank means no preference.
+     *
+     * @throws IllegalArgumentException for anything but a positive rate
+     */
+    public static Double parseRate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String number = value.trim().toLowerCase();
+        double perSeconds = 1;
+        if (number.endsWith("/s")) {
+            number = number.substring(0, number.length() - 2);
+        } else if (number.endsWith("/m")) {
+            number = number.substring(0, number.length() - 2);
+            perSeconds = 60;
+        } else if (number.endsWith("/h")) {
+            number = number.substring(0, number.length() - 2);
+            perSeconds = 3600;
+        }
+        try {
+            double rate = Double.parseDouble(number.trim()) / perSeconds;
+            if (rate > 0 && !Double.isInfinite(rate)) {
+                return rate;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + name
+            + "; use requests per second, e.g. 10 or 600/m");
+    }
+
+    /**
+     * Parse a timeout: seconds such as "30" or "2.5", or a number with an "ms", "s" or "m" suffix.
+     * "off" (or 0) means no limit and is returned as {@link Duration#ZERO}; blank means no preference.
+     *
+     * @throws IllegalArgumentException for anything else
+     */
+    public static Duration parseTimeout(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String number = value.trim().toLowerCase();
+        if (number.equals("off") || number.equals("none")) {
+            return Duration.ZERO;
+        }
+        double millisPerUnit = 1000;
+        if (number.endsWith("ms")) {
+            number = number.substring(0, number.length() - 2);
+            millisPerUnit = 1;
+        } else if (number.endsWith("s")) {
+            number = number.substring(0, number.length() - 1);
+        } else if (number.endsWith("m")) {
+            number = number.substring(0, number.length() - 1);
+            millisPerUnit = 60_000;
+        }
+        try {
+            double millis = Double.parseDouble(number.trim()) * millisPerUnit;
+            if (millis >= 0 && millis < Long.MAX_VALUE) {
+                return Duration.ofMillis(Math.round(millis));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + name
+            + "; use seconds, e.g. 30, 2.5s or 500ms, or off");
+    }
+
+    /**
+     * Whether a call should advertise compression: the call's own setting, else the environment's, else off
+     */
+    public static boolean resolveCompression(Boolean callSetting, Map<String, String> environmentVariables) {
+        if (callSetting != null) {
+            return callSetting;
+        }
+        Boolean setting = environmentVariables != null
+            ? parseSwitch(COMPRESSION, environmentVariables.get(COMPRESSION))
+            : null;
+        return Boolean.TRUE.equals(setting);
+    }
+
+    /**
+     * Whether a call may go out over HTTP/2, i.e. it is not pinned to HTTP/1.1.
+     * An unparseable setting counts as "may" here; executing the call reports the bad value.
+     */
+    public static boolean mayUseHttp2(String callVersion, Map<String, String> environmentVariables) {
+        try {
+            return resolveHttpVersion(callVersion, environmentVariables) != HttpClient.Version.HTTP_1_1;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Display label for a version, e.g. "HTTP/2"
+     */
+    public static String label(HttpClient.Version version) {
+        if (version == null) {
+            return "Auto";
+        }
+        return version == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+    }
+}
@@ -3,32 +3,46 @@ package com.overzealouspelican.service;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.net.InetSocketAddress;
 import java.net.ProxySelector;
 import java.net.http.HttpClient;
 import java.security.cert.X509Certificate;
-import java.time.Duration;
 
 /**
  * Factory for creating HTTP clients with different configurations.
  * Follows the Single Responsibility Principle - only responsible for creating HTTP clients.
+ * Clients are expensive to build (connection pool, selector thread, SSL context), so callers
+ * should obtain them through {@link HttpClientRegistry} rather than creating one per request.
  */
 public class HttpClientFactory {
 
     /**
-     * Create a standard HTTP client
+     * Create a client matching the given profile
      */
-    public HttpClient createStandardClient() {
-        return HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
+    public HttpClient createClient(HttpClientRegistry.ClientProfile profile) {
+        HttpClient.Builder builder = profile.isInsecure() ? insecureBuilder() : HttpClient.newBuilder();
+        if (builder == null) {
+            // Insecure SSL context could not be created, fall back to the default secure client
+            builder = HttpClient.newBuilder();
+        }
+
+        if (profile.getConnectTimeout() != null) {
+            builder.connectTimeout(profile.getConnectTimeout());
+        }
+
+        if (profile.getProxy() != null) {
+            builder.proxy(ProxySelector.of(parseProxyAddress(profile.getProxy())));
+        } else if (profile.isInsecure()) {
+            builder.proxy(ProxySelector.getDefault()); // Use system proxy settings
+        }
+
+        return builder.build();
     }
 
     /**
-     * Create an HTTP client that trusts all certificates (for localhost development only)
-     * Uses system DNS resolver to support custom hosts file entries
-     * Disables hostname verification for self-signed certificates
+     * Build a client builder with an all-trusting SSL context, or null if the context cannot be created
      */
-    public HttpClient createInsecureClient() {
+    private HttpClient.Builder insecureBuilder() {
         try {
             // Create a trust manager that does not validate certificate chains
             TrustManager[] trustAllCerts = new TrustManager[]{
@@ -51,20 +65,28 @@ public class HttpClientFactory {
             javax.net.ssl.SSLParameters sslParams = sslContext.getDefaultSSLParameters();
             sslParams.setEndpointIdentificationAlgorithm(""); // Empty string disables hostname verification
 
-            // Create HTTP client with custom SSL context that disables all verification
+            // Create HTTP client builder with custom SSL context that disables all verification
             return HttpClient.newBuilder()
                 .sslContext(sslContext)
-                .sslParameters(sslParams)
-                .connectTimeout(Duration.ofSeconds(30))
-                .proxy(ProxySelector.getDefault()) // Use system proxy settings
-                .build();
+                .sslParameters(sslParams);
 
         } catch (Exception e) {
             System.err.println("Failed to create insecure HTTP client: " + e.getMessage());
             e.printStackTrace();
-            // Fall back to the default secure client
-            return createStandardClient();
+            return null;
         }
     }
-}
 
+    /**
+     * Parse a "host:port" proxy specification
+     */
+    private InetSocketAddress parseProxyAddress(String proxy) {
+        int colon = proxy.lastIndexOf(':');
+        if (colon <= 0 || colon == proxy.length() - 1) {
+            throw new IllegalArgumentException("Proxy must be in host:port form: " + proxy);
+        }
+        String host = proxy.substring(0, colon);
+        int port = Integer.parseInt(proxy.substring(colon + 1));
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+}
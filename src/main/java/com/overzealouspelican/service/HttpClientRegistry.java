@@ -0,0 +1,352 @@
+package com.overzealouspelican.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of long-lived HTTP clients keyed by connection profile.
+ * Follows the Singleton pattern so every caller shares the same connection pools, which keeps
+ * connections alive and reused across calls instead of paying a TCP+TLS handshake each time.
+ * A client that nobody is using and whose connections have all timed out is closed, so profiles
+ * that are used once do not keep a client and its selector thread for the rest of the session.
+ */
+public class HttpClientRegistry {
+
+    private static HttpClientRegistry instance;
+
+    private final HttpClientFactory clientFactory;
+    private final Map<ClientProfile, SharedClient> clients;
+    private final PoolStatistics statistics;
+
+    private HttpClientRegistry() {
+        this.clientFactory = new HttpClientFactory();
+        this.clients = new ConcurrentHashMap<>();
+        this.statistics = new PoolStatistics();
+    }
+
+    /**
+     * Get the singleton instance of HttpClientRegistry
+     */
+    public static synchronized HttpClientRegistry getInstance() {
+        if (instance == null) {
+            instance = new HttpClientRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the shared client for a profile, creating it on first use. The client stays open until
+     * {@link #release} is called for every acquire; callers release it when their exchange completes.
+     */
+    public HttpClient acquire(ClientProfile profile) {
+        closeIdleClients(profile);
+        return clients.compute(profile, (key, shared) -> {
+            SharedClient client = shared != null ? shared : new SharedClient(clientFactory.createClient(key));
+            client.users++;
+            client.lastUsedNanos = System.nanoTime();
+            return client;
+        }).client;
+    }
+
+    /**
+     * Give back a client obtained from {@link #acquire}
+     */
+    public void release(ClientProfile profile) {
+        clients.computeIfPresent(profile, (key, shared) -> {
+            shared.users--;
+            shared.lastUsedNanos = System.nanoTime();
+            return shared;
+        });
+    }
+
+    /**
+     * Close clients that nobody is using and that have been idle for longer than the keep-alive timeout,
+     * by which time the client has closed all their connections anyway
+     */
+    private void closeIdleClients(ClientProfile keep) {
+        long now = System.nanoTime();
+        for (ClientProfile profile : clients.keySet()) {
+            if (profile.equals(keep)) {
+                continue;
+            }
+            SharedClient[] closed = new SharedClient[1];
+            clients.computeIfPresent(profile, (key, shared) -> {
+                if (shared.users == 0 && now - shared.lastUsedNanos >= PoolStatistics.KEEP_ALIVE_NANOS) {
+                    closed[0] = shared;
+                    return null;
+                }
+                return shared;
+            });
+            if (closed[0] != null) {
+                closed[0].client.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Record that an exchange to the given URI was sent through the profile's client
+     */
+    public void recordExchange(ClientProfile profile, URI uri) {
+        statistics.record(profile, uri);
+    }
+
+    /**
+     * Record that a connection to the URI's origin was opened or refreshed ahead of use.
+     * Unlike {@link #recordExchange} this does not count towards the exchange statistics.
+     */
+    public void recordWarmUp(ClientProfile profile, URI uri) {
+        statistics.touch(profile, uri);
+    }
+
+    /**
+     * Nanoseconds since the profile's connection to the URI's origin was last used, or Long.MAX_VALUE if never
+     */
+    public long getIdleNanos(ClientProfile profile, URI uri) {
+        return statistics.idleNanos(profile, uri);
+    }
+
+    /**
+     * Whether the profile's client probably still holds an open connection to the URI's origin
+     */
+    public boolean hasLiveConnection(ClientProfile profile, URI uri) {
+        return statistics.isLive(profile, uri);
+    }
+
+    /**
+     * Get pool statistics across all registered clients
+     */
+    public PoolStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Get the number of distinct clients currently registered
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * A client and how many exchanges are using it; the counts are only changed inside the map's compute methods
+     */
+    private static final class SharedClient {
+        private final HttpClient client;
+        private int users;
+        private long lastUsedNanos;
+
+        SharedClient(HttpClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * Immutable description of how a client connects: TLS trust, proxy and connect timeout.
+     * The HTTP version is chosen per request, so it is not part of the profile.
+     * Two requests with equal profiles share one client and therefore one connection pool.
+     */
+    public static final class ClientProfile {
+        /** Connect timeouts a client can have; each client has its own connection pool */
+        public static final List<Duration> CONNECT_TIMEOUT_STEPS = List.of(
+            Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2),
+            Duration.ofSeconds(5), Duration.ofSeconds(10), Timeouts.DEFAULT_CONNECT, Duration.ofSeconds(60),
+            Duration.ofSeconds(120));
+
+        private final boolean insecure;
+        private final String proxy;
+        private final Duration connectTimeout;
+
+        private ClientProfile(boolean insecure, String proxy, Duration connectTimeout) {
+            this.insecure = insecure;
+            this.proxy = proxy;
+            this.connectTimeout = connectTimeout;
+        }
+
+        /**
+         * Standard profile with certificate verification and a direct connection
+         */
+        public static ClientProfile standard() {
+            return new ClientProfile(false, null, Timeouts.DEFAULT_CONNECT);
+        }
+
+        /**
+         * Profile that trusts all certificates, used for localhost development only
+         */
+        public static ClientProfile insecureLocalhost() {
+            return new ClientProfile(true, null, Timeouts.DEFAULT_CONNECT);
+        }
+
+        /**
+         * Copy of this profile routed through a "host:port" proxy (null for none)
+         */
+        public ClientProfile withProxy(String proxy) {
+            return new ClientProfile(insecure, proxy, connectTimeout);
+        }
+
+        /**
+         * Copy of this profile giving up on opening a connection after the given time (null for no limit).
+         * The time is rounded up to one of {@link #CONNECT_TIMEOUT_STEPS}, and anything longer than the last
+         * step means no limit, so calls with different connect timeouts share a handful of clients.
+         */
+        public ClientProfile withConnectTimeout(Duration connectTimeout) {
+            return new ClientProfile(insecure, proxy, roundConnectTimeout(connectTimeout));
+        }
+
+        private static Duration roundConnectTimeout(Duration connectTimeout) {
+            if (connectTimeout == null) {
+                return null;
+            }
+            for (Duration step : CONNECT_TIMEOUT_STEPS) {
+                if (connectTimeout.compareTo(step) <= 0) {
+                    return step;
+                }
+            }
+            return null;
+        }
+
+        public boolean isInsecure() {
+            return insecure;
+        }
+
+        public String getProxy() {
+            return proxy;
+        }
+
+        /**
+         * Time allowed to open a connection, or null for no limit
+         */
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClientProfile)) return false;
+            ClientProfile that = (ClientProfile) o;
+            return insecure == that.insecure
+                && Objects.equals(proxy, that.proxy)
+                && Objects.equals(connectTimeout, that.connectTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(insecure, proxy, connectTimeout);
+        }
+
+        @Override
+        public String toString() {
+            return "ClientProfile{insecure=" + insecure + ", proxy='" + proxy + "', connectTimeout=" + connectTimeout + "}";
+        }
+    }
+
+    /**
+     * Connection pool statistics.
+     * java.net.http.HttpClient does not expose its pool, so connections are tracked per
+     * (profile, origin): an exchange to an origin that was used within the keep-alive window
+     * is counted as reusing a pooled connection, anything else as opening a new one.
+     * Concurrent HTTP/1.1 exchanges to one origin open extra connections, so live counts are a lower bound.
+     */
+    public static class PoolStatistics {
+        // Matches the JDK's idle connection timeout so expired entries are treated as closed
+        private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(
+            Long.getLong("jdk.httpclient.keepalive.timeout", 30));
+
+        private final Map<String, Long> lastUsedByConnection = new ConcurrentHashMap<>();
+        private final AtomicLong totalExchanges = new AtomicLong();
+        private final AtomicLong reusedExchanges = new AtomicLong();
+        private final AtomicLong handshakesAvoided = new AtomicLong();
+
+        void record(ClientProfile profile, URI uri) {
+            long now = System.nanoTime();
+            String key = profile + "|" + originOf(uri);
+            Long previous = lastUsedByConnection.put(key, now);
+            // Forget connections the client has closed by now, so the map only holds live ones
+            lastUsedByConnection.values().removeIf(lastUsed -> now - lastUsed >= KEEP_ALIVE_NANOS);
+
+            totalExchanges.incrementAndGet();
+            if (previous != null && now - previous < KEEP_ALIVE_NANOS) {
+                reusedExchanges.incrementAndGet();
+                if ("https".equalsIgnoreCase(uri.getScheme())) {
+                    handshakesAvoided.incrementAndGet();
+                }
+            }
+        }
+
+        void touch(ClientProfile profile, URI uri) {
+            lastUsedByConnection.put(profile + "|" + originOf(uri), System.nanoTime());
+        }
+
+        long idleNanos(ClientProfile profile, URI uri) {
+            Long lastUsed = lastUsedByConnection.get(profile + "|" + originOf(uri));
+            return lastUsed == null ? Long.MAX_VALUE : System.nanoTime() - lastUsed;
+        }
+
+        /**
+         * How long the client keeps an idle connection open
+         */
+        public static long getKeepAliveNanos() {
+            return KEEP_ALIVE_NANOS;
+        }
+
+        boolean isLive(ClientProfile profile, URI uri) {
+            Long lastUsed = lastUsedByConnection.get(profile + "|" + originOf(uri));
+            return lastUsed != null && System.nanoTime() - lastUsed < KEEP_ALIVE_NANOS;
+        }
+
+        /**
+         * Estimated number of pooled connections that are still within the keep-alive window
+         */
+        public int getLiveConnections() {
+            long now = System.nanoTime();
+            return (int) lastUsedByConnection.values().stream()
+                .filter(lastUsed -> now - lastUsed < KEEP_ALIVE_NANOS)
+                .count();
+        }
+
+        public long getTotalExchanges() {
+            return totalExchanges.get();
+        }
+
+        public long getReusedExchanges() {
+            return reusedExchanges.get();
+        }
+
+        /**
+         * Fraction of exchanges that were sent over an already-open connection
+         */
+        public double getReuseRatio() {
+            long total = totalExchanges.get();
+            return total == 0 ? 0.0 : (double) reusedExchanges.get() / total;
+        }
+
+        /**
+         * Number of TLS handshakes skipped because a pooled HTTPS connection was reused
+         */
+        public long getHandshakesAvoided() {
+            return handshakesAvoided.get();
+        }
+
+        /**
+         * One-line summary suitable for the status bar
+         */
+        public String summary() {
+            return String.format("Pool: %d live · %.0f%% reuse · %d handshakes avoided",
+                getLiveConnections(), getReuseRatio() * 100, getHandshakesAvoided());
+        }
+
+        static String originOf(URI uri) {
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            }
+            return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.overzealouspelican.service;
 
 import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.HttpClientRegistry.ClientProfile;
 import com.google.gson.Gson;
 
-import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for executing HTTP requests.
@@ -19,109 +31,357 @@ import java.util.Map;
  */
 public class HttpRequestExecutor {
 
-    private final HttpClientFactory clientFactory;
+    /** Host lookups block, so each runs on its own virtual thread rather than on a client thread */
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    /** Origins whose pooled-connection wait is remembered; the least recently used are forgotten first */
+    private static final int MAX_BASELINE_ORIGINS = 256;
+    /** Latest wait on a pooled connection per origin; the baseline for estimating connection setup */
+    private static final Map<String, Long> POOLED_WAIT_BY_ORIGIN = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_BASELINE_ORIGINS;
+            }
+        });
+    /** A connection idle for less than this fraction of the keep-alive timeout is left alone by warm-ups */
+    private static final double WARM_UP_IDLE_FRACTION = 0.75;
+    /** Request bodies at least this large show upload progress in the status bar */
+    private static final long UPLOAD_PROGRESS_THRESHOLD = 1024 * 1024;
+
+    private final HttpClientRegistry clientRegistry;
+    private final DnsCache dnsCache;
     private final Gson gson;
 
     public HttpRequestExecutor() {
-        this.clientFactory = new HttpClientFactory();
+        this.clientRegistry = HttpClientRegistry.getInstance();
+        this.dnsCache = DnsCache.getInstance();
         this.gson = new Gson();
     }
 
     /**
-     * Execute an HTTP request with the given API call details
+     * Execute an HTTP request with the given API call details, blocking until the response body is read.
+     * Interrupting the calling thread cancels the exchange.
      */
     public HttpCallResult execute(ApiCall apiCall, Map<String, String> resolvedHeaders,
                                    Map<String, String> resolvedBody) {
-        try {
-            String url = apiCall.getUrl();
+        return AsyncCalls.await(executeAsync(apiCall, resolvedHeaders, resolvedBody));
+    }
 
-            // Build the request
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30));
+    /**
+     * Execute an HTTP request without blocking. The host lookup runs on a virtual thread and the exchange
+     * on the HttpClient's own threads, so no caller thread waits while the call is in flight.
+     * The future always completes with a result, an error result if the call failed; cancelling it
+     * aborts the exchange.
+     */
+    public CompletableFuture<HttpCallResult> executeAsync(ApiCall apiCall, Map<String, String> resolvedHeaders,
+                                                          Map<String, String> resolvedBody) {
+        return executeAsync(apiCall, resolvedHeaders, resolvedBody, RequestOptions.DEFAULT);
+    }
 
-            // Add headers
-            for (Map.Entry<String, String> header : resolvedHeaders.entrySet()) {
-                requestBuilder.header(header.getKey(), header.getValue());
+    /**
+     * Execute an HTTP request without blocking, with the given timeouts, pre-encoded body and stream listener.
+     * A streamed response is passed to the listener as it arrives; the whole body is still collected for the result.
+     */
+    public CompletableFuture<HttpCallResult> executeAsync(ApiCall apiCall, Map<String, String> resolvedHeaders,
+                                                          Map<String, String> resolvedBody, RequestOptions options) {
+        Timeouts timeouts = options.getTimeouts();
+        StreamListener streamListener = options.getStreamListener();
+        HttpRequest request;
+        ClientProfile profile;
+        UploadProgressPublisher upload = null;
+        try {
+            RequestBody requestBody = null;
+            if (sendsBody(apiCall.getHttpMethod())) {
+                requestBody = RequestBody.forCall(apiCall, resolvedBody, options.getEncodedBody(), gson);
+                boolean showProgress = requestBody.isStreamed()
+                    || requestBody.getPublisher().contentLength() >= UPLOAD_PROGRESS_THRESHOLD;
+                upload = new UploadProgressPublisher(requestBody.getPublisher(),
+                    showProgress ? progress -> ApplicationState.getInstance().setSummary(
+                        ApplicationState.SUMMARY_UPLOAD, progress.format()) : null);
+            }
+            request = buildRequest(apiCall, resolvedHeaders, requestBody, upload, timeouts.getRead());
+            profile = chooseProfile(apiCall.getUrl()).withProxy(options.getProxy())
+                .withConnectTimeout(timeouts.getConnect());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(HttpCallResult.failed(e));
+        }
+        UploadProgressPublisher uploadProgress = upload;
+        HttpClient clientToUse = clientRegistry.acquire(profile);
+        URI uri = request.uri();
+
+        CompletableFuture<HttpCallResult> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<>();
+        // [0] lookup start, [1] send start, [2] response headers received
+        long[] marks = new long[3];
+        boolean[] connectionReused = new boolean[1];
+        AtomicReference<DecompressingSubscriber<ResponseBody>> decoder = new AtomicReference<>();
+
+        // Resolve up front so the lookup is timed on its own; the client then finds the address in the DNS cache.
+        // A cached host is answered in microseconds, so only real lookups are moved to a virtual thread.
+        // Through a proxy the proxy resolves the host, so there is nothing to look up here.
+        marks[0] = System.nanoTime();
+        CompletableFuture<Void> lookup;
+        if (options.getProxy() != null || !needsLookup(uri)) {
+            lookup = CompletableFuture.completedFuture(null);
+        } else if (dnsCache.isCached(uri.getHost())) {
+            lookup = resolveCached(uri);
+        } else {
+            lookup = CompletableFuture.runAsync(() -> resolveHost(uri), LOOKUP_EXECUTOR);
+        }
+        inFlight.set(lookup);
+
+        lookup.thenCompose(ignored -> {
+            marks[1] = System.nanoTime();
+            connectionReused[0] = clientRegistry.hasLiveConnection(profile, uri);
+
+            // Collect the body as it arrives, spooling large responses to disk instead of the heap
+            // and decoding gzip/deflate on the way in
+            CompletableFuture<HttpResponse<ResponseBody>> exchange = clientToUse.sendAsync(request, responseInfo -> {
+                marks[2] = System.nanoTime();
+                Charset charset = charsetOf(responseInfo.headers());
+                String contentType = responseInfo.headers().firstValue("Content-Type").orElse(null);
+                HttpResponse.BodySubscriber<ResponseBody> body;
+                if (streamListener != null && StreamingSubscriber.isStreamed(apiCall.getStream(), contentType)) {
+                    // A stream may never end: its events go to the listener and only its tail is kept.
+                    // Events are split from the decoded bytes, so the stream sits inside the decompressor.
+                    body = StreamingSubscriber.wrap(ResponseBody.tailSubscriber(charset, ResponseBody.STREAM_TAIL_SIZE),
+                        responseInfo.statusCode(), contentType, charset, streamListener);
+                } else {
+                    body = ResponseBody.subscriber(charset, ResponseBody.DEFAULT_MEMORY_LIMIT);
+                }
+                DecompressingSubscriber<ResponseBody> decoding = DecompressingSubscriber.forEncoding(
+                    responseInfo.headers().firstValue("Content-Encoding").orElse(null), body);
+                decoder.set(decoding);
+                return decoding != null ? decoding : body;
+            });
+            inFlight.set(exchange);
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+            return exchange;
+        }).whenComplete((response, error) -> {
+            if (uploadProgress != null) {
+                // The server may answer or the call may fail before the whole body was sent
+                uploadProgress.reportStopped();
+            }
+            if (error != null) {
+                Throwable cause = AsyncCalls.unwrap(error);
+                if (!(cause instanceof CancellationException)) {
+                    cause.printStackTrace();
+                }
+                result.complete(HttpCallResult.failed(cause instanceof Exception ? (Exception) cause
+                    : new RuntimeException(cause)));
+                return;
             }
 
-            // Set the HTTP method and body
-            String method = apiCall.getHttpMethod().toUpperCase();
-            String bodyContent = buildBodyContent(resolvedBody);
+            long endTime = System.nanoTime();
+            PhaseTimings timings = measurePhases(uri, connectionReused[0], marks[1] - marks[0],
+                uploadProgress != null ? uploadProgress.getSendNanos() : 0,
+                uploadProgress != null ? uploadProgress.getBytesSent() : 0,
+                marks[2] - marks[1], endTime - marks[2]);
+
+            DecompressingSubscriber<ResponseBody> decoding = decoder.get();
+            CompressionStats compression = decoding != null
+                ? new CompressionStats(decoding.getEncoding(), decoding.getWireBytes(), decoding.getDecodedBytes())
+                : null;
+
+            clientRegistry.recordExchange(profile, uri);
+            ApplicationState.getInstance().setSummary(ApplicationState.SUMMARY_CONNECTION_POOL,
+                clientRegistry.getStatistics().summary());
+
+            result.complete(HttpCallResult.builder(response.statusCode())
+                .body(response.body())
+                .headers(response.headers().map())
+                .duration(Math.round(timings.getTotalNanos() / 1_000_000.0))
+                .protocolVersion(response.version())
+                .phaseTimings(timings)
+                .compression(compression)
+                .build());
+        });
+
+        // Cancelling the result aborts whichever stage is running
+        result.whenComplete((ignored, error) -> {
+            if (result.isCancelled()) {
+                inFlight.get().cancel(true);
+            }
+            clientRegistry.release(profile);
+        });
+        return result;
+    }
 
-            applyHttpMethod(requestBuilder, method, bodyContent, resolvedHeaders);
+    /**
+     * Open a WebSocket and send the script's messages, passing every incoming message to a listener.
+     * The future completes with a summary of the session when the connection closes; cancelling it
+     * aborts the connection. See {@link WebSocketSession}.
+     *
+     * @param url a ws, wss, http or https URL
+     * @param options connect and read timeouts, and the listener that receives the incoming messages
+     */
+    public CompletableFuture<HttpCallResult> openWebSocket(String url, Map<String, String> resolvedHeaders,
+                                                           WebSocketScript script, RequestOptions options) {
+        ClientProfile profile;
+        URI uri;
+        try {
+            uri = WebSocketSession.toWebSocketUri(url);
+            profile = chooseProfile(url).withProxy(options.getProxy());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(HttpCallResult.failed(e));
+        }
+        HttpClient client = clientRegistry.acquire(profile);
+        try {
+            CompletableFuture<HttpCallResult> session = WebSocketSession.open(client, uri, resolvedHeaders, script,
+                options.getTimeouts(), options.getStreamListener());
+            // The session's own future is returned so that cancelling it still aborts the connection
+            session.whenComplete((ignored, error) -> clientRegistry.release(profile));
+            return session;
+        } catch (Exception e) {
+            clientRegistry.release(profile);
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(HttpCallResult.failed(e));
+        }
+    }
 
-            HttpRequest request = requestBuilder.build();
+    /**
+     * Make sure the shared client holds a connection to an origin, opening one with a HEAD request to the
+     * origin's root unless a connection was used recently enough to stay open for a while yet.
+     * Only the connection matters: any response counts as success and its body is discarded.
+     * The future completes with whether a connection is now open; it never fails.
+     *
+     * @param proxy the "host:port" proxy the origin's calls go through, or null for a direct connection
+     */
+    public CompletableFuture<Boolean> warmUp(URI origin, HttpClient.Version version, String proxy) {
+        ClientProfile profile = chooseProfile(origin.toString()).withProxy(proxy);
+        long keepAlive = HttpClientRegistry.PoolStatistics.getKeepAliveNanos();
+        if (clientRegistry.getIdleNanos(profile, origin) < keepAlive * WARM_UP_IDLE_FRACTION) {
+            return CompletableFuture.completedFuture(true);
+        }
 
-            // Choose the appropriate HTTP client based on URL
-            HttpClient clientToUse = clientFactory.createStandardClient();
-            boolean isLocalhost = isLocalhostUrl(url);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+            .uri(origin)
+            .timeout(Duration.ofSeconds(10))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody());
+        if (version != null) {
+            requestBuilder.version(version);
+        }
+        return clientRegistry.acquire(profile)
+            .sendAsync(requestBuilder.build(), HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                clientRegistry.release(profile);
+                if (error != null) {
+                    // Counted by the caller; the call that uses the origin reports the actual failure
+                    return false;
+                }
+                clientRegistry.recordWarmUp(profile, origin);
+                ApplicationState.getInstance().setSummary(ApplicationState.SUMMARY_CONNECTION_POOL,
+                    clientRegistry.getStatistics().summary());
+                return true;
+            });
+    }
 
-            if (isLocalhost) {
-                System.out.println("Using insecure SSL context for localhost URL");
+    /**
+     * Build the request: URL, protocol, read timeout, headers, method and body
+     */
+    private HttpRequest buildRequest(ApiCall apiCall, Map<String, String> resolvedHeaders,
+                                     RequestBody requestBody, UploadProgressPublisher upload, Duration readTimeout) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+            .uri(URI.create(apiCall.getUrl()));
+        // The timeout covers everything up to the response headers, so a large upload would exceed it;
+        // streamed uploads are bounded by the total timeout instead
+        if (readTimeout != null && (requestBody == null || !requestBody.isStreamed())) {
+            requestBuilder.timeout(readTimeout);
+        }
 
-                try {
-                    verifyHostnameResolution(url);
-                    clientToUse = clientFactory.createInsecureClient();
-                } catch (UnknownHostException e) {
-                    System.out.println("Could not resolve hostname via system DNS, falling back to default client");
+        // Pin the protocol if the call or environment asks for one; otherwise the client negotiates
+        HttpClient.Version version = EnvironmentSettings.parseHttpVersion(apiCall.getHttpVersion());
+        if (version != null) {
+            requestBuilder.version(version);
+        }
+
+        // Add headers
+        boolean acceptEncodingSet = false;
+        boolean contentTypeSet = false;
+        for (Map.Entry<String, String> header : resolvedHeaders.entrySet()) {
+            if ("Content-Type".equalsIgnoreCase(header.getKey())) {
+                if (requestBody != null && requestBody.isContentTypeRequired()) {
+                    continue;
                 }
+                contentTypeSet = true;
             }
+            requestBuilder.header(header.getKey(), header.getValue());
+            acceptEncodingSet |= "Accept-Encoding".equalsIgnoreCase(header.getKey());
+        }
+        // Advertise compression unless the call sets its own Accept-Encoding
+        if (Boolean.TRUE.equals(apiCall.getCompression()) && !acceptEncodingSet) {
+            requestBuilder.header("Accept-Encoding", "gzip, deflate");
+        }
 
-            // Execute the request
-            long startTime = System.currentTimeMillis();
-            HttpResponse<String> response = clientToUse.send(request, HttpResponse.BodyHandlers.ofString());
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
+        // Set the HTTP method and body
+        String method = apiCall.getHttpMethod().toUpperCase();
+        String contentType = requestBody != null && !contentTypeSet ? requestBody.getContentType() : null;
 
-            return new HttpCallResult(
-                response.statusCode(),
-                response.body(),
-                response.headers().map(),
-                duration,
-                null
-            );
+        applyHttpMethod(requestBuilder, method, upload, contentType);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new HttpCallResult(
-                0,
-                "Error: " + e.getMessage(),
-                new HashMap<>(),
-                0,
-                e
-            );
+        return requestBuilder.build();
+    }
+
+    /**
+     * Choose the appropriate shared HTTP client based on URL
+     */
+    private ClientProfile chooseProfile(String url) {
+        ClientProfile profile = ClientProfile.standard();
+        boolean isLocalhost = isLocalhostUrl(url);
+
+        if (isLocalhost) {
+            try {
+                verifyHostnameResolution(url);
+                profile = ClientProfile.insecureLocalhost();
+            } catch (UnknownHostException e) {
+                System.out.println("Could not resolve hostname via system DNS, falling back to default client");
+            }
         }
+        return profile;
+    }
+
+    /**
+     * Whether requests with this method carry the call's body
+     */
+    private static boolean sendsBody(String method) {
+        String upper = method != null ? method.toUpperCase() : "";
+        return upper.equals("POST") || upper.equals("PUT") || upper.equals("PATCH");
     }
 
     /**
      * Apply the HTTP method and body to the request builder
+     *
+     * @param contentType Content-Type to add for methods with a body, or null if the call sets its own
      */
     private void applyHttpMethod(HttpRequest.Builder requestBuilder, String method,
-                                  String bodyContent, Map<String, String> headers) {
+                                  HttpRequest.BodyPublisher body, String contentType) {
         switch (method) {
             case "GET":
                 requestBuilder.GET();
                 break;
             case "POST":
-                requestBuilder.POST(HttpRequest.BodyPublishers.ofString(bodyContent));
-                if (!headers.containsKey("Content-Type")) {
-                    requestBuilder.header("Content-Type", "application/json");
+                requestBuilder.POST(body);
+                if (contentType != null) {
+                    requestBuilder.header("Content-Type", contentType);
                 }
                 break;
             case "PUT":
-                requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(bodyContent));
-                if (!headers.containsKey("Content-Type")) {
-                    requestBuilder.header("Content-Type", "application/json");
+                requestBuilder.PUT(body);
+                if (contentType != null) {
+                    requestBuilder.header("Content-Type", contentType);
                 }
                 break;
             case "DELETE":
                 requestBuilder.DELETE();
                 break;
             case "PATCH":
-                requestBuilder.method("PATCH", HttpRequest.BodyPublishers.ofString(bodyContent));
-                if (!headers.containsKey("Content-Type")) {
-                    requestBuilder.header("Content-Type", "application/json");
+                requestBuilder.method("PATCH", body);
+                if (contentType != null) {
+                    requestBuilder.header("Content-Type", contentType);
                 }
                 break;
             case "HEAD":
@@ -147,7 +407,7 @@ public class HttpRequestExecutor {
     }
 
     /**
-     * Verify hostname resolution using system DNS before making the request
+     * Verify the hostname resolves before making the request; answered from the DNS cache after the first call
      */
     private void verifyHostnameResolution(String url) throws UnknownHostException {
         try {
@@ -155,11 +415,7 @@ public class HttpRequestExecutor {
             String host = uri.getHost();
 
             if (host != null) {
-                InetAddress[] addresses = InetAddress.getAllByName(host);
-                System.out.println("Resolved " + host + " to: ");
-                for (InetAddress addr : addresses) {
-                    System.out.println("  - " + addr.getHostAddress());
-                }
+                dnsCache.resolve(host);
             }
         } catch (UnknownHostException e) {
             System.err.println("Failed to resolve hostname: " + e.getMessage());
@@ -168,39 +424,230 @@ public class HttpRequestExecutor {
     }
 
     /**
-     * Build JSON body content from key-value pairs
+     * Whether the request's host needs a lookup; IP literals do not
+     */
+    private boolean needsLookup(URI uri) {
+        String host = uri.getHost();
+        return host != null && !host.startsWith("[") && host.indexOf(':') < 0
+            && !host.chars().allMatch(c -> Character.isDigit(c) || c == '.');
+    }
+
+    private void resolveHost(URI uri) {
+        try {
+            dnsCache.resolve(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Resolve a host known to be cached on the calling thread; a cached failure fails the call at once
+     */
+    private CompletableFuture<Void> resolveCached(URI uri) {
+        try {
+            resolveHost(uri);
+            return CompletableFuture.completedFuture(null);
+        } catch (CompletionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    /**
+     * Split the time to first byte into connection setup, sending and waiting. On a new connection, setup
+     * is whatever the wait exceeds the last pooled wait to the same origin by.
      */
-    private String buildBodyContent(Map<String, String> body) {
-        if (body == null || body.isEmpty()) {
-            return "";
+    private PhaseTimings measurePhases(URI uri, boolean connectionReused, long dnsNanos, long sendNanos,
+                                       long requestBytes, long timeToFirstByteNanos, long transferNanos) {
+        String origin = HttpClientRegistry.PoolStatistics.originOf(uri);
+        long waitNanos = Math.max(0, timeToFirstByteNanos - sendNanos);
+        if (connectionReused) {
+            POOLED_WAIT_BY_ORIGIN.put(origin, waitNanos);
+            return new PhaseTimings(dnsNanos, 0, sendNanos, requestBytes, waitNanos, transferNanos, true);
+        }
+
+        Long pooledWait = POOLED_WAIT_BY_ORIGIN.get(origin);
+        if (pooledWait == null) {
+            return new PhaseTimings(dnsNanos, PhaseTimings.NOT_MEASURED, sendNanos, requestBytes, waitNanos,
+                transferNanos, false);
+        }
+        long connectNanos = Math.max(0, waitNanos - pooledWait);
+        return new PhaseTimings(dnsNanos, connectNanos, sendNanos, requestBytes, waitNanos - connectNanos,
+            transferNanos, false);
+    }
+
+    /**
+     * Determine the body charset from the Content-Type header, defaulting to UTF-8
+     */
+    private Charset charsetOf(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase().startsWith("charset=")) {
+                try {
+                    return Charset.forName(trimmed.substring("charset=".length()).replace("\"", "").trim());
+                } catch (Exception e) {
+                    System.err.println("Unsupported response charset '" + trimmed + "', using UTF-8");
+                }
+            }
         }
-        return gson.toJson(body);
+        return StandardCharsets.UTF_8;
     }
 
     /**
      * Result object for HTTP calls
      */
     public static class HttpCallResult {
+        // Larger bodies are shown as-is; re-formatting them would copy the whole body several times
+        private static final int PRETTY_PRINT_LIMIT = 1024 * 1024;
+
         private final int statusCode;
-        private final String body;
+        private final ResponseBody body;
         private final Map<String, java.util.List<String>> headers;
         private final long duration;
         private final Exception error;
+        private final HttpClient.Version protocolVersion;
+        private final PhaseTimings phaseTimings;
+        private final CompressionStats compression;
+        private final java.util.List<CallAttempt> attempts;
+        private final String cacheStatus;
+
+        private HttpCallResult(Builder builder) {
+            this.statusCode = builder.statusCode;
+            this.body = builder.body;
+            this.headers = builder.headers;
+            this.duration = builder.duration;
+            this.error = builder.error;
+            this.protocolVersion = builder.protocolVersion;
+            this.phaseTimings = builder.phaseTimings;
+            this.compression = builder.compression;
+            this.attempts = builder.attempts != null ? java.util.List.copyOf(builder.attempts) : java.util.List.of();
+            this.cacheStatus = builder.cacheStatus;
+        }
+
+        /**
+         * Result for a call that produced no response
+         */
+        public static HttpCallResult failed(Exception error) {
+            return builder(0).body("Error: " + error.getMessage()).error(error).build();
+        }
+
+        /**
+         * Result for a call that was stopped before it completed
+         */
+        public static HttpCallResult cancelled() {
+            return failed(new CancellationException("Call cancelled"));
+        }
+
+        /**
+         * Start building a result for a response with the given status code
+         */
+        public static Builder builder(int statusCode) {
+            return new Builder(statusCode);
+        }
+
+        /**
+         * A builder holding this result's values, for a copy that differs in some of them
+         */
+        public Builder toBuilder() {
+            return builder(statusCode).body(body).headers(headers).duration(duration).error(error)
+                .protocolVersion(protocolVersion).phaseTimings(phaseTimings).compression(compression)
+                .attempts(attempts).cacheStatus(cacheStatus);
+        }
+
+        /**
+         * Builds a result; everything but the status code is optional
+         */
+        public static final class Builder {
+            private final int statusCode;
+            private ResponseBody body = ResponseBody.ofString("");
+            private Map<String, java.util.List<String>> headers = new HashMap<>();
+            private long duration;
+            private Exception error;
+            private HttpClient.Version protocolVersion;
+            private PhaseTimings phaseTimings;
+            private CompressionStats compression;
+            private java.util.List<CallAttempt> attempts;
+            private String cacheStatus;
+
+            private Builder(int statusCode) {
+                this.statusCode = statusCode;
+            }
 
-        public HttpCallResult(int statusCode, String body, Map<String, java.util.List<String>> headers,
-                            long duration, Exception error) {
-            this.statusCode = statusCode;
-            this.body = body;
-            this.headers = headers;
-            this.duration = duration;
-            this.error = error;
+            public Builder body(ResponseBody body) {
+                this.body = body;
+                return this;
+            }
+
+            public Builder body(String body) {
+                return body(ResponseBody.ofString(body));
+            }
+
+            public Builder headers(Map<String, java.util.List<String>> headers) {
+                this.headers = headers;
+                return this;
+            }
+
+            /**
+             * Duration in milliseconds
+             */
+            public Builder duration(long duration) {
+                this.duration = duration;
+                return this;
+            }
+
+            public Builder error(Exception error) {
+                this.error = error;
+                return this;
+            }
+
+            public Builder protocolVersion(HttpClient.Version protocolVersion) {
+                this.protocolVersion = protocolVersion;
+                return this;
+            }
+
+            public Builder phaseTimings(PhaseTimings phaseTimings) {
+                this.phaseTimings = phaseTimings;
+                return this;
+            }
+
+            public Builder compression(CompressionStats compression) {
+                this.compression = compression;
+                return this;
+            }
+
+            /**
+             * Every request sent for the call when it ran under a retry policy
+             */
+            public Builder attempts(java.util.List<CallAttempt> attempts) {
+                this.attempts = attempts;
+                return this;
+            }
+
+            /**
+             * How the HTTP cache answered the call
+             */
+            public Builder cacheStatus(String cacheStatus) {
+                this.cacheStatus = cacheStatus;
+                return this;
+            }
+
+            public HttpCallResult build() {
+                return new HttpCallResult(this);
+            }
         }
 
         public int getStatusCode() {
             return statusCode;
         }
 
+        /**
+         * The body text; for spooled bodies only the in-memory preview, for long streams only their tail
+         */
         public String getBody() {
+            return body.getText();
+        }
+
+        public ResponseBody getResponseBody() {
             return body;
         }
 
@@ -216,18 +663,83 @@ public class HttpRequestExecutor {
             return error;
         }
 
+        /**
+         * The protocol the server actually answered with, or null if no response was received
+         */
+        public HttpClient.Version getProtocolVersion() {
+            return protocolVersion;
+        }
+
+        /**
+         * Per-phase timings of the exchange, or null if no response was received
+         */
+        public PhaseTimings getPhaseTimings() {
+            return phaseTimings;
+        }
+
+        /**
+         * Wire and decoded sizes if the response body was compressed, otherwise null
+         */
+        public CompressionStats getCompression() {
+            return compression;
+        }
+
+        /**
+         * Every request sent for the call when it ran under a retry policy, in the order they were sent;
+         * empty otherwise
+         */
+        public java.util.List<CallAttempt> getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * How the HTTP cache answered the call (HttpResponseCache.HIT, REVALIDATED or MISS),
+         * or null if the cache was not used
+         */
+        public String getCacheStatus() {
+            return cacheStatus;
+        }
+
         public boolean isSuccess() {
-            return error == null && statusCode >= 200 && statusCode < 300;
+            // 101 is a WebSocket session that opened and closed cleanly
+            return error == null && (statusCode >= 200 && statusCode < 300 || statusCode == 101);
+        }
+
+        /**
+         * Whether the call was stopped, by the user or by its run, rather than failing
+         */
+        public boolean isCancelled() {
+            return error instanceof CancellationException || error instanceof InterruptedException;
         }
 
         public String formatResponse() {
+            if (isCancelled()) {
+                StringBuilder cancelled = new StringBuilder("Cancelled\n\n");
+                appendAttempts(cancelled);
+                return cancelled.toString();
+            }
             if (error != null) {
-                return "Error: " + error.getMessage() + "\n\nStack trace:\n" + getStackTraceString(error);
+                StringBuilder failure = new StringBuilder("Error: ").append(error.getMessage()).append("\n\n");
+                appendAttempts(failure);
+                return failure.append("Stack trace:\n").append(getStackTraceString(error)).toString();
             }
 
             StringBuilder sb = new StringBuilder();
             sb.append("Status: ").append(statusCode).append("\n");
+            if (protocolVersion != null) {
+                sb.append("Protocol: ").append(EnvironmentSettings.label(protocolVersion)).append("\n");
+            }
+            if (cacheStatus != null) {
+                sb.append("Cache: ").append(cacheStatus).append("\n");
+            }
+            if (compression != null) {
+                sb.append("Compression: ").append(compression.format()).append("\n");
+            }
+            if (phaseTimings != null && phaseTimings.getRequestBytes() > 0) {
+                sb.append("Upload: ").append(phaseTimings.formatUpload()).append("\n");
+            }
             sb.append("Duration: ").append(duration).append(" ms\n\n");
+            appendAttempts(sb);
             sb.append("Headers:\n");
             for (Map.Entry<String, java.util.List<String>> entry : headers.entrySet()) {
                 sb.append("  ").append(entry.getKey()).append(": ");
@@ -235,10 +747,24 @@ public class HttpRequestExecutor {
                 sb.append("\n");
             }
 
+            if (body.isSpooled()) {
+                sb.append("\nBody (").append(body.getSize()).append(" bytes, spooled to ")
+                    .append(body.getSpoolFile()).append("; showing the first ")
+                    .append(ResponseBody.PREVIEW_SIZE / 1024).append(" KB):\n");
+                sb.append(body.getText());
+                return sb.toString();
+            }
+            if (body.isTruncated()) {
+                sb.append("\nBody (").append(body.getDroppedBytes() + body.getSize())
+                    .append(" bytes streamed; showing the last ").append(body.getSize() / 1024).append(" KB):\n");
+                sb.append(body.getText());
+                return sb.toString();
+            }
+
             // Pretty-print JSON if applicable
-            String formattedBody = body;
-            if (isJsonResponse()) {
-                formattedBody = prettyPrintJson(body);
+            String formattedBody = body.getText();
+            if (body.getSize() <= PRETTY_PRINT_LIMIT && isJsonResponse(formattedBody)) {
+                formattedBody = prettyPrintJson(formattedBody);
             }
 
             sb.append("\nBody:\n").append(formattedBody);
@@ -246,10 +772,24 @@ public class HttpRequestExecutor {
             return sb.toString();
         }
 
+        /**
+         * List the attempts if more than one request was sent
+         */
+        private void appendAttempts(StringBuilder sb) {
+            if (attempts.size() < 2) {
+                return;
+            }
+            sb.append("Attempts:\n");
+            for (CallAttempt attempt : attempts) {
+                sb.append("  ").append(attempt.format()).append("\n");
+            }
+            sb.append("\n");
+        }
+
         /**
          * Check if the response is JSON based on Content-Type header
          */
-        private boolean isJsonResponse() {
+        private boolean isJsonResponse(String body) {
             if (headers == null) {
                 return false;
             }
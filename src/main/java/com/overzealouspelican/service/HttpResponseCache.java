@@ -0,0 +1,533 @@
+package com.overzealouspelican.service;
+
+import com.google.gson.Gson;
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Client-side HTTP cache for GET calls, following the caching rules of RFC 9111 as a private cache.
+ * Follows the Singleton pattern so every call shares the same stored responses.
+ * Small responses are kept in memory; every stored response is also written to the http-cache folder
+ * of the data directory so it survives restarts. Both tiers are bounded by size and evict the least
+ * recently used responses first.
+ * A fresh response is returned without contacting the server; a stale one with an ETag or Last-Modified
+ * is revalidated with a conditional request, and a 304 answer returns the stored body.
+ * Responses to requests that carry credentials (Authorization, Cookie or Proxy-Authorization) are stored
+ * under a hash of those headers, so they are only returned for the same credentials, and are kept in
+ * memory only, never written to disk.
+ * Results report how the cache answered via {@link HttpCallResult#getCacheStatus()}.
+ * Enabled per environment with protocaller.httpCache; protocaller.httpCacheSize bounds the disk tier.
+ */
+public class HttpResponseCache {
+
+    /** Answered from the cache without contacting the server */
+    public static final String HIT = "hit";
+    /** The server confirmed the stored response is still current */
+    public static final String REVALIDATED = "revalidated";
+    /** Answered by the server */
+    public static final String MISS = "miss";
+
+    static final String CACHE_DIRECTORY = "http-cache";
+    private static final long MEMORY_LIMIT_BYTES = 32L * 1024 * 1024;
+    /** Larger bodies are only kept on disk so a few big downloads cannot flush the memory tier */
+    private static final long MEMORY_ENTRY_LIMIT_BYTES = 1024 * 1024;
+    private static final int DEFAULT_DISK_LIMIT_MB = 256;
+    /** Request headers that make the caller responsible for conditional or partial requests */
+    private static final Set<String> CALLER_CONDITIONS = Set.of("if-none-match", "if-modified-since", "if-match",
+        "if-unmodified-since", "if-range", "range");
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    /** Request headers that identify the caller; responses to them are stored per credentials and in memory only */
+    private static final Set<String> CREDENTIAL_HEADERS = Set.of("authorization", "cookie", "proxy-authorization");
+
+    private static HttpResponseCache instance;
+
+    private final Gson gson;
+    private final StoragePathService storagePathService;
+    /** Writes and deletes cache files one at a time, off the calling thread */
+    private final ExecutorService writer;
+    /** Entries by cache key in least recently used order, with their bodies if small enough. Guarded by this. */
+    private final LinkedHashMap<String, Stored> memory;
+    private long memoryBytes;
+    /** Sizes of the entries on disk by file name, in least recently used order. Guarded by this. */
+    private final LinkedHashMap<String, Long> diskIndex;
+    private Path indexedDirectory;
+    private long diskBytes;
+    private long diskLimitBytes;
+
+    private HttpResponseCache() {
+        this.gson = new Gson();
+        this.storagePathService = new StoragePathService();
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-cache-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.memory = new LinkedHashMap<>(16, 0.75f, true);
+        this.diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+        this.diskLimitBytes = DEFAULT_DISK_LIMIT_MB * 1024L * 1024;
+    }
+
+    /**
+     * Get the singleton instance of HttpResponseCache
+     */
+    public static synchronized HttpResponseCache getInstance() {
+        if (instance == null) {
+            instance = new HttpResponseCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether the environment turns the cache on
+     */
+    public static boolean isEnabled(Map<String, String> environmentVariables) {
+        return Boolean.TRUE.equals(EnvironmentSettings.parseSwitch(EnvironmentSettings.HTTP_CACHE,
+            environmentVariables.get(EnvironmentSettings.HTTP_CACHE)));
+    }
+
+    /**
+     * Answer a call from the cache where the caching rules allow, otherwise through {@code network}, which
+     * sends the request with the headers it is given (the call's own, plus validators when revalidating).
+     * Cancelling the returned future cancels the request in flight.
+     */
+    public CompletableFuture<HttpCallResult> execute(String method, String url, Map<String, String> headers,
+                                                     Map<String, String> environmentVariables,
+                                                     Function<Map<String, String>, CompletableFuture<HttpCallResult>> network) {
+        String upperMethod = method.toUpperCase(Locale.ROOT);
+        if (!"GET".equals(upperMethod)) {
+            if (SAFE_METHODS.contains(upperMethod)) {
+                return network.apply(headers);
+            }
+            // A successful unsafe request may have changed what the URL returns (RFC 9111 section 4.4)
+            return map(network.apply(headers), result -> {
+                if (result.getError() == null && result.getStatusCode() >= 200 && result.getStatusCode() < 400) {
+                    invalidate(url);
+                }
+                return result;
+            });
+        }
+        if (hasCallerConditions(headers)) {
+            return network.apply(headers);
+        }
+
+        Integer diskLimitMb = EnvironmentSettings.parseCount(EnvironmentSettings.HTTP_CACHE_SIZE,
+            environmentVariables.get(EnvironmentSettings.HTTP_CACHE_SIZE));
+        synchronized (this) {
+            diskLimitBytes = (diskLimitMb != null ? diskLimitMb : DEFAULT_DISK_LIMIT_MB) * 1024L * 1024;
+        }
+
+        long startNanos = System.nanoTime();
+        String credentials = credentialsHash(headers);
+        String key = credentials != null ? url + "\n" + credentials : url;
+        Map<String, String> requestDirectives = CachedResponse.requestDirectives(headers);
+        Stored stored = requestDirectives.containsKey("no-store") ? null : lookup(key, url, credentials != null);
+        if (stored != null && !stored.entry.matches(headers)) {
+            stored = null; // Stored for a different variant of the request
+        }
+
+        if (stored != null && stored.entry.isFresh(System.currentTimeMillis(), requestDirectives)) {
+            HttpCallResult hit = toResult(stored, (System.nanoTime() - startNanos) / 1_000_000, HIT);
+            if (hit != null) {
+                return CompletableFuture.completedFuture(hit);
+            }
+            stored = null; // The body went missing; fetch it again
+        }
+
+        long requestTime = System.currentTimeMillis();
+        if (stored != null && stored.entry.hasValidators()) {
+            Stored validated = stored;
+            Map<String, String> conditional = new LinkedHashMap<>(headers);
+            if (validated.entry.getETag() != null) {
+                conditional.put("If-None-Match", validated.entry.getETag());
+            }
+            if (validated.entry.getLastModified() != null) {
+                conditional.put("If-Modified-Since", validated.entry.getLastModified());
+            }
+            return map(network.apply(conditional), result -> {
+                if (result.getError() == null && result.getStatusCode() == 304) {
+                    Stored refreshed = new Stored(validated.entry.revalidated(result, requestTime,
+                        System.currentTimeMillis()), validated.body);
+                    HttpCallResult revalidated = toResult(refreshed, result.getDuration(), REVALIDATED);
+                    if (revalidated != null) {
+                        storeRevalidated(key, url, refreshed, credentials != null);
+                        return revalidated.toBuilder().attempts(result.getAttempts()).build();
+                    }
+                    // The stored body went missing; the 304 is all there is to show
+                }
+                return store(key, url, credentials != null, headers, requestDirectives, result, requestTime);
+            });
+        }
+        return map(network.apply(headers),
+            result -> store(key, url, credentials != null, headers, requestDirectives, result, requestTime));
+    }
+
+    /**
+     * Remove the stored responses for a URL, for any credentials
+     */
+    public void invalidate(String url) {
+        String name = fileName(url);
+        synchronized (this) {
+            Iterator<Stored> entries = memory.values().iterator();
+            while (entries.hasNext()) {
+                Stored stored = entries.next();
+                if (url.equals(stored.entry.getUrl())) {
+                    entries.remove();
+                    if (stored.body != null) {
+                        memoryBytes -= stored.body.length;
+                    }
+                }
+            }
+        }
+        writer.execute(() -> {
+            synchronized (this) {
+                Long size = diskIndex.remove(name);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            deleteFiles(name);
+        });
+    }
+
+    /**
+     * Store a response under its cache key. A response to a credentialed request is only kept if its body
+     * fits in memory, since it is never written to disk.
+     */
+    private HttpCallResult store(String key, String url, boolean credentialed, Map<String, String> headers,
+                                 Map<String, String> requestDirectives, HttpCallResult result, long requestTime) {
+        if (result.getError() != null) {
+            return result;
+        }
+        // Only the tail of a long stream was kept, so there is no whole body to store
+        if (!CachedResponse.isStorable(requestDirectives, result) || result.getResponseBody().isTruncated()) {
+            if (!requestDirectives.containsKey("no-store")) {
+                invalidate(url); // Whatever was stored has been superseded
+            }
+            return result.toBuilder().cacheStatus(MISS).build();
+        }
+
+        CachedResponse entry = CachedResponse.of(url, headers, result, requestTime, System.currentTimeMillis());
+        ResponseBody body = result.getResponseBody();
+        byte[] bytes = body.getBytesIfInMemory();
+        Stored stored = new Stored(entry, bytes != null && bytes.length <= MEMORY_ENTRY_LIMIT_BYTES ? bytes : null);
+        if (credentialed) {
+            if (stored.body != null) {
+                remember(key, stored);
+            }
+        } else {
+            remember(key, stored);
+            writer.execute(() -> writeToDisk(url, entry, body));
+        }
+        return result.toBuilder().cacheStatus(MISS).build();
+    }
+
+    private void storeRevalidated(String key, String url, Stored refreshed, boolean credentialed) {
+        remember(key, refreshed);
+        if (credentialed) {
+            return;
+        }
+        writer.execute(() -> {
+            String name = fileName(url);
+            try {
+                Path directory = directory();
+                if (Files.exists(directory.resolve(name + ".body"))) {
+                    writeAtomically(directory.resolve(name + ".json"),
+                        gson.toJson(refreshed.entry).getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to update cached response for " + url + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Find the stored response for a cache key, in memory or else, without credentials, on disk
+     */
+    private Stored lookup(String key, String url, boolean credentialed) {
+        synchronized (this) {
+            Stored stored = memory.get(key);
+            if (stored != null || credentialed) {
+                return stored;
+            }
+        }
+        String name = fileName(url);
+        try {
+            Path metadata = directory().resolve(name + ".json");
+            synchronized (this) {
+                ensureIndexed();
+                if (diskIndex.get(name) == null) {
+                    return null;
+                }
+            }
+            CachedResponse entry = gson.fromJson(Files.readString(metadata), CachedResponse.class);
+            if (entry == null || !url.equals(entry.getUrl())) {
+                return null;
+            }
+            writer.execute(() -> touch(metadata));
+            return new Stored(entry, null);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The stored response as a result, or null if its body can no longer be read
+     */
+    private HttpCallResult toResult(Stored stored, long durationMillis, String cacheStatus) {
+        ResponseBody body;
+        if (stored.body != null) {
+            body = ResponseBody.ofBytes(stored.body, stored.entry.getCharset());
+        } else {
+            try {
+                body = ResponseBody.ofFile(directory().resolve(fileName(stored.entry.getUrl()) + ".body"),
+                    stored.entry.getCharset());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return stored.entry.toResult(body, System.currentTimeMillis(), durationMillis, cacheStatus);
+    }
+
+    private synchronized void remember(String key, Stored stored) {
+        Stored previous = memory.put(key, stored);
+        if (previous != null && previous.body != null) {
+            memoryBytes -= previous.body.length;
+        }
+        if (stored.body != null) {
+            memoryBytes += stored.body.length;
+        }
+        Iterator<Map.Entry<String, Stored>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > MEMORY_LIMIT_BYTES && eldest.hasNext()) {
+            Stored evicted = eldest.next().getValue();
+            eldest.remove();
+            if (evicted.body != null) {
+                memoryBytes -= evicted.body.length;
+            }
+        }
+    }
+
+    /**
+     * Write an entry's body and then its metadata, and evict the least recently used entries beyond
+     * the size limit. Runs on the writer thread.
+     */
+    private void writeToDisk(String url, CachedResponse entry, ResponseBody body) {
+        String name = fileName(url);
+        try {
+            Path directory = directory();
+            Files.createDirectories(directory);
+            Path bodyFile = directory.resolve(name + ".body");
+            Path temp = Files.createTempFile(directory, name, ".tmp");
+            try {
+                body.copyTo(temp);
+                moveAtomically(temp, bodyFile);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            byte[] metadata = gson.toJson(entry).getBytes(StandardCharsets.UTF_8);
+            writeAtomically(directory.resolve(name + ".json"), metadata);
+
+            List<String> evicted = new ArrayList<>();
+            synchronized (this) {
+                ensureIndexed();
+                Long previous = diskIndex.put(name, entry.getBodySize() + metadata.length);
+                diskBytes += entry.getBodySize() + metadata.length - (previous != null ? previous : 0);
+                Iterator<Map.Entry<String, Long>> eldest = diskIndex.entrySet().iterator();
+                while (diskBytes > diskLimitBytes && eldest.hasNext()) {
+                    Map.Entry<String, Long> oldest = eldest.next();
+                    eldest.remove();
+                    diskBytes -= oldest.getValue();
+                    evicted.add(oldest.getKey());
+                }
+            }
+            evicted.forEach(this::deleteFiles);
+        } catch (IOException e) {
+            System.err.println("Failed to store cached response for " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build the disk index from the files in the cache directory, oldest access first, when the
+     * directory is first used or the data directory has moved. Caller holds the lock.
+     */
+    private void ensureIndexed() throws IOException {
+        Path directory = directory();
+        if (directory.equals(indexedDirectory)) {
+            return;
+        }
+        diskIndex.clear();
+        diskBytes = 0;
+        indexedDirectory = directory;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            files.forEach(entries::add);
+        }
+        Map<Path, FileTime> accessed = new LinkedHashMap<>();
+        for (Path metadata : entries) {
+            accessed.put(metadata, Files.getLastModifiedTime(metadata));
+        }
+        entries.sort((a, b) -> accessed.get(a).compareTo(accessed.get(b)));
+        for (Path metadata : entries) {
+            String name = metadata.getFileName().toString().replace(".json", "");
+            Path bodyFile = directory.resolve(name + ".body");
+            long size = Files.size(metadata) + (Files.exists(bodyFile) ? Files.size(bodyFile) : 0);
+            diskIndex.put(name, size);
+            diskBytes += size;
+        }
+    }
+
+    private Path directory() {
+        return storagePathService.getDataDirectory().resolve(CACHE_DIRECTORY);
+    }
+
+    private void deleteFiles(String name) {
+        try {
+            Path directory = directory();
+            // Metadata first, so a reader never finds metadata without its body
+            Files.deleteIfExists(directory.resolve(name + ".json"));
+            Files.deleteIfExists(directory.resolve(name + ".body"));
+        } catch (IOException e) {
+            System.err.println("Failed to delete cached response " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static void touch(Path metadata) {
+        try {
+            Files.setLastModifiedTime(metadata, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted in the meantime
+        }
+    }
+
+    /**
+     * Replace a file in one step; bodies handed out earlier as links to the old file are unaffected
+     */
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, data);
+            moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean hasCallerConditions(Map<String, String> headers) {
+        for (String name : headers.keySet()) {
+            if (name != null && CALLER_CONDITIONS.contains(name.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * SHA-256 of the request's credential headers, or null if it sends none
+     */
+    private static String credentialsHash(Map<String, String> headers) {
+        TreeMap<String, String> credentials = new TreeMap<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            String name = header.getKey() != null ? header.getKey().toLowerCase(Locale.ROOT) : "";
+            if (CREDENTIAL_HEADERS.contains(name)) {
+                credentials.put(name, header.getValue());
+            }
+        }
+        if (credentials.isEmpty()) {
+            return null;
+        }
+        // Header values cannot contain line breaks, so one line per header keeps the input unambiguous
+        StringBuilder lines = new StringBuilder();
+        credentials.forEach((name, value) -> lines.append(name).append(':').append(value).append('\n'));
+        return sha256(lines.toString());
+    }
+
+    /**
+     * Cache file name for a URL: its SHA-256 in hex
+     */
+    private static String fileName(String url) {
+        return sha256(url);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Apply {@code handle} to a call's result; cancelling the returned future cancels the call
+     */
+    private static CompletableFuture<HttpCallResult> map(CompletableFuture<HttpCallResult> call,
+                                                         Function<HttpCallResult, HttpCallResult> handle) {
+        CompletableFuture<HttpCallResult> mapped = new CompletableFuture<>();
+        call.whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = AsyncCalls.unwrap(error);
+                mapped.complete(HttpCallResult.failed(cause instanceof Exception ? (Exception) cause
+                    : new RuntimeException(cause)));
+                return;
+            }
+            try {
+                mapped.complete(handle.apply(result));
+            } catch (RuntimeException e) {
+                System.err.println("HTTP cache failed to handle a response: " + e.getMessage());
+                mapped.complete(result);
+            }
+        });
+        mapped.whenComplete((ignored, error) -> {
+            if (mapped.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return mapped;
+    }
+
+    /**
+     * An entry with its body if the body is held in memory
+     */
+    private static final class Stored {
+        final CachedResponse entry;
+        final byte[] body;
+
+        Stored(CachedResponse entry, byte[] body) {
+            this.entry = entry;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.overzealouspelican.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keyed JSON store with an in-memory index and an append-only journal.
+ * The snapshot file keeps the original pretty-printed {@code Map<String, T>} format; each put or delete
+ * becomes one compact line in a sibling ".journal" file, so single-entry writes cost O(1) I/O.
+ * The journal is folded back into the snapshot (written to a temp file and atomically renamed)
+ * once it grows past the number of live entries.
+ * Writes are write-behind: the index changes immediately, and {@link PersistenceWriter} flushes the
+ * pending changes in the background, so only the latest edit of each key in a burst reaches the disk.
+ * The store remembers the size and modification time of both files after each of its own writes,
+ * so a file watcher can tell an external edit from an echo of our own write.
+ */
+public class JournaledJsonStore<T> {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final int MIN_COMPACTION_THRESHOLD = 200;
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Class<T> valueType;
+    private final Gson prettyGson;
+    private final Gson compactGson;
+    private final UnaryOperator<T> copier;
+
+    // Guarded by this
+    private final Map<String, T> index;
+    /** Changes not yet on disk, latest per key; a null value is a delete */
+    private final Map<String, T> pending;
+    private boolean compactionRequested;
+    /** Why writes are refused, or null while the store is writable */
+    private String readOnlyReason;
+
+    // Guarded by ioLock, which is always taken before this
+    private final Object ioLock = new Object();
+    private int journalEntries;
+    private String diskFingerprint;
+    private boolean loadedOnce;
+
+    /**
+     * @param snapshotFile the JSON snapshot file; the journal lives next to it
+     * @param valueType the stored value type
+     * @param prettyGson Gson used for the human-readable snapshot
+     * @param copier creates a defensive copy so callers cannot mutate the index
+     */
+    public JournaledJsonStore(Path snapshotFile, Class<T> valueType, Gson prettyGson, UnaryOperator<T> copier) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + JOURNAL_SUFFIX);
+        this.valueType = valueType;
+        this.prettyGson = prettyGson;
+        this.compactGson = new Gson();
+        this.copier = copier;
+        this.index = new LinkedHashMap<>();
+        this.pending = new LinkedHashMap<>();
+        synchronized (ioLock) {
+            load();
+        }
+    }
+
+    /**
+     * Load the snapshot and replay the journal on top of it. Changes still waiting to be written
+     * are applied again afterwards, so the index always reflects what the files will hold after the next flush.
+     * A snapshot that cannot be parsed never replaces the index; see {@link #recoverFromUnreadableSnapshot}.
+     *
+     * @return true if the index was replaced with what is on disk
+     */
+    private boolean load() {
+        Map<String, T> loaded = new LinkedHashMap<>();
+
+        if (Files.exists(snapshotFile)) {
+            try {
+                if (loadedOnce && Files.size(snapshotFile) == 0) {
+                    // Most likely an editor's truncate-then-write; the write that follows triggers another reload
+                    return false;
+                }
+                try (Reader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+                    Type type = TypeToken.getParameterized(Map.class, String.class, valueType).getType();
+                    Map<String, T> snapshot = prettyGson.fromJson(reader, type);
+                    if (snapshot != null) {
+                        loaded.putAll(snapshot);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to load " + snapshotFile + ": " + e.getMessage());
+                recoverFromUnreadableSnapshot();
+                return false;
+            }
+        }
+
+        int replayed = 0;
+        boolean clean = true;
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        clean &= replay(line, loaded);
+                        replayed++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to replay " + journalFile + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        journalEntries = replayed;
+
+        synchronized (this) {
+            index.clear();
+            index.putAll(loaded);
+            pending.forEach((key, value) -> {
+                if (value == null) {
+                    index.remove(key);
+                } else {
+                    index.put(key, value);
+                }
+            });
+            readOnlyReason = null;
+        }
+        loadedOnce = true;
+
+        if (!clean) {
+            // Fold the readable entries into the snapshot so new appends don't land on a torn line
+            try {
+                compactLocked();
+            } catch (IOException e) {
+                System.err.println("Failed to compact " + snapshotFile + ": " + e.getMessage());
+            }
+        }
+
+        diskFingerprint = fingerprint();
+        return true;
+    }
+
+    /**
+     * Keep an unparseable snapshot out of the way without losing it: it is moved to a ".corrupt" backup.
+     * A reload keeps the entries already in memory and writes them back to the snapshot once the backup
+     * is safe. A first load has nothing to fall back on, so the store stays empty and refuses writes,
+     * which would otherwise create a new snapshot without the user's entries, until a reload succeeds.
+     * The journal is left alone; it still applies to the backed-up snapshot.
+     */
+    private void recoverFromUnreadableSnapshot() {
+        // Never replace an earlier backup; it may be the only copy of the user's entries
+        Path backup = snapshotFile.resolveSibling(snapshotFile.getFileName() + CORRUPT_SUFFIX);
+        for (int n = 1; Files.exists(backup); n++) {
+            backup = snapshotFile.resolveSibling(snapshotFile.getFileName() + CORRUPT_SUFFIX + "." + n);
+        }
+        boolean backedUp;
+        try {
+            moveAtomically(snapshotFile, backup);
+            System.err.println("Moved unreadable " + snapshotFile + " to " + backup);
+            backedUp = true;
+        } catch (IOException e) {
+            System.err.println("Failed to back up " + snapshotFile + ": " + e.getMessage());
+            backedUp = false;
+        }
+
+        boolean restore = loadedOnce && backedUp;
+        synchronized (this) {
+            if (restore) {
+                compactionRequested = true;
+            } else {
+                readOnlyReason = snapshotFile.getFileName() + " could not be read"
+                    + (backedUp ? " and was moved to " + backup.getFileName() : "")
+                    + "; fix or restore it to save changes";
+            }
+        }
+        // Our own move is not an external change
+        diskFingerprint = fingerprint();
+        if (restore) {
+            PersistenceWriter.getInstance().schedule(this);
+        }
+    }
+
+    private boolean replay(String line, Map<String, T> target) {
+        try {
+            JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+            String key = entry.get("key").getAsString();
+            if (OP_DELETE.equals(entry.get("op").getAsString())) {
+                target.remove(key);
+            } else {
+                target.put(key, compactGson.fromJson(entry.get("value"), valueType));
+            }
+            return true;
+        } catch (Exception e) {
+            // A torn final line from an interrupted append is expected after a crash; skip it
+            System.err.println("Skipping unreadable journal entry in " + journalFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copy of all entries, in file order
+     */
+    public synchronized Map<String, T> snapshot() {
+        Map<String, T> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, T> entry : index.entrySet()) {
+            copy.put(entry.getKey(), copier.apply(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Copy of a single entry, or null
+     */
+    public synchronized T get(String key) {
+        T value = index.get(key);
+        return value != null ? copier.apply(value) : null;
+    }
+
+    public synchronized boolean containsKey(String key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Whether writes are refused because the snapshot could not be read on first load
+     */
+    public synchronized boolean isReadOnly() {
+        return readOnlyReason != null;
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnlyReason != null) {
+            throw new IOException(readOnlyReason);
+        }
+    }
+
+    /**
+     * Insert or replace one entry; the journal line is written in the background
+     *
+     * @throws IOException if the store is read-only
+     */
+    public void put(String key, T value) throws IOException {
+        T stored = copier.apply(value);
+        synchronized (this) {
+            checkWritable();
+            index.put(key, stored);
+            pending.put(key, stored);
+        }
+        PersistenceWriter.getInstance().schedule(this);
+    }
+
+    /**
+     * Remove one entry; the journal line is written in the background
+     *
+     * @throws IOException if the store is read-only
+     */
+    public void remove(String key) throws IOException {
+        synchronized (this) {
+            checkWritable();
+            if (!index.containsKey(key)) {
+                return;
+            }
+            index.remove(key);
+            pending.put(key, null);
+        }
+        PersistenceWriter.getInstance().schedule(this);
+    }
+
+    /**
+     * Replace every entry; the snapshot is rewritten in the background
+     *
+     * @throws IOException if the store is read-only
+     */
+    public void replaceAll(Map<String, T> values) throws IOException {
+        synchronized (this) {
+            checkWritable();
+            index.clear();
+            for (Map.Entry<String, T> entry : values.entrySet()) {
+                index.put(entry.getKey(), copier.apply(entry.getValue()));
+            }
+            pending.clear();
+            compactionRequested = true;
+        }
+        PersistenceWriter.getInstance().schedule(this);
+    }
+
+    public synchronized boolean hasPendingWrites() {
+        return compactionRequested || !pending.isEmpty();
+    }
+
+    /**
+     * Write pending changes to disk: one append for the whole batch, or a compaction if the journal is due for one.
+     * On failure the batch is queued again unless a newer change to the same key arrived in the meantime.
+     *
+     * @return the number of changes written
+     */
+    public int flush() throws IOException {
+        synchronized (ioLock) {
+            Map<String, T> batch = null;
+            int changes;
+            synchronized (this) {
+                if (readOnlyReason != null) {
+                    return 0;
+                }
+                changes = pending.size();
+                boolean compactNow = compactionRequested
+                    || journalEntries + changes > Math.max(MIN_COMPACTION_THRESHOLD, index.size());
+                if (!compactNow) {
+                    if (changes == 0) {
+                        return 0;
+                    }
+                    batch = new LinkedHashMap<>(pending);
+                    pending.clear();
+                }
+            }
+
+            if (batch == null) {
+                compactLocked();
+                return Math.max(1, changes);
+            }
+
+            try {
+                append(batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    batch.forEach((key, value) -> {
+                        if (!pending.containsKey(key)) {
+                            pending.put(key, value);
+                        }
+                    });
+                }
+                throw e;
+            }
+            return batch.size();
+        }
+    }
+
+    /**
+     * Discard the in-memory index and reload from disk (e.g. after an external edit)
+     */
+    public void reload() {
+        synchronized (ioLock) {
+            load();
+        }
+    }
+
+    /**
+     * Reload only if the files on disk differ from what this store last read or wrote
+     *
+     * @return true if the index was reloaded; false if nothing changed or the snapshot could not be read
+     */
+    public boolean reloadIfChanged() {
+        synchronized (ioLock) {
+            if (fingerprint().equals(diskFingerprint)) {
+                return false;
+            }
+            return load();
+        }
+    }
+
+    /**
+     * Write the index to the snapshot file atomically and truncate the journal
+     */
+    public void compact() throws IOException {
+        synchronized (ioLock) {
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        Map<String, T> entries;
+        synchronized (this) {
+            // The snapshot covers every pending change
+            entries = new LinkedHashMap<>(index);
+            pending.clear();
+            compactionRequested = false;
+        }
+
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                prettyGson.toJson(entries, writer);
+            }
+            moveAtomically(tempFile, snapshotFile);
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            synchronized (this) {
+                compactionRequested = true;
+            }
+            throw e;
+        }
+        journalEntries = 0;
+        diskFingerprint = fingerprint();
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    private void append(Map<String, T> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, T> change : batch.entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("key", change.getKey());
+            if (change.getValue() == null) {
+                entry.addProperty("op", OP_DELETE);
+            } else {
+                entry.addProperty("op", OP_PUT);
+                entry.add("value", compactGson.toJsonTree(change.getValue(), valueType));
+            }
+            lines.append(compactGson.toJson(entry)).append(System.lineSeparator());
+        }
+        Files.writeString(journalFile, lines, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        journalEntries += batch.size();
+        diskFingerprint = fingerprint();
+    }
+
+    private String fingerprint() {
+        return describe(snapshotFile) + "|" + describe(journalFile);
+    }
+
+    private static String describe(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return "missing";
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (java.nio.file.AtomicMoveNotSupportedException e) {
+            // Some network file systems cannot rename atomically
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
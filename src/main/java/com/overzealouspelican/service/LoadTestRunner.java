@@ -0,0 +1,374 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service for load testing a single API call.
+ * Follows the Single Responsibility Principle - only drives repeated execution and aggregates latency.
+ * Every iteration goes through {@link ApiCallService#executeApiCallAsync} so variable substitution
+ * behaves exactly as it does for an interactive call, and a waiting iteration holds no thread.
+ * When the call may use HTTP/2 and more than one call runs at a time, the first iteration runs alone:
+ * the HTTP client only multiplexes onto a connection once it exists, so without this every concurrent
+ * first request would negotiate its own connection.
+ */
+public class LoadTestRunner {
+
+    private final ApiCallService apiCallService;
+    private final CallExecutionEngine executionEngine;
+    private volatile CompletableFuture<Void> currentBatch;
+    private volatile boolean cancelled;
+
+    public LoadTestRunner(ApiCallService apiCallService) {
+        this.apiCallService = apiCallService;
+        this.executionEngine = CallExecutionEngine.getInstance();
+    }
+
+    /**
+     * Listener notified from the threads completing calls as iterations complete
+     */
+    public interface ProgressListener {
+        void onProgress(int completed, int total, int errors);
+    }
+
+    /**
+     * Run the call according to the given configuration and block until all iterations finish or the run is cancelled.
+     * Iterations are started through {@link AsyncCalls#forEach}, which keeps at most the configured
+     * concurrency in flight; they are registered with the shared {@link CallExecutionEngine} so the toolbar
+     * shows and stops them.
+     */
+    public LoadTestResult run(ApiCall apiCall, Map<String, String> environmentVariables,
+                              LoadTestConfig config, ProgressListener listener) throws InterruptedException {
+        cancelled = false;
+
+        int iterations = config.getIterations();
+        int concurrency = config.getConcurrency();
+        RunState state = new RunState(iterations, listener);
+        CallOptions options = CallOptions.DEFAULT.withFlow("load-test " + apiCall.getName());
+        // Parse the templates once; each iteration only renders them
+        CompiledApiCall compiledCall = apiCallService.compileApiCall(apiCall);
+        int first = 0;
+
+        long wallStart = System.nanoTime();
+        CallExecutionEngine.RunRegistration registration = executionEngine.registerRun(options.getFlow(), this::cancel);
+        try {
+            if (concurrency > 1
+                && EnvironmentSettings.mayUseHttp2(compiledCall.getHttpVersion(), environmentVariables)) {
+                // Prime the connection so the concurrent iterations share it
+                await(AsyncCalls.forEach(1, 1,
+                    i -> startIteration(i, System.nanoTime(), compiledCall, environmentVariables, options,
+                        registration, state),
+                    state::record));
+                first = 1;
+            }
+
+            int offset = first;
+            if (config.getRequestsPerSecond() > 0) {
+                // Open-loop: start times are fixed by the rate, latency is measured from the intended start
+                // so a slow server shows up as latency rather than as a lower request rate. A call waiting
+                // for its start time takes up a slot, so the concurrency still bounds the calls outstanding.
+                long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRequestsPerSecond();
+                long scheduleStart = System.nanoTime();
+                await(AsyncCalls.forEach(iterations - offset, concurrency, i -> {
+                    long intendedStart = scheduleStart + i * intervalNanos;
+                    return AsyncCalls.delayed(Duration.ofNanos(intendedStart - System.nanoTime()),
+                        () -> startIteration(i + offset, intendedStart, compiledCall, environmentVariables, options,
+                            registration, state));
+                }, (i, result) -> state.record(i + offset, result)));
+            } else {
+                // Closed-loop: the next call starts as soon as one of the concurrent calls returns
+                await(AsyncCalls.forEach(iterations - offset, concurrency,
+                    i -> startIteration(i + offset, System.nanoTime(), compiledCall, environmentVariables, options,
+                        registration, state),
+                    (i, result) -> state.record(i + offset, result)));
+            }
+        } finally {
+            registration.close();
+            currentBatch = null;
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+
+        return new LoadTestResult(state.recordedLatencies(), state.errors.get(), wallNanos, cancelled,
+            state.protocols, state.phases,
+            state.wireBytes.get() > 0 ? new CompressionStats("compressed", state.wireBytes.get(),
+                state.decodedBytes.get()) : null);
+    }
+
+    /**
+     * Request that a running load test stop issuing new calls and abort the ones in flight
+     */
+    public void cancel() {
+        cancelled = true;
+        CompletableFuture<Void> batch = currentBatch;
+        if (batch != null) {
+            batch.cancel(true);
+        }
+    }
+
+    /**
+     * Wait for a batch of iterations to finish. An interrupt cancels the batch, and with it the calls in flight.
+     */
+    private void await(CompletableFuture<Void> batch) throws InterruptedException {
+        currentBatch = batch;
+        if (cancelled) {
+            batch.cancel(true);
+        }
+        try {
+            batch.get();
+        } catch (CancellationException e) {
+            // Stopped through cancel(); the iterations that finished are already recorded
+        } catch (InterruptedException e) {
+            batch.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // A batch only completes normally or by being cancelled
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private CompletableFuture<HttpCallResult> startIteration(int index, long startNanos, CompiledApiCall compiledCall,
+                                                             Map<String, String> environmentVariables,
+                                                             CallOptions options,
+                                                             CallExecutionEngine.RunRegistration registration,
+                                                             RunState state) {
+        state.startNanos[index] = startNanos;
+        CompletableFuture<HttpCallResult> call = apiCallService.executeApiCallAsync(compiledCall,
+            environmentVariables, options);
+        registration.track(call);
+        return call;
+    }
+
+    /**
+     * Everything the iterations of one run write to, shared between the threads completing calls
+     */
+    private final class RunState {
+        final int total;
+        /** Start time of each iteration, written before its call starts and read once it completes */
+        final long[] startNanos;
+        /** Filled in completion order, so the recorded part is dense even when cancelled early. Guarded by this. */
+        private final long[] latencies;
+        private int completed;
+        final AtomicInteger errors = new AtomicInteger();
+        final Map<String, Integer> protocols = new ConcurrentHashMap<>();
+        final PhaseTimings.Aggregate phases = new PhaseTimings.Aggregate();
+        final AtomicLong wireBytes = new AtomicLong();
+        final AtomicLong decodedBytes = new AtomicLong();
+        final ProgressListener listener;
+
+        RunState(int total, ProgressListener listener) {
+            this.total = total;
+            this.startNanos = new long[total];
+            this.latencies = new long[total];
+            this.listener = listener;
+        }
+
+        /**
+         * Record a finished iteration and notify the listener
+         *
+         * @return whether to keep starting iterations
+         */
+        boolean record(int index, HttpCallResult result) {
+            long latency = System.nanoTime() - startNanos[index];
+            if (result.isCancelled()) {
+                return !cancelled; // Stopped mid-flight; its latency says nothing about the server
+            }
+
+            if (!result.isSuccess()) {
+                errors.incrementAndGet();
+            }
+            if (result.getProtocolVersion() != null) {
+                protocols.merge(EnvironmentSettings.label(result.getProtocolVersion()), 1, Integer::sum);
+            }
+            phases.add(result.getPhaseTimings());
+            if (result.getCompression() != null) {
+                wireBytes.addAndGet(result.getCompression().getWireBytes());
+                decodedBytes.addAndGet(result.getCompression().getDecodedBytes());
+            }
+            int done = recordLatency(latency);
+
+            if (listener != null) {
+                listener.onProgress(done, total, errors.get());
+            }
+            return !cancelled;
+        }
+
+        /**
+         * Record a finished iteration's latency and return how many have finished.
+         * The slot is claimed and written under one lock, so a reader never sees a claimed slot still empty.
+         */
+        private synchronized int recordLatency(long latency) {
+            latencies[completed] = latency;
+            return ++completed;
+        }
+
+        /**
+         * The latencies recorded so far; iterations still finishing after a cancel are left out
+         */
+        synchronized long[] recordedLatencies() {
+            return Arrays.copyOf(latencies, completed);
+        }
+    }
+
+    /**
+     * Configuration for a load test run
+     */
+    public static class LoadTestConfig {
+        private final int iterations;
+        private final int concurrency;
+        private final int requestsPerSecond;
+
+        /**
+         * @param iterations total number of calls to make
+         * @param concurrency maximum number of calls in flight
+         * @param requestsPerSecond target start rate, or 0 to run as fast as the concurrency allows
+         */
+        public LoadTestConfig(int iterations, int concurrency, int requestsPerSecond) {
+            if (iterations < 1) {
+                throw new IllegalArgumentException("Iterations must be at least 1");
+            }
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be at least 1");
+            }
+            if (requestsPerSecond < 0) {
+                throw new IllegalArgumentException("Requests per second cannot be negative");
+            }
+            this.iterations = iterations;
+            this.concurrency = concurrency;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+    }
+
+    /**
+     * Aggregated outcome of a load test run
+     */
+    public static class LoadTestResult {
+        private final long[] sortedLatencies;
+        private final int errors;
+        private final long wallNanos;
+        private final boolean cancelled;
+        private final Map<String, Integer> protocols;
+        private final PhaseTimings.Aggregate phases;
+        private final CompressionStats compression;
+
+        public LoadTestResult(long[] latencies, int errors, long wallNanos, boolean cancelled) {
+            this(latencies, errors, wallNanos, cancelled, Map.of(), new PhaseTimings.Aggregate(), null);
+        }
+
+        /**
+         * @param protocols number of responses received over each negotiated protocol, e.g. "HTTP/2" -> 100
+         * @param phases per-phase timings of the completed calls
+         * @param compression total wire and decoded bytes of compressed responses, or null if there were none
+         */
+        public LoadTestResult(long[] latencies, int errors, long wallNanos, boolean cancelled,
+                              Map<String, Integer> protocols, PhaseTimings.Aggregate phases,
+                              CompressionStats compression) {
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+            this.errors = errors;
+            this.wallNanos = wallNanos;
+            this.cancelled = cancelled;
+            this.protocols = new TreeMap<>(protocols);
+            this.phases = phases;
+            this.compression = compression;
+        }
+
+        public int getCompleted() {
+            return sortedLatencies.length;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public Map<String, Integer> getProtocols() {
+            return Collections.unmodifiableMap(protocols);
+        }
+
+        public PhaseTimings.Aggregate getPhases() {
+            return phases;
+        }
+
+        public CompressionStats getCompression() {
+            return compression;
+        }
+
+        public double getErrorRate() {
+            return sortedLatencies.length == 0 ? 0.0 : (double) errors / sortedLatencies.length;
+        }
+
+        /**
+         * Completed calls per second of wall time
+         */
+        public double getThroughput() {
+            return wallNanos == 0 ? 0.0 : sortedLatencies.length / (wallNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * Latency at the given percentile (0-100) in nanoseconds, using the nearest-rank method
+         */
+        public long getPercentileNanos(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+            return sortedLatencies[Math.max(0, Math.min(rank, sortedLatencies.length) - 1)];
+        }
+
+        public String formatSummary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(cancelled ? "Load test cancelled\n\n" : "Load test completed\n\n");
+            sb.append(String.format("Completed:   %d%n", getCompleted()));
+            sb.append(String.format("Errors:      %d (%.2f%%)%n", errors, getErrorRate() * 100));
+            sb.append(String.format("Wall time:   %.2f s%n", wallNanos / 1_000_000_000.0));
+            sb.append(String.format("Throughput:  %.2f req/s%n", getThroughput()));
+            if (!protocols.isEmpty()) {
+                StringBuilder counts = new StringBuilder();
+                protocols.forEach((protocol, count) ->
+                    counts.append(counts.length() > 0 ? ", " : "").append(protocol).append(" x ").append(count));
+                sb.append(String.format("Protocol:    %s%n", counts));
+            }
+            if (compression != null) {
+                sb.append(String.format("Transfer:    %s%n", compression.format()));
+            }
+            sb.append("\n");
+            sb.append("Latency:\n");
+            sb.append(String.format("  p50:    %.2f ms%n", getPercentileNanos(50) / 1_000_000.0));
+            sb.append(String.format("  p90:    %.2f ms%n", getPercentileNanos(90) / 1_000_000.0));
+            sb.append(String.format("  p99:    %.2f ms%n", getPercentileNanos(99) / 1_000_000.0));
+            sb.append(String.format("  p99.9:  %.2f ms%n", getPercentileNanos(99.9) / 1_000_000.0));
+            if (phases.getCount() > 0) {
+                sb.append(String.format("%nPhases (mean):%n  %s%n", phases.formatMeans()));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.overzealouspelican.service;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Builds a multipart/form-data body (RFC 7578) from text fields and files.
+ * Each part is its own body publisher and the parts are concatenated, so file contents are read from
+ * disk only while the request is being sent and never held in memory.
+ */
+public final class MultipartBody {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String CRLF = "\r\n";
+
+    private final String boundary;
+    private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+    public MultipartBody() {
+        byte[] random = new byte[12];
+        RANDOM.nextBytes(random);
+        this.boundary = "ProtoCallerBoundary" + HexFormat.of().formatHex(random);
+    }
+
+    /**
+     * Add a text field
+     */
+    public MultipartBody addField(String name, String value) {
+        parts.add(HttpRequest.BodyPublishers.ofString(partHeader(name, null, null)
+            + (value != null ? value : "") + CRLF, StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Add a file. Only its size is read now; the contents are streamed when the request is sent.
+     *
+     * @throws java.io.FileNotFoundException if the file does not exist
+     */
+    public MultipartBody addFile(String name, Path file) throws IOException {
+        parts.add(HttpRequest.BodyPublishers.ofString(
+            partHeader(name, file.getFileName().toString(), RequestBody.probeContentType(file)), StandardCharsets.UTF_8));
+        parts.add(HttpRequest.BodyPublishers.ofFile(file));
+        parts.add(HttpRequest.BodyPublishers.ofString(CRLF));
+        return this;
+    }
+
+    /**
+     * The Content-Type header for this body, including the boundary
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * A publisher for all parts added so far followed by the closing boundary. Its content length is
+     * known up front, so the request is sent with Content-Length rather than chunked.
+     */
+    public HttpRequest.BodyPublisher build() {
+        List<HttpRequest.BodyPublisher> all = new ArrayList<>(parts);
+        all.add(HttpRequest.BodyPublishers.ofString("--" + boundary + "--" + CRLF));
+        return HttpRequest.BodyPublishers.concat(all.toArray(new HttpRequest.BodyPublisher[0]));
+    }
+
+    private String partHeader(String name, String filename, String contentType) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("--").append(boundary).append(CRLF);
+        sb.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+        if (filename != null) {
+            sb.append("; filename=\"").append(escape(filename)).append('"');
+        }
+        sb.append(CRLF);
+        if (contentType != null) {
+            sb.append("Content-Type: ").append(contentType).append(CRLF);
+        }
+        return sb.append(CRLF).toString();
+    }
+
+    /**
+     * Percent-encode the characters that would break a quoted parameter, as browsers do
+     */
+    private static String escape(String value) {
+        return (value != null ? value : "").replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+}
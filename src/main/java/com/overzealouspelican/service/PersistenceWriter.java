@@ -0,0 +1,138 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApplicationState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for {@link JournaledJsonStore} changes.
+ * Follows the Singleton pattern so every store shares one writer thread and saves never block the
+ * event dispatch thread. A burst of edits is debounced into a single write, a failed write is retried,
+ * and anything still pending is flushed by a shutdown hook when the application exits.
+ * Write latency is published as {@link ApplicationState#SUMMARY_PERSISTENCE};
+ * failures and slow writes are reported through the status bar.
+ */
+public class PersistenceWriter {
+
+    /** Quiet period after the last edit before writing */
+    private static final long DEBOUNCE_MILLIS = 300;
+    /** Upper bound on how long a steady stream of edits can postpone a write */
+    private static final long MAX_DELAY_MILLIS = 2000;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+    /** Writes slower than this are reported as a warning (e.g. on a network-mounted storage location) */
+    private static final long SLOW_WRITE_MILLIS = 500;
+
+    private static PersistenceWriter instance;
+
+    private final ScheduledExecutorService executor;
+    private final Set<JournaledJsonStore<?>> stores;
+    private final Map<JournaledJsonStore<?>, ScheduledWrite> scheduled;
+
+    private PersistenceWriter() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistence-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stores = ConcurrentHashMap.newKeySet();
+        this.scheduled = new ConcurrentHashMap<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll, "persistence-flush"));
+    }
+
+    /**
+     * Get the singleton instance of PersistenceWriter
+     */
+    public static synchronized PersistenceWriter getInstance() {
+        if (instance == null) {
+            instance = new PersistenceWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule a store's pending changes to be written once edits pause
+     */
+    public synchronized void schedule(JournaledJsonStore<?> store) {
+        stores.add(store);
+        long now = System.nanoTime();
+        ScheduledWrite write = scheduled.get(store);
+
+        if (write == null) {
+            write = new ScheduledWrite(now);
+            scheduled.put(store, write);
+        } else if (now - write.firstEditNanos < TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MILLIS)) {
+            write.future.cancel(false);
+        } else {
+            return; // Already overdue; let the scheduled write pick this edit up
+        }
+        write.future = executor.schedule(() -> write(store), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write every store's pending changes now, on the calling thread
+     */
+    public void flushAll() {
+        List<JournaledJsonStore<?>> snapshot = new ArrayList<>(stores);
+        for (JournaledJsonStore<?> store : snapshot) {
+            try {
+                int written = store.flush();
+                if (written > 0) {
+                    System.out.println("Flushed " + written + " pending changes to: " + store.getSnapshotFile());
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to flush " + store.getSnapshotFile() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(JournaledJsonStore<?> store) {
+        synchronized (this) {
+            scheduled.remove(store);
+        }
+
+        String fileName = store.getSnapshotFile().getFileName().toString();
+        ApplicationState appState = ApplicationState.getInstance();
+        long start = System.nanoTime();
+        try {
+            int written = store.flush();
+            if (written == 0) {
+                return;
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            appState.setSummary(ApplicationState.SUMMARY_PERSISTENCE, String.format("Saved %d change%s to %s in %d ms",
+                written, written == 1 ? "" : "s", fileName, millis));
+            if (millis > SLOW_WRITE_MILLIS) {
+                appState.setStatusWarning("Saving " + fileName + " took " + millis + " ms; check the storage location");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save " + store.getSnapshotFile() + ": " + e.getMessage());
+            appState.setStatusError("Failed to save " + fileName + " (will retry): " + e.getMessage());
+            appState.setSummary(ApplicationState.SUMMARY_PERSISTENCE, "Unsaved changes to " + fileName);
+            synchronized (this) {
+                if (!scheduled.containsKey(store)) {
+                    ScheduledWrite retry = new ScheduledWrite(System.nanoTime());
+                    retry.future = executor.schedule(() -> write(store), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                    scheduled.put(store, retry);
+                }
+            }
+        }
+    }
+
+    private static class ScheduledWrite {
+        private final long firstEditNanos;
+        private ScheduledFuture<?> future;
+
+        private ScheduledWrite(long firstEditNanos) {
+            this.firstEditNanos = firstEditNanos;
+        }
+    }
+}
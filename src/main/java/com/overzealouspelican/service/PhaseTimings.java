@@ -0,0 +1,209 @@
+package com.overzealouspelican.service;
+
+/**
+ * Nanosecond timings for the phases of one HTTP exchange: DNS lookup, connection setup (TCP and TLS),
+ * sending the request body, waiting for the first byte and reading the body.
+ * java.net.http does not report socket events, so connection setup is only estimated: a call on a new
+ * connection waits longer for its first byte than one on a pooled connection, and the difference
+ * against the last pooled call to the same origin is shown as connection setup, TCP and TLS together.
+ * Until such a baseline exists the setup time is included in the wait instead. The estimate is labelled
+ * as such in the waterfall and left out of {@link Aggregate}, which only averages measured phases.
+ */
+public final class PhaseTimings {
+
+    /** A phase that was not measured */
+    public static final long NOT_MEASURED = -1;
+
+    private static final int BAR_WIDTH = 40;
+
+    private final long dnsNanos;
+    private final long connectNanos;
+    private final long sendNanos;
+    private final long requestBytes;
+    private final long waitNanos;
+    private final long transferNanos;
+    private final boolean connectionReused;
+
+    /**
+     * @param dnsNanos time to resolve the host, 0 for an IP literal
+     * @param connectNanos estimated TCP connect plus TLS handshake, 0 on a reused connection, or NOT_MEASURED
+     * @param waitNanos from sending the request to the response headers, excluding connection setup
+     * @param transferNanos from the response headers to the last byte of the body
+     * @param connectionReused whether the request went out on an already-open pooled connection
+     */
+    public PhaseTimings(long dnsNanos, long connectNanos, long waitNanos, long transferNanos,
+                        boolean connectionReused) {
+        this(dnsNanos, connectNanos, 0, 0, waitNanos, transferNanos, connectionReused);
+    }
+
+    /**
+     * @param sendNanos time taken to send the request body, 0 if there was none
+     * @param requestBytes size of the request body that was sent
+     * @param waitNanos from the end of the request body to the response headers, excluding connection setup
+     */
+    public PhaseTimings(long dnsNanos, long connectNanos, long sendNanos, long requestBytes, long waitNanos,
+                        long transferNanos, boolean connectionReused) {
+        this.dnsNanos = dnsNanos;
+        this.connectNanos = connectNanos;
+        this.sendNanos = sendNanos;
+        this.requestBytes = requestBytes;
+        this.waitNanos = waitNanos;
+        this.transferNanos = transferNanos;
+        this.connectionReused = connectionReused;
+    }
+
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * Estimated TCP connect plus TLS handshake, or NOT_MEASURED when it could not be separated from the wait
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * Time taken to send the request body; for large uploads the bulk of the exchange
+     */
+    public long getSendNanos() {
+        return sendNanos;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * e.g. "1.9 GB in 23.1 s (85.2 MB/s)"
+     */
+    public String formatUpload() {
+        double seconds = sendNanos / 1_000_000_000.0;
+        return String.format("%s in %.1f s (%s/s)", CompressionStats.formatBytes(requestBytes), seconds,
+            CompressionStats.formatBytes(seconds > 0 ? Math.round(requestBytes / seconds) : requestBytes));
+    }
+
+    /**
+     * Server processing time plus one network round trip
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * From sending the request to receiving the response headers, including any connection setup and upload
+     */
+    public long getTimeToFirstByteNanos() {
+        return Math.max(0, connectNanos) + sendNanos + waitNanos;
+    }
+
+    public long getTransferNanos() {
+        return transferNanos;
+    }
+
+    public long getTotalNanos() {
+        return dnsNanos + getTimeToFirstByteNanos() + transferNanos;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    /**
+     * Text waterfall with one bar per phase, each starting where the previous one ended.
+     * The estimated connection setup is drawn shaded rather than solid.
+     */
+    public String formatWaterfall() {
+        long total = Math.max(1, getTotalNanos());
+        StringBuilder sb = new StringBuilder();
+        int[] offset = {0};
+        appendBar(sb, "DNS lookup", dnsNanos, total, offset, '█');
+        if (connectionReused) {
+            sb.append(String.format("%-15s %10s  (reused pooled connection)%n", "Connect (est.)", "-"));
+        } else if (connectNanos == NOT_MEASURED) {
+            sb.append(String.format("%-15s %10s  (new connection, included in waiting)%n", "Connect (est.)", "?"));
+        } else {
+            appendBar(sb, "Connect (est.)", connectNanos, total, offset, '░');
+        }
+        if (requestBytes > 0) {
+            appendBar(sb, "Sending", sendNanos, total, offset, '█');
+        }
+        appendBar(sb, "Waiting (TTFB)", waitNanos, total, offset, '█');
+        appendBar(sb, "Content", transferNanos, total, offset, '█');
+        sb.append(String.format("%-15s %10s%n", "Total", formatMillis(getTotalNanos())));
+        return sb.toString();
+    }
+
+    private static void appendBar(StringBuilder sb, String label, long nanos, long total, int[] offset, char fill) {
+        int start = Math.min(BAR_WIDTH, offset[0]);
+        int length = nanos > 0 ? Math.max(1, (int) Math.round((double) nanos / total * BAR_WIDTH)) : 0;
+        length = Math.min(length, BAR_WIDTH - start);
+        sb.append(String.format("%-15s %10s  |", label, formatMillis(nanos)))
+            .append(" ".repeat(start))
+            .append(String.valueOf(fill).repeat(length))
+            .append(" ".repeat(BAR_WIDTH - start - length))
+            .append("|\n");
+        offset[0] = start + length;
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.2f ms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("dns=%s connect~%s send=%s wait=%s transfer=%s%s", formatMillis(dnsNanos),
+            connectNanos == NOT_MEASURED ? "?" : formatMillis(connectNanos), formatMillis(sendNanos), formatMillis(waitNanos),
+            formatMillis(transferNanos), connectionReused ? " (reused)" : "");
+    }
+
+    /**
+     * Running means of each measured phase over many exchanges, safe to update from several threads.
+     * Connection setup is only an estimate, so it stays part of the wait here.
+     */
+    public static final class Aggregate {
+        private long count;
+        private long dnsSum;
+        private long sendSum;
+        private long waitSum;
+        private long transferSum;
+        private long newConnections;
+
+        public synchronized void add(PhaseTimings timings) {
+            if (timings == null) {
+                return;
+            }
+            count++;
+            dnsSum += timings.dnsNanos;
+            sendSum += timings.sendNanos;
+            waitSum += timings.waitNanos + Math.max(0, timings.connectNanos);
+            transferSum += timings.transferNanos;
+            if (!timings.connectionReused) {
+                newConnections++;
+            }
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getNewConnections() {
+            return newConnections;
+        }
+
+        /**
+         * One-line summary of the mean time spent in each phase
+         */
+        public synchronized String formatMeans() {
+            if (count == 0) {
+                return "no timings";
+            }
+            return String.format("DNS %s%s · waiting %s (incl. connection setup) · content %s · %d new connection(s)",
+                formatMillis(dnsSum / count),
+                sendSum == 0 ? "" : " · sending " + formatMillis(sendSum / count),
+                formatMillis(waitSum / count),
+                formatMillis(transferSum / count),
+                newConnections);
+        }
+    }
+}
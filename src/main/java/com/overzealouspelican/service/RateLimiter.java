@@ -0,0 +1,411 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caps how fast requests are sent, with a token bucket per origin and one per environment.
+ * Follows the Singleton pattern so interactive calls, collection runs and load runs draw from the same buckets.
+ * The limits are the environment's protocaller.rateLimit, protocaller.environmentRateLimit and
+ * protocaller.rateBurst; without them requests pass straight through.
+ * A request that finds its bucket empty waits without holding a thread and is admitted when a token is
+ * refilled. Waiting requests are admitted in turn per flow (the interactive calls, each collection run,
+ * each load run), so one busy run cannot starve the others of a shared host's budget.
+ * The permitted and achieved rates of busy buckets are published for the status bar.
+ */
+public class RateLimiter {
+
+    /** Flow of calls sent from the call editor and other one-off calls */
+    public static final String INTERACTIVE = "interactive";
+
+    private static final long PUBLISH_INTERVAL_MS = 500;
+    /** Buckets unused for this long drop out of the status bar */
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static RateLimiter instance;
+
+    private final Map<String, TokenBucket> buckets;
+    private final ScheduledExecutorService scheduler;
+    private volatile String lastSummary;
+
+    private RateLimiter() {
+        this.buckets = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastSummary = "";
+        scheduler.scheduleWithFixedDelay(this::publishSummary, PUBLISH_INTERVAL_MS, PUBLISH_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the singleton instance of RateLimiter
+     */
+    public static synchronized RateLimiter getInstance() {
+        if (instance == null) {
+            instance = new RateLimiter();
+        }
+        return instance;
+    }
+
+    /**
+     * Start a request once the buckets it draws from allow it. {@code send} starts the request; the future
+     * completes with its result. Cancelling the future while the request waits gives up its place in line.
+     */
+    public CompletableFuture<HttpCallResult> run(Limits limits, String url, String flow,
+                                                 Supplier<CompletableFuture<HttpCallResult>> send) {
+        List<TokenBucket> needed = bucketsFor(limits, url);
+        if (needed.isEmpty()) {
+            return send.get();
+        }
+
+        CompletableFuture<HttpCallResult> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+        admit(needed, 0, flow != null ? flow : INTERACTIVE, send, result, current);
+        result.whenComplete((ignored, error) -> {
+            if (result.isCancelled() && current.get() != null) {
+                current.get().cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Take a token from each bucket in turn, then send
+     */
+    private void admit(List<TokenBucket> needed, int index, String flow, Supplier<CompletableFuture<HttpCallResult>> send,
+                       CompletableFuture<HttpCallResult> result, AtomicReference<CompletableFuture<?>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        if (index == needed.size()) {
+            CompletableFuture<HttpCallResult> call = send.get();
+            current.set(call);
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+            call.whenComplete((response, error) -> {
+                if (error == null) {
+                    result.complete(response);
+                } else {
+                    Throwable cause = AsyncCalls.unwrap(error);
+                    result.complete(HttpCallResult.failed(cause instanceof Exception ? (Exception) cause
+                        : new RuntimeException(cause)));
+                }
+            });
+            return;
+        }
+        CompletableFuture<Void> permit = needed.get(index).acquire(flow);
+        current.set(permit);
+        if (result.isCancelled()) {
+            permit.cancel(true);
+        }
+        permit.whenComplete((ignored, error) -> {
+            if (error == null) {
+                admit(needed, index + 1, flow, send, result, current);
+            }
+        });
+    }
+
+    private List<TokenBucket> bucketsFor(Limits limits, String url) {
+        List<TokenBucket> needed = new ArrayList<>(2);
+        if (limits.originRate > 0) {
+            String origin = originOf(url);
+            if (origin != null) {
+                needed.add(bucket("origin " + origin, origin, limits.originRate, limits.burst));
+            }
+        }
+        if (limits.environmentRate > 0) {
+            String environment = ApplicationState.getInstance().getSelectedEnvironment();
+            String label = environment != null ? environment : "environment";
+            needed.add(bucket("environment " + label, label, limits.environmentRate, limits.burst));
+        }
+        return needed;
+    }
+
+    private TokenBucket bucket(String key, String label, double rate, int burst) {
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(label));
+        bucket.configure(rate, burst > 0 ? burst : (int) Math.max(1, Math.ceil(rate)));
+        return bucket;
+    }
+
+    private static String originOf(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            if (uri.getHost() == null) {
+                return null;
+            }
+            return uri.getPort() >= 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Summary of the buckets in use, e.g. "Rate: api.example.com 9.8/10 req/s, 4 queued"
+     */
+    public String summary() {
+        long now = System.nanoTime();
+        List<TokenBucket> busy = new ArrayList<>();
+        for (TokenBucket bucket : buckets.values()) {
+            if (bucket.isBusy(now)) {
+                busy.add(bucket);
+            }
+        }
+        if (busy.isEmpty()) {
+            return "";
+        }
+        busy.sort((a, b) -> Integer.compare(b.getQueued(), a.getQueued()));
+        StringBuilder sb = new StringBuilder("Rate: ");
+        for (int i = 0; i < Math.min(2, busy.size()); i++) {
+            if (i > 0) {
+                sb.append(" · ");
+            }
+            sb.append(busy.get(i).format());
+        }
+        if (busy.size() > 2) {
+            sb.append(" · +").append(busy.size() - 2).append(" more");
+        }
+        return sb.toString();
+    }
+
+    private void publishSummary() {
+        long now = System.nanoTime();
+        for (TokenBucket bucket : buckets.values()) {
+            bucket.sample(now);
+        }
+        String summary = summary();
+        if (!summary.equals(lastSummary)) {
+            lastSummary = summary;
+            ApplicationState.getInstance().setSummary(ApplicationState.SUMMARY_RATE_LIMIT, summary);
+        }
+    }
+
+    /**
+     * The rate limit settings of an environment
+     */
+    public static final class Limits {
+        public static final Limits NONE = new Limits(0, 0, 0);
+
+        private final double originRate;
+        private final double environmentRate;
+        private final int burst;
+
+        private Limits(double originRate, double environmentRate, int burst) {
+            this.originRate = originRate;
+            this.environmentRate = environmentRate;
+            this.burst = burst;
+        }
+
+        /**
+         * Read the limits from the environment's settings
+         *
+         * @throws IllegalArgumentException if a setting cannot be parsed
+         */
+        public static Limits resolve(Map<String, String> environmentVariables) {
+            if (environmentVariables == null) {
+                return NONE;
+            }
+            Double originRate = EnvironmentSettings.parseRate(EnvironmentSettings.RATE_LIMIT,
+                environmentVariables.get(EnvironmentSettings.RATE_LIMIT));
+            Double environmentRate = EnvironmentSettings.parseRate(EnvironmentSettings.ENVIRONMENT_RATE_LIMIT,
+                environmentVariables.get(EnvironmentSettings.ENVIRONMENT_RATE_LIMIT));
+            if (originRate == null && environmentRate == null) {
+                return NONE;
+            }
+            Integer burst = EnvironmentSettings.parseCount(EnvironmentSettings.RATE_BURST,
+                environmentVariables.get(EnvironmentSettings.RATE_BURST));
+            return new Limits(originRate != null ? originRate : 0, environmentRate != null ? environmentRate : 0,
+                burst != null ? burst : 0);
+        }
+    }
+
+    /**
+     * Tokens refill at a steady rate up to the burst size; each request takes one.
+     * Waiting requests are kept in a queue per flow and admitted round-robin across flows.
+     */
+    private final class TokenBucket {
+        private final String label;
+        private double rate;
+        private int burst;
+        private double tokens;
+        private long refilledAt;
+        private final Map<String, ArrayDeque<CompletableFuture<Void>>> waiting = new HashMap<>();
+        /** Flows with waiting requests, in the order they are next served */
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private int queued;
+        private long granted;
+        private long lastUsed;
+        private ScheduledFuture<?> drainTask;
+        private long grantedAtSample;
+        private long sampledAt;
+        private double achieved;
+
+        TokenBucket(String label) {
+            this.label = label;
+            this.refilledAt = System.nanoTime();
+            this.sampledAt = refilledAt;
+            this.tokens = -1;
+        }
+
+        synchronized void configure(double newRate, int newBurst) {
+            if (newRate == rate && newBurst == burst) {
+                return;
+            }
+            refill(System.nanoTime());
+            rate = newRate;
+            burst = newBurst;
+            // A new bucket starts full
+            tokens = tokens < 0 ? burst : Math.min(tokens, burst);
+        }
+
+        CompletableFuture<Void> acquire(String flow) {
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                lastUsed = now;
+                if (queued == 0 && tokens >= 1) {
+                    tokens--;
+                    granted++;
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> permit = new CompletableFuture<>();
+                ArrayDeque<CompletableFuture<Void>> queue = waiting.get(flow);
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    waiting.put(flow, queue);
+                    turns.add(flow);
+                }
+                queue.add(permit);
+                queued++;
+                scheduleDrain();
+                permit.whenComplete((ignored, error) -> {
+                    if (permit.isCancelled()) {
+                        forget(flow, permit);
+                    }
+                });
+                return permit;
+            }
+        }
+
+        /**
+         * Drop a request that was cancelled while waiting
+         */
+        private synchronized void forget(String flow, CompletableFuture<Void> permit) {
+            ArrayDeque<CompletableFuture<Void>> queue = waiting.get(flow);
+            if (queue != null && queue.remove(permit)) {
+                queued--;
+                if (queue.isEmpty()) {
+                    waiting.remove(flow);
+                    turns.remove(flow);
+                }
+            }
+        }
+
+        /**
+         * Admit as many waiting requests as there are tokens, one flow at a time
+         */
+        private void drain() {
+            List<CompletableFuture<Void>> admitted = new ArrayList<>();
+            synchronized (this) {
+                drainTask = null;
+                long now = System.nanoTime();
+                refill(now);
+                while (queued > 0 && tokens >= 1) {
+                    String flow = turns.poll();
+                    ArrayDeque<CompletableFuture<Void>> queue = waiting.get(flow);
+                    CompletableFuture<Void> permit = queue.poll();
+                    queued--;
+                    if (queue.isEmpty()) {
+                        waiting.remove(flow);
+                    } else {
+                        turns.add(flow);
+                    }
+                    if (permit.isDone()) {
+                        continue; // Cancelled just now; it takes no token
+                    }
+                    tokens--;
+                    granted++;
+                    lastUsed = now;
+                    admitted.add(permit);
+                }
+                if (queued > 0) {
+                    scheduleDrain();
+                }
+            }
+            // Complete outside the lock; each completion starts a request
+            admitted.forEach(permit -> permit.complete(null));
+        }
+
+        /**
+         * Run drain once the next token is due. Guarded by this.
+         */
+        private void scheduleDrain() {
+            if (drainTask != null) {
+                return;
+            }
+            long delay = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate * 1_000_000_000L);
+            drainTask = scheduler.schedule(this::drain, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void refill(long now) {
+            if (tokens >= 0 && rate > 0) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1_000_000_000.0);
+            }
+            refilledAt = now;
+        }
+
+        synchronized boolean isBusy(long now) {
+            return queued > 0 || now - lastUsed < IDLE_NANOS;
+        }
+
+        synchronized int getQueued() {
+            return queued;
+        }
+
+        /**
+         * Update the achieved rate from the requests admitted since the last sample
+         */
+        synchronized void sample(long now) {
+            long elapsed = now - sampledAt;
+            if (elapsed <= 0) {
+                return;
+            }
+            double current = (granted - grantedAtSample) * 1_000_000_000.0 / elapsed;
+            // Smooth over a couple of samples so the figure does not flicker
+            achieved = achieved * 0.5 + current * 0.5;
+            grantedAtSample = granted;
+            sampledAt = now;
+        }
+
+        synchronized String format() {
+            // Slow limits read better per minute
+            String text = rate >= 1
+                ? String.format("%s %s/%s req/s", label, formatRate(achieved), formatRate(rate))
+                : String.format("%s %s/%s req/min", label, formatRate(achieved * 60), formatRate(rate * 60));
+            return queued > 0 ? text + ", " + queued + " queued" : text;
+        }
+
+        private String formatRate(double value) {
+            return value >= 10 || value == Math.rint(value) ? String.valueOf(Math.round(value))
+                : String.format("%.1f", value);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.google.gson.Gson;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * The body of a request for the call's body mode, with the Content-Type that goes with it.
+ * File and multipart bodies stream from disk as the client sends them, so even uploads of several
+ * gigabytes only use the client's small, fixed-size send buffers.
+ */
+public final class RequestBody {
+
+    /** Prefix marking a multipart value as a file to upload, as in curl -F */
+    public static final String FILE_PREFIX = "@";
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+    private static final String TEXT_PLAIN = "text/plain; charset=UTF-8";
+
+    private final HttpRequest.BodyPublisher publisher;
+    private final String contentType;
+    private final boolean streamed;
+    private final boolean contentTypeRequired;
+
+    private RequestBody(HttpRequest.BodyPublisher publisher, String contentType, boolean streamed,
+                        boolean contentTypeRequired) {
+        this.publisher = publisher;
+        this.contentType = contentType;
+        this.streamed = streamed;
+        this.contentTypeRequired = contentTypeRequired;
+    }
+
+    /**
+     * Build the body for a call whose templates have already been resolved
+     *
+     * @throws FileNotFoundException if a file to upload does not exist
+     */
+    public static RequestBody forCall(ApiCall apiCall, Map<String, String> resolvedBody, Gson gson) throws IOException {
+        return forCall(apiCall, resolvedBody, null, gson);
+    }
+
+    /**
+     * Build the body for a call whose templates have already been resolved. A raw or JSON body that was
+     * already encoded (see {@link CompiledApiCall#encodeBody}) is sent from those bytes as they are.
+     *
+     * @param encodedBody the encoded raw or JSON body, or null to encode it here
+     * @throws FileNotFoundException if a file to upload does not exist
+     */
+    public static RequestBody forCall(ApiCall apiCall, Map<String, String> resolvedBody, byte[] encodedBody,
+                                      Gson gson) throws IOException {
+        switch (apiCall.getBodyMode()) {
+            case ApiCall.BODY_RAW:
+                byte[] raw = encodedBody != null ? encodedBody
+                    : (apiCall.getRawBody() != null ? apiCall.getRawBody() : "").getBytes(StandardCharsets.UTF_8);
+                return new RequestBody(HttpRequest.BodyPublishers.ofByteArray(raw), sniffContentType(raw), false, false);
+            case ApiCall.BODY_FILE:
+                Path file = resolvePath(apiCall.getBodyFile());
+                if (file == null) {
+                    throw new IllegalArgumentException("No file selected for the request body");
+                }
+                return new RequestBody(HttpRequest.BodyPublishers.ofFile(file), probeContentType(file), true, false);
+            case ApiCall.BODY_MULTIPART:
+                return multipart(resolvedBody);
+            default:
+                byte[] json = encodedBody != null ? encodedBody
+                    : resolvedBody == null || resolvedBody.isEmpty() ? new byte[0]
+                    : gson.toJson(resolvedBody).getBytes(StandardCharsets.UTF_8);
+                return new RequestBody(HttpRequest.BodyPublishers.ofByteArray(json), "application/json", false, false);
+        }
+    }
+
+    /**
+     * The media type of a raw body from its first character: JSON for an object or array, XML for markup,
+     * otherwise plain text
+     */
+    static String sniffContentType(byte[] body) {
+        int i = 0;
+        // Skip a UTF-8 byte order mark
+        if (body.length >= 3 && (body[0] & 0xFF) == 0xEF && (body[1] & 0xFF) == 0xBB && (body[2] & 0xFF) == 0xBF) {
+            i = 3;
+        }
+        while (i < body.length && Character.isWhitespace(body[i])) {
+            i++;
+        }
+        if (i == body.length) {
+            return TEXT_PLAIN;
+        }
+        switch (body[i]) {
+            case '{':
+            case '[':
+                return "application/json";
+            case '<':
+                return "application/xml";
+            default:
+                return TEXT_PLAIN;
+        }
+    }
+
+    /**
+     * Text fields and files; a value of "@path" uploads the file at that path
+     */
+    private static RequestBody multipart(Map<String, String> fields) throws IOException {
+        MultipartBody multipart = new MultipartBody();
+        boolean hasFile = false;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String value = field.getValue();
+            if (value != null && value.startsWith(FILE_PREFIX) && value.length() > FILE_PREFIX.length()) {
+                Path file = resolvePath(value.substring(FILE_PREFIX.length()));
+                multipart.addFile(field.getKey(), file);
+                hasFile = true;
+            } else {
+                multipart.addField(field.getKey(), value);
+            }
+        }
+        // The boundary is part of the Content-Type, so a Content-Type header on the call cannot be used
+        return new RequestBody(multipart.build(), multipart.getContentType(), hasFile, true);
+    }
+
+    /**
+     * A file path as typed, with a leading ~ expanded to the home directory; null if blank
+     */
+    static Path resolvePath(String path) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        String trimmed = path.trim();
+        if (trimmed.equals("~") || trimmed.startsWith("~/")) {
+            trimmed = System.getProperty("user.home") + trimmed.substring(1);
+        }
+        return Paths.get(trimmed);
+    }
+
+    /**
+     * The file's media type from its name, or application/octet-stream if unknown
+     */
+    static String probeContentType(Path file) {
+        try {
+            String type = Files.probeContentType(file);
+            return type != null ? type : OCTET_STREAM;
+        } catch (IOException e) {
+            return OCTET_STREAM;
+        }
+    }
+
+    public HttpRequest.BodyPublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * The Content-Type to send when the call does not set one
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Whether the body is read from disk while sending; such uploads may take longer than the request timeout
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Whether {@link #getContentType()} must replace any Content-Type header on the call
+     */
+    public boolean isContentTypeRequired() {
+        return contentTypeRequired;
+    }
+}
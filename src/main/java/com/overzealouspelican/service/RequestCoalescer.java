@@ -0,0 +1,230 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApplicationState;
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical GET and HEAD requests that are in flight at the same time share one exchange
+ * (single-flight). Follows the Singleton pattern so calls from every run can find each other.
+ * Requests are identical when method, resolved URL, headers, HTTP version and compression all match.
+ * The first request goes out; the others wait for it and receive the same {@link HttpCallResult}.
+ * Nothing is kept once the exchange completes, so a later request always goes to the server.
+ * Enabled per environment with protocaller.coalesce.
+ */
+public class RequestCoalescer {
+
+    private static RequestCoalescer instance;
+
+    private final Map<Key, Flight> inFlight;
+    private final AtomicLong sent;
+    private final AtomicLong saved;
+
+    private RequestCoalescer() {
+        this.inFlight = new ConcurrentHashMap<>();
+        this.sent = new AtomicLong();
+        this.saved = new AtomicLong();
+    }
+
+    /**
+     * Get the singleton instance of RequestCoalescer
+     */
+    public static synchronized RequestCoalescer getInstance() {
+        if (instance == null) {
+            instance = new RequestCoalescer();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether requests with this method may share an exchange: only those that cannot change anything
+     */
+    public static boolean canCoalesce(String method) {
+        return "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+    }
+
+    /**
+     * Join an identical request already in flight, or start one with {@code send}.
+     * Each caller gets its own future; cancelling it detaches that caller only, and the exchange itself
+     * is cancelled once every caller has detached.
+     */
+    public CompletableFuture<HttpCallResult> execute(String method, String url, Map<String, String> headers,
+                                                     String httpVersion, Boolean compression,
+                                                     Supplier<CompletableFuture<HttpCallResult>> send) {
+        Key key = new Key(method.toUpperCase(), url, headers, httpVersion, compression);
+        while (true) {
+            Flight flight = inFlight.get(key);
+            if (flight == null) {
+                Flight started = new Flight();
+                if (inFlight.putIfAbsent(key, started) != null) {
+                    continue; // Another caller started it first; join theirs
+                }
+                sent.incrementAndGet();
+                CompletableFuture<HttpCallResult> attached = started.attach();
+                started.start(key, send);
+                return attached;
+            }
+            CompletableFuture<HttpCallResult> attached = flight.attach();
+            if (attached != null) {
+                saved.incrementAndGet();
+                publishSummary();
+                return attached;
+            }
+            // Completing or abandoned just now; it leaves the map, so try again
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Requests that went to the server while coalescing was on
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Requests answered by sharing another request's exchange
+     */
+    public long getSaved() {
+        return saved.get();
+    }
+
+    /**
+     * One-line summary suitable for the status bar
+     */
+    public String summary() {
+        return "Coalesced: " + saved.get() + " request" + (saved.get() == 1 ? "" : "s") + " saved";
+    }
+
+    private void publishSummary() {
+        ApplicationState.getInstance().setSummary(ApplicationState.SUMMARY_COALESCING, summary());
+    }
+
+    /**
+     * One exchange and the callers waiting for it
+     */
+    private final class Flight {
+        private final List<CompletableFuture<HttpCallResult>> waiting = new ArrayList<>();
+        private CompletableFuture<HttpCallResult> exchange;
+        private int callers;
+        private boolean closed;
+
+        /**
+         * Add a caller, or return null if the flight no longer takes callers
+         */
+        synchronized CompletableFuture<HttpCallResult> attach() {
+            if (closed) {
+                return null;
+            }
+            callers++;
+            CompletableFuture<HttpCallResult> caller = new CompletableFuture<>();
+            caller.whenComplete((ignored, error) -> {
+                if (caller.isCancelled()) {
+                    detach();
+                }
+            });
+            waiting.add(caller);
+            return caller;
+        }
+
+        void start(Key key, Supplier<CompletableFuture<HttpCallResult>> send) {
+            CompletableFuture<HttpCallResult> call = send.get();
+            synchronized (this) {
+                exchange = call;
+                if (closed) {
+                    call.cancel(true);
+                }
+            }
+            call.whenComplete((result, error) -> {
+                List<CompletableFuture<HttpCallResult>> callersToComplete;
+                synchronized (this) {
+                    closed = true;
+                    callersToComplete = new ArrayList<>(waiting);
+                }
+                inFlight.remove(key, this);
+                HttpCallResult outcome = result;
+                if (error != null) {
+                    Throwable cause = AsyncCalls.unwrap(error);
+                    outcome = HttpCallResult.failed(cause instanceof Exception ? (Exception) cause
+                        : new RuntimeException(cause));
+                }
+                for (CompletableFuture<HttpCallResult> caller : callersToComplete) {
+                    caller.complete(outcome);
+                }
+            });
+        }
+
+        /**
+         * A caller gave up; cancel the exchange once nobody is waiting for it
+         */
+        private void detach() {
+            CompletableFuture<HttpCallResult> abandoned = null;
+            synchronized (this) {
+                callers--;
+                if (callers == 0 && !closed) {
+                    closed = true;
+                    abandoned = exchange;
+                }
+            }
+            if (abandoned != null) {
+                abandoned.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * The parts of a resolved request that decide its response. Header names compare case-insensitively.
+     */
+    private static final class Key {
+        private final String method;
+        private final String url;
+        private final Map<String, String> headers;
+        private final String httpVersion;
+        private final Boolean compression;
+        private final int hash;
+
+        Key(String method, String url, Map<String, String> headers, String httpVersion, Boolean compression) {
+            this.method = method;
+            this.url = url;
+            this.headers = new TreeMap<>();
+            if (headers != null) {
+                headers.forEach((name, value) -> {
+                    if (name != null) {
+                        this.headers.put(name.toLowerCase(), value);
+                    }
+                });
+            }
+            this.httpVersion = httpVersion;
+            this.compression = compression;
+            this.hash = Objects.hash(method, url, this.headers, httpVersion, compression);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && method.equals(other.method) && url.equals(other.url)
+                && headers.equals(other.headers) && Objects.equals(httpVersion, other.httpVersion)
+                && Objects.equals(compression, other.compression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
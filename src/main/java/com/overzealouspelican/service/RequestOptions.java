@@ -0,0 +1,81 @@
+package com.overzealouspelican.service;
+
+/**
+ * How {@link HttpRequestExecutor} sends one request, beyond what the resolved call itself describes:
+ * timeouts, a proxy, a pre-encoded body and a listener for streamed responses.
+ * Immutable; each {@code with...} method returns a copy, so new options do not need new executor overloads.
+ */
+public final class RequestOptions {
+
+    /** Default timeouts, a direct connection, the body built from the call and no stream listener */
+    public static final RequestOptions DEFAULT = new RequestOptions(Timeouts.DEFAULT, null, null, null);
+
+    private final Timeouts timeouts;
+    private final String proxy;
+    private final byte[] encodedBody;
+    private final StreamListener streamListener;
+
+    private RequestOptions(Timeouts timeouts, String proxy, byte[] encodedBody, StreamListener streamListener) {
+        this.timeouts = timeouts;
+        this.proxy = proxy;
+        this.encodedBody = encodedBody;
+        this.streamListener = streamListener;
+    }
+
+    /**
+     * Copy of these options applying the given connect and read timeouts.
+     * The total timeout is left to the caller, which may cover several requests with it.
+     */
+    public RequestOptions withTimeouts(Timeouts timeouts) {
+        return new RequestOptions(timeouts != null ? timeouts : Timeouts.DEFAULT, proxy, encodedBody, streamListener);
+    }
+
+    /**
+     * Copy of these options sending the request through a "host:port" proxy (null to connect directly).
+     * Requests through different proxies use different clients and connection pools.
+     */
+    public RequestOptions withProxy(String proxy) {
+        return new RequestOptions(timeouts, proxy, encodedBody, streamListener);
+    }
+
+    /**
+     * Copy of these options sending a raw or JSON body from bytes that were already encoded,
+     * so repeated executions do not serialize the same body again (null to build it from the call)
+     */
+    public RequestOptions withEncodedBody(byte[] encodedBody) {
+        return new RequestOptions(timeouts, proxy, encodedBody, streamListener);
+    }
+
+    /**
+     * Copy of these options passing the events of a streamed response to a listener as they arrive
+     * (null to only collect the body); see {@link StreamingSubscriber#isStreamed} for which responses are streamed
+     */
+    public RequestOptions withStreamListener(StreamListener streamListener) {
+        return new RequestOptions(timeouts, proxy, encodedBody, streamListener);
+    }
+
+    public Timeouts getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * The "host:port" proxy, or null for a direct connection
+     */
+    public String getProxy() {
+        return proxy;
+    }
+
+    /**
+     * The encoded body, or null to build it from the call
+     */
+    public byte[] getEncodedBody() {
+        return encodedBody;
+    }
+
+    /**
+     * The listener for streamed responses, or null
+     */
+    public StreamListener getStreamListener() {
+        return streamListener;
+    }
+}
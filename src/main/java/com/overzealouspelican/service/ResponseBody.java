@@ -0,0 +1,406 @@
+package com.overzealouspelican.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * HTTP response body that is kept in memory when small and spooled to a temp file when large.
+ * Only a bounded preview of a spooled body stays on the heap; the rest is read back lazily,
+ * one memory-mapped page at a time, so a multi-hundred-megabyte response never has to fit in memory.
+ * A streamed body may never end, so only its tail is kept and the bytes before it are just counted.
+ */
+public class ResponseBody {
+
+    /** Bodies up to this size are kept fully in memory */
+    public static final int DEFAULT_MEMORY_LIMIT = 4 * 1024 * 1024;
+    /** Bytes of a spooled body kept in memory for quick display */
+    public static final int PREVIEW_SIZE = 64 * 1024;
+    /** Default page size used when paging through a spooled body */
+    public static final int PAGE_SIZE = 256 * 1024;
+    /** Bytes at the end of a streamed body kept for the result; its events have already been shown as they arrived */
+    public static final int STREAM_TAIL_SIZE = 1024 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final byte[] bytes;
+    private final Path spoolFile;
+    private final long size;
+    private final Charset charset;
+    private final long droppedBytes;
+
+    private ResponseBody(byte[] bytes, Path spoolFile, long size, Charset charset) {
+        this(bytes, spoolFile, size, charset, 0);
+    }
+
+    private ResponseBody(byte[] bytes, Path spoolFile, long size, Charset charset, long droppedBytes) {
+        this.bytes = bytes;
+        this.spoolFile = spoolFile;
+        this.size = size;
+        this.charset = charset;
+        this.droppedBytes = droppedBytes;
+        if (spoolFile != null) {
+            // Delete the temp file once no result refers to it any more
+            CLEANER.register(this, () -> {
+                try {
+                    Files.deleteIfExists(spoolFile);
+                } catch (IOException ignored) {
+                    // Best effort; the OS will clean the temp directory eventually
+                }
+            });
+        }
+    }
+
+    /**
+     * Wrap a body that is already in memory
+     */
+    public static ResponseBody ofString(String body) {
+        byte[] data = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return new ResponseBody(data, null, data.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wrap bytes that are already in memory
+     */
+    static ResponseBody ofBytes(byte[] data, Charset charset) {
+        return new ResponseBody(data, null, data.length, charset);
+    }
+
+    /**
+     * A body read from a file the caller keeps, such as a cache entry. Small files are read into memory;
+     * larger ones get a spool file of their own (a hard link where the file system allows, else a copy),
+     * so the body stays readable whatever later happens to the original.
+     */
+    static ResponseBody ofFile(Path file, Charset charset) throws IOException {
+        long size = Files.size(file);
+        if (size <= DEFAULT_MEMORY_LIMIT) {
+            return new ResponseBody(Files.readAllBytes(file), null, size, charset);
+        }
+        Path spool = Files.createTempFile("protocaller-body-", ".tmp");
+        Files.delete(spool);
+        try {
+            Files.createLink(spool, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(file, spool);
+        }
+        byte[] preview;
+        try (FileChannel channel = FileChannel.open(spool, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, PREVIEW_SIZE));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Fill the preview
+            }
+            preview = java.util.Arrays.copyOf(buffer.array(), buffer.position());
+        }
+        return new ResponseBody(preview, spool, size, charset);
+    }
+
+    /**
+     * Body subscriber for HttpClient.send/sendAsync: collects the body in memory up to the limit and then
+     * into a temp file as buffers arrive, so no thread waits on the body stream
+     */
+    public static HttpResponse.BodySubscriber<ResponseBody> subscriber(Charset charset, int memoryLimit) {
+        return new SpoolingSubscriber(charset, memoryLimit);
+    }
+
+    /**
+     * Body subscriber for a streamed response: keeps only the last {@code tailLimit} bytes in memory and counts
+     * the rest, so a stream that runs for hours uses no more memory than a short one and nothing on disk.
+     * A tail that had to drop bytes starts at the first line break within it, so it begins with a whole line.
+     */
+    public static HttpResponse.BodySubscriber<ResponseBody> tailSubscriber(Charset charset, int tailLimit) {
+        return new TailSubscriber(charset, tailLimit);
+    }
+
+    /**
+     * Collects buffers one batch at a time, requesting the next batch only after the previous one is stored
+     */
+    private static final class SpoolingSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        private final Charset charset;
+        private final int memoryLimit;
+        private final ByteArrayOutputStream memory;
+        private Flow.Subscription subscription;
+        private Path file;
+        private FileChannel channel;
+        private byte[] preview;
+        private long size;
+
+        SpoolingSubscriber(Charset charset, int memoryLimit) {
+            this.charset = charset;
+            this.memoryLimit = memoryLimit;
+            this.memory = new ByteArrayOutputStream(Math.min(memoryLimit, INITIAL_BUFFER_SIZE));
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    write(buffer);
+                }
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+            }
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            int length = buffer.remaining();
+            size += length;
+            if (channel == null && memory.size() + length <= memoryLimit) {
+                if (buffer.hasArray()) {
+                    memory.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                } else {
+                    byte[] copy = new byte[length];
+                    buffer.get(copy);
+                    memory.write(copy, 0, length);
+                }
+                return;
+            }
+            if (channel == null) {
+                file = Files.createTempFile("protocaller-body-", ".tmp");
+                channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                byte[] buffered = memory.toByteArray();
+                memory.reset();
+                preview = java.util.Arrays.copyOf(buffered, Math.min(buffered.length, PREVIEW_SIZE));
+                channel.write(ByteBuffer.wrap(buffered));
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Best effort; the OS will clean the temp directory eventually
+                }
+            }
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (channel == null) {
+                result.complete(new ResponseBody(memory.toByteArray(), null, size, charset));
+                return;
+            }
+            try {
+                channel.close();
+                result.complete(new ResponseBody(preview, file, size, charset));
+            } catch (IOException e) {
+                onError(e);
+            }
+        }
+    }
+
+    /**
+     * Keeps the last bytes of a body in a ring buffer that grows up to the limit
+     */
+    private static final class TailSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        private final Charset charset;
+        private final int limit;
+        private Flow.Subscription subscription;
+        private byte[] buffer;
+        /** Bytes held, at most limit; once the buffer is full the oldest is at start */
+        private int length;
+        private int start;
+        private long size;
+
+        TailSubscriber(Charset charset, int limit) {
+            this.charset = charset;
+            this.limit = limit;
+            this.buffer = new byte[Math.min(limit, INITIAL_BUFFER_SIZE)];
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer source : buffers) {
+                size += source.remaining();
+                write(source);
+            }
+            subscription.request(1);
+        }
+
+        private void write(ByteBuffer source) {
+            while (source.hasRemaining()) {
+                if (length < limit) {
+                    if (length == buffer.length) {
+                        buffer = java.util.Arrays.copyOf(buffer, Math.min(buffer.length * 2, limit));
+                    }
+                    int chunk = Math.min(source.remaining(), buffer.length - length);
+                    source.get(buffer, length, chunk);
+                    length += chunk;
+                } else {
+                    // Full: overwrite the oldest bytes
+                    int chunk = Math.min(source.remaining(), limit - start);
+                    source.get(buffer, start, chunk);
+                    start = (start + chunk) % limit;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            byte[] tail = new byte[length];
+            System.arraycopy(buffer, start, tail, 0, length - start);
+            System.arraycopy(buffer, 0, tail, length - start, start);
+            long dropped = size - length;
+            if (dropped > 0) {
+                for (int i = 0; i < tail.length; i++) {
+                    if (tail[i] == '\n') {
+                        dropped += i + 1;
+                        tail = java.util.Arrays.copyOfRange(tail, i + 1, tail.length);
+                        break;
+                    }
+                }
+            }
+            buffer = null;
+            result.complete(new ResponseBody(tail, null, tail.length, charset, dropped));
+        }
+    }
+
+    /**
+     * True if the body was too large for memory and lives in a temp file
+     */
+    public boolean isSpooled() {
+        return spoolFile != null;
+    }
+
+    /**
+     * True if this is the tail of a streamed body whose earlier bytes were only counted
+     */
+    public boolean isTruncated() {
+        return droppedBytes > 0;
+    }
+
+    /**
+     * Bytes of a streamed body that came before the kept tail
+     */
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * Size in bytes of the body held, in memory or spooled; see {@link #getDroppedBytes} for a truncated stream
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * The whole body for in-memory bodies, or the preview for spooled ones
+     */
+    public String getText() {
+        return decode(ByteBuffer.wrap(bytes), false);
+    }
+
+    /**
+     * The whole body if it is held in memory, null if it is spooled or only its tail was kept
+     */
+    byte[] getBytesIfInMemory() {
+        return spoolFile == null && droppedBytes == 0 ? bytes : null;
+    }
+
+    /**
+     * Write the whole body to a file, replacing it if it exists
+     */
+    void copyTo(Path target) throws IOException {
+        if (spoolFile != null) {
+            Files.copy(spoolFile, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.write(target, bytes);
+        }
+    }
+
+    /**
+     * Number of pages of the given size
+     */
+    public int getPageCount(int pageSize) {
+        return (int) Math.max(1, (size + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Read one page of the body. Spooled bodies are memory-mapped page by page.
+     */
+    public String readPage(int pageIndex, int pageSize) throws IOException {
+        long offset = (long) pageIndex * pageSize;
+        if (offset >= size) {
+            return "";
+        }
+        int length = (int) Math.min(pageSize, size - offset);
+
+        if (spoolFile == null) {
+            return decode(ByteBuffer.wrap(bytes, (int) offset, length), offset > 0);
+        }
+
+        try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+            ByteBuffer page = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            return decode(page, offset > 0);
+        }
+    }
+
+    private String decode(ByteBuffer buffer, boolean midStream) {
+        if (midStream && StandardCharsets.UTF_8.equals(charset)) {
+            // Skip continuation bytes so a page never starts in the middle of a character
+            while (buffer.hasRemaining() && (buffer.get(buffer.position()) & 0xC0) == 0x80) {
+                buffer.position(buffer.position() + 1);
+            }
+        }
+        // Charset.decode replaces malformed input rather than failing
+        return charset.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,278 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When a call is retried or hedged, resolved from the call's settings over the environment's.
+ * Retries follow HTTP's idempotency rules: GET, HEAD, OPTIONS, PUT and DELETE are retried after any
+ * transient failure, while POST and PATCH are only retried when the request never reached the server
+ * or carries an Idempotency-Key header. Delays grow exponentially with full jitter, and a Retry-After
+ * header from a 429 or 503 takes their place.
+ * Hedging only applies to GET, HEAD and OPTIONS, which are safe to have in flight twice.
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, null);
+
+    public static final long DEFAULT_BACKOFF_MILLIS = 200;
+    /** Cap on a single backoff delay; a Retry-After asking for longer ends the retries instead */
+    static final long MAX_DELAY_MILLIS = 30_000;
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE");
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final Set<Integer> RETRIABLE_STATUSES = Set.of(408, 429, 502, 503, 504);
+
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final Hedge hedge;
+
+    private RetryPolicy(int maxRetries, long backoffMillis, Hedge hedge) {
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+        this.hedge = hedge;
+    }
+
+    /**
+     * The policy for a call: its own retries and hedge settings, else the environment's, else none
+     *
+     * @throws IllegalArgumentException if a setting cannot be parsed
+     */
+    public static RetryPolicy resolve(Integer callRetries, String callHedge, Map<String, String> environmentVariables) {
+        Map<String, String> variables = environmentVariables != null ? environmentVariables : Map.of();
+        Integer retries = callRetries != null ? callRetries
+            : EnvironmentSettings.parseCount(EnvironmentSettings.RETRIES, variables.get(EnvironmentSettings.RETRIES));
+        Integer backoff = EnvironmentSettings.parseCount(EnvironmentSettings.RETRY_BACKOFF,
+            variables.get(EnvironmentSettings.RETRY_BACKOFF));
+        Hedge hedge = Hedge.parse(callHedge);
+        if (hedge == null) {
+            hedge = Hedge.parse(variables.get(EnvironmentSettings.HEDGE));
+        }
+
+        int maxRetries = retries != null ? retries : 0;
+        if (maxRetries == 0 && (hedge == null || hedge == Hedge.OFF)) {
+            return NONE;
+        }
+        return new RetryPolicy(maxRetries, backoff != null ? backoff : DEFAULT_BACKOFF_MILLIS,
+            hedge == Hedge.OFF ? null : hedge);
+    }
+
+    public boolean isNone() {
+        return maxRetries == 0 && hedge == null;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * The hedge setting, or null if calls are not hedged
+     */
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    /**
+     * Whether a backup request may be sent for this method
+     */
+    public boolean mayHedge(String method) {
+        return hedge != null && method != null && SAFE_METHODS.contains(method.toUpperCase());
+    }
+
+    /**
+     * Whether a result is a transient failure worth another attempt, given what the method allows
+     */
+    public boolean isRetriable(String method, Map<String, String> headers, HttpCallResult result) {
+        String upperMethod = method != null ? method.toUpperCase() : "GET";
+        boolean idempotent = IDEMPOTENT_METHODS.contains(upperMethod) || hasIdempotencyKey(headers);
+
+        Exception error = result.getError();
+        if (error != null) {
+            if (error instanceof ConnectException || error instanceof HttpConnectTimeoutException) {
+                // Nothing reached the server, so any method may be sent again
+                return true;
+            }
+            return idempotent && isTransient(error);
+        }
+        return idempotent && RETRIABLE_STATUSES.contains(result.getStatusCode());
+    }
+
+    /**
+     * How long to wait before the given retry (1 for the first): the server's Retry-After if it sent one,
+     * otherwise a random delay of up to base * 2^(retry - 1), capped at MAX_DELAY_MILLIS.
+     * Returns -1 when the server asks for a longer wait than the cap, so the caller gives up instead.
+     */
+    public long delayBeforeRetry(int retry, HttpCallResult result) {
+        long retryAfter = retryAfterMillis(result);
+        if (retryAfter >= 0) {
+            return retryAfter <= MAX_DELAY_MILLIS ? retryAfter : -1;
+        }
+        long ceiling = backoffMillis << Math.min(retry - 1, 20);
+        ceiling = Math.min(Math.max(ceiling, 0), MAX_DELAY_MILLIS);
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    /**
+     * The Retry-After of a 429 or 503 in milliseconds, either delay-seconds or an HTTP-date; -1 if absent
+     */
+    static long retryAfterMillis(HttpCallResult result) {
+        if (result.getStatusCode() != 429 && result.getStatusCode() != 503 || result.getHeaders() == null) {
+            return -1;
+        }
+        for (Map.Entry<String, List<String>> entry : result.getHeaders().entrySet()) {
+            if (entry.getKey() == null || !entry.getKey().equalsIgnoreCase("Retry-After") || entry.getValue().isEmpty()) {
+                continue;
+            }
+            String value = entry.getValue().get(0).trim();
+            try {
+                return Math.max(0, Long.parseLong(value) * 1000);
+            } catch (NumberFormatException e) {
+                // Not delay-seconds; try an HTTP-date
+            }
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasIdempotencyKey(Map<String, String> headers) {
+        if (headers != null) {
+            for (String name : headers.keySet()) {
+                if (name != null && name.equalsIgnoreCase("Idempotency-Key")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Network failures such as a reset connection or a timeout; a missing host or body file will not
+     * fix itself by the next attempt
+     */
+    private static boolean isTransient(Exception error) {
+        return error instanceof IOException
+            && !(error instanceof UnknownHostException)
+            && !(error instanceof FileNotFoundException)
+            && !(error instanceof NoSuchFileException);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{retries=" + maxRetries + ", backoff=" + backoffMillis + " ms, hedge=" + hedge + "}";
+    }
+
+    /**
+     * When to send a backup request: after a fixed delay, or once the call has taken longer than a
+     * percentile of recent latencies to the same origin
+     */
+    public static final class Hedge {
+        static final Hedge OFF = new Hedge(0, 0);
+
+        private final double percentile;
+        private final long fixedMillis;
+
+        private Hedge(double percentile, long fixedMillis) {
+            this.percentile = percentile;
+            this.fixedMillis = fixedMillis;
+        }
+
+        /**
+         * Parse "off", a percentile such as "p95" or "p99.9", or a number of milliseconds; blank means
+         * no preference
+         *
+         * @throws IllegalArgumentException for any other value
+         */
+        public static Hedge parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            String trimmed = value.trim().toLowerCase();
+            if (trimmed.equals("off") || trimmed.equals("false") || trimmed.equals("no")) {
+                return OFF;
+            }
+            try {
+                if (trimmed.startsWith("p")) {
+                    double percentile = Double.parseDouble(trimmed.substring(1));
+                    if (percentile > 0 && percentile < 100) {
+                        return new Hedge(percentile, 0);
+                    }
+                } else {
+                    long millis = Long.parseLong(trimmed.endsWith("ms") ? trimmed.substring(0, trimmed.length() - 2) : trimmed);
+                    if (millis > 0) {
+                        return new Hedge(0, millis);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid value '" + value + "' for " + EnvironmentSettings.HEDGE
+                + "; use off, a percentile such as p95, or milliseconds");
+        }
+
+        /**
+         * The delay before a backup request given recent latencies, or -1 while too few are known
+         */
+        long delayMillis(LatencyWindow recent) {
+            if (fixedMillis > 0) {
+                return fixedMillis;
+            }
+            return recent != null ? recent.percentile(percentile) : -1;
+        }
+
+        @Override
+        public String toString() {
+            if (this == OFF) {
+                return "off";
+            }
+            return fixedMillis > 0 ? fixedMillis + " ms" : "p" + (percentile == Math.rint(percentile)
+                ? String.valueOf((long) percentile) : String.valueOf(percentile));
+        }
+    }
+
+    /**
+     * The latest response times to one origin, from which hedge percentiles are taken
+     */
+    static final class LatencyWindow {
+        private static final int SIZE = 100;
+        /** Below this many samples a percentile says little, so percentile hedging waits for more */
+        private static final int MIN_SAMPLES = 10;
+
+        private final long[] samples = new long[SIZE];
+        private int count;
+        private int next;
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % SIZE;
+            count = Math.min(count + 1, SIZE);
+        }
+
+        synchronized long percentile(double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = java.util.Arrays.copyOf(samples, count);
+            java.util.Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+}
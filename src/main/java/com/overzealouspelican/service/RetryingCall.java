@@ -0,0 +1,251 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+import com.overzealouspelican.service.RetryPolicy.LatencyWindow;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs one call under a {@link RetryPolicy}: retries transient failures after a backoff and, for safe
+ * methods, sends a backup request when the current one is slower than usual, using whichever answers first.
+ * Each round of attempts is a request plus at most one hedge; a round whose requests all fail transiently
+ * starts the next round after the backoff. No thread waits in between: backoffs and hedge delays are
+ * timers, and attempts are chained on their completions.
+ * The result is the response that was used, carrying a record of every request that was sent.
+ */
+final class RetryingCall {
+
+    /** Recent response times per origin, shared by all calls so hedge percentiles reflect the server's latency */
+    private static final Map<String, LatencyWindow> LATENCY_BY_ORIGIN = new ConcurrentHashMap<>();
+
+    private final RetryPolicy policy;
+    private final String method;
+    private final Map<String, String> headers;
+    private final LatencyWindow latency;
+    private final Supplier<CompletableFuture<HttpCallResult>> send;
+    private final CompletableFuture<HttpCallResult> result;
+    /** Requests and timers still pending, cancelled if the call is */
+    private final Set<CompletableFuture<?>> pending;
+    private final long startNanos;
+    private final List<CallAttempt> attempts;
+    private int sent;
+
+    private RetryingCall(RetryPolicy policy, String method, Map<String, String> headers, String url,
+                         Supplier<CompletableFuture<HttpCallResult>> send) {
+        this.policy = policy;
+        this.method = method;
+        this.headers = headers;
+        this.latency = LATENCY_BY_ORIGIN.computeIfAbsent(originOf(url), origin -> new LatencyWindow());
+        this.send = send;
+        this.result = new CompletableFuture<>();
+        this.pending = ConcurrentHashMap.newKeySet();
+        this.startNanos = System.nanoTime();
+        this.attempts = new ArrayList<>();
+    }
+
+    /**
+     * Run a call under a policy. {@code send} starts one request and is called once per attempt.
+     * Cancelling the returned future cancels every request in flight and any pending retry.
+     */
+    static CompletableFuture<HttpCallResult> run(RetryPolicy policy, String method, Map<String, String> headers,
+                                                 String url, Supplier<CompletableFuture<HttpCallResult>> send) {
+        RetryingCall call = new RetryingCall(policy, method, headers, url, send);
+        call.result.whenComplete((ignored, error) -> {
+            if (call.result.isCancelled()) {
+                call.pending.forEach(future -> future.cancel(true));
+            }
+        });
+        call.startRound(0);
+        return call.result;
+    }
+
+    private void startRound(int retry) {
+        if (result.isDone()) {
+            return;
+        }
+        Round round = new Round(retry);
+        send(round, false);
+
+        long hedgeDelay = policy.mayHedge(method) ? policy.getHedge().delayMillis(latency) : -1;
+        if (hedgeDelay >= 0) {
+            CompletableFuture<Void> timer = CompletableFuture.runAsync(() -> hedge(round),
+                CompletableFuture.delayedExecutor(Math.max(1, hedgeDelay), TimeUnit.MILLISECONDS));
+            pending.add(timer);
+            timer.whenComplete((ignored, error) -> pending.remove(timer));
+        }
+    }
+
+    /**
+     * Send a backup request if the round's request has not been answered yet
+     */
+    private void hedge(Round round) {
+        synchronized (this) {
+            if (round.decided || result.isDone()) {
+                return;
+            }
+        }
+        send(round, true);
+    }
+
+    private void send(Round round, boolean hedge) {
+        Sent request;
+        synchronized (this) {
+            request = new Sent(++sent, hedge, System.nanoTime());
+            round.requests.add(request);
+        }
+        CompletableFuture<HttpCallResult> call = send.get();
+        request.future = call;
+        pending.add(call);
+        if (result.isDone() || round.isDecided(this)) {
+            call.cancel(true);
+        }
+        call.whenComplete((response, error) -> {
+            pending.remove(call);
+            onResponse(round, request, response, error);
+        });
+    }
+
+    private void onResponse(Round round, Sent request, HttpCallResult response, Throwable error) {
+        long now = System.nanoTime();
+        HttpCallResult outcome = response;
+        if (error != null) {
+            Throwable cause = AsyncCalls.unwrap(error);
+            outcome = HttpCallResult.failed(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+        }
+        if (outcome.getStatusCode() > 0) {
+            latency.record(outcome.getDuration());
+        }
+
+        HttpCallResult finalResult = null;
+        long retryDelay = -1;
+        synchronized (this) {
+            request.done = true;
+            if (round.decided || result.isDone()) {
+                return; // Lost the race; already recorded as cancelled
+            }
+            boolean retriable = !(outcome.getError() instanceof CancellationException)
+                && policy.isRetriable(method, headers, outcome);
+            if (retriable && round.hasRunning()) {
+                // The other request in this round may still succeed
+                attempts.add(record(request, now, outcome, CallAttempt.FAILED, 0));
+                return;
+            }
+
+            round.decided = true;
+            cancelOthers(round, request, now);
+            if (retriable && round.retry < policy.getMaxRetries()) {
+                retryDelay = policy.delayBeforeRetry(round.retry + 1, outcome);
+            }
+            if (retryDelay >= 0) {
+                attempts.add(record(request, now, outcome, CallAttempt.RETRIED, retryDelay));
+            } else {
+                attempts.add(record(request, now, outcome, CallAttempt.USED, 0));
+                List<CallAttempt> recorded = new ArrayList<>(attempts);
+                recorded.sort(Comparator.comparingInt(CallAttempt::getNumber));
+                finalResult = outcome.toBuilder().attempts(recorded).build();
+            }
+        }
+
+        if (finalResult != null) {
+            result.complete(finalResult);
+            return;
+        }
+        int nextRetry = round.retry + 1;
+        CompletableFuture<Void> backoff = CompletableFuture.runAsync(() -> startRound(nextRetry),
+            CompletableFuture.delayedExecutor(retryDelay, TimeUnit.MILLISECONDS));
+        pending.add(backoff);
+        backoff.whenComplete((ignored, e) -> pending.remove(backoff));
+    }
+
+    /**
+     * Cancel the round's other requests, recording them now so they appear on the result
+     */
+    private void cancelOthers(Round round, Sent used, long now) {
+        for (Sent other : round.requests) {
+            if (other != used && !other.done) {
+                other.done = true;
+                attempts.add(new CallAttempt(other.number, other.hedge, millisSinceStart(other.startNanos),
+                    (now - other.startNanos) / 1_000_000, 0, null, CallAttempt.CANCELLED, 0));
+                if (other.future != null) {
+                    other.future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private CallAttempt record(Sent request, long now, HttpCallResult outcome, String verdict, long delayAfter) {
+        Exception error = outcome.getError();
+        String message = error != null ? error.getClass().getSimpleName()
+            + (error.getMessage() != null ? " (" + error.getMessage() + ")" : "") : null;
+        return new CallAttempt(request.number, request.hedge, millisSinceStart(request.startNanos),
+            (now - request.startNanos) / 1_000_000, outcome.getStatusCode(), message, verdict, delayAfter);
+    }
+
+    private long millisSinceStart(long nanos) {
+        return (nanos - startNanos) / 1_000_000;
+    }
+
+    private static String originOf(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+
+    /**
+     * A request and, if it was hedged, its backup. Guarded by the enclosing call.
+     */
+    private static final class Round {
+        final int retry;
+        final List<Sent> requests = new ArrayList<>(2);
+        boolean decided;
+
+        Round(int retry) {
+            this.retry = retry;
+        }
+
+        boolean hasRunning() {
+            for (Sent request : requests) {
+                if (!request.done) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isDecided(RetryingCall call) {
+            synchronized (call) {
+                return decided;
+            }
+        }
+    }
+
+    /**
+     * One request of a round
+     */
+    private static final class Sent {
+        final int number;
+        final boolean hedge;
+        final long startNanos;
+        volatile CompletableFuture<HttpCallResult> future;
+        boolean done;
+
+        Sent(int number, boolean hedge, long startNanos) {
+            this.number = number;
+            this.hedge = hedge;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -16,10 +16,27 @@ public class StoragePathService {
     private static final String STORAGE_LOCATION_KEY = "storage_location";
     private static final Preferences prefs = Preferences.userNodeForPackage(StoragePathService.class);
 
+    private final Path fixedDataDirectory;
+
+    public StoragePathService() {
+        this(null);
+    }
+
+    /**
+     * Storage in the given directory regardless of the configured location, e.g. a test's temp directory
+     */
+    StoragePathService(Path fixedDataDirectory) {
+        this.fixedDataDirectory = fixedDataDirectory;
+    }
+
     /**
      * Get the application data directory based on the OS and user preferences
      */
     public Path getDataDirectory() {
+        if (fixedDataDirectory != null) {
+            return fixedDataDirectory;
+        }
+
         // Check if custom storage location is configured
         String customLocation = getCustomStorageLocation();
         if (customLocation != null && !customLocation.isEmpty()) {
@@ -0,0 +1,47 @@
+package com.overzealouspelican.service;
+
+/**
+ * One event of a streamed response: a server-sent event, or a line of an NDJSON or other line-based body
+ */
+public final class StreamEvent {
+
+    private final String text;
+    private final long bytes;
+    private final long receivedNanos;
+    private final long gapNanos;
+
+    public StreamEvent(String text, long bytes, long receivedNanos, long gapNanos) {
+        this.text = text;
+        this.bytes = bytes;
+        this.receivedNanos = receivedNanos;
+        this.gapNanos = gapNanos;
+    }
+
+    /**
+     * The event's lines, joined by newlines; very long lines are cut short
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Bytes the event took up in the body, line endings included
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * When the event was complete, in {@link System#nanoTime()} terms
+     */
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    /**
+     * Time since the previous event, or since the response headers for the first one
+     */
+    public long getGapNanos() {
+        return gapNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package com.overzealouspelican.service;
+
+/**
+ * Receives the events of a streamed response as they arrive. Methods are called on the HTTP client's
+ * threads, one at a time per response; a call that is retried or hedged may stream more than one response.
+ */
+public interface StreamListener {
+
+    /**
+     * A response is about to be streamed
+     */
+    void onStart(int statusCode, String contentType);
+
+    void onEvent(StreamEvent event);
+
+    /**
+     * The response ended, with the error that cut it short or null if it was complete
+     */
+    void onComplete(Throwable error);
+
+    /**
+     * A short line of live figures from the source of the events, such as round-trip times
+     */
+    default void onStatus(String status) {
+    }
+}
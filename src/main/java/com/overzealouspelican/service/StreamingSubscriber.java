@@ -0,0 +1,195 @@
+package com.overzealouspelican.service;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Body subscriber that splits a response into events as the buffers arrive and hands them to a
+ * {@link StreamListener}, while passing every buffer on unchanged to the subscriber that keeps the body,
+ * for a stream usually {@link ResponseBody#tailSubscriber} so its memory does not grow with its length.
+ * A text/event-stream body is split into server-sent events at blank lines; any other body into lines.
+ * Line endings may be LF, CRLF or CR, so the charset must be ASCII-compatible, as UTF-8 and ISO-8859-1 are.
+ */
+public final class StreamingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    /** Content types that are always streamed, unless the call turns streaming off */
+    private static final List<String> STREAMING_TYPES = List.of("text/event-stream", "application/x-ndjson",
+        "application/ndjson", "application/jsonl", "application/x-jsonlines", "application/stream+json");
+
+    /** Characters of a line kept for display; the rest of a longer line is only counted */
+    private static final int MAX_LINE_BYTES = 16 * 1024;
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final Charset charset;
+    private final boolean serverSentEvents;
+    private final StreamListener listener;
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long lineBytes;
+    private boolean afterCarriageReturn;
+    private final StringBuilder event = new StringBuilder();
+    private long eventBytes;
+    private long lastEventNanos;
+    private boolean listenerFailed;
+
+    private StreamingSubscriber(HttpResponse.BodySubscriber<T> downstream, Charset charset, boolean serverSentEvents,
+                                StreamListener listener) {
+        this.downstream = downstream;
+        this.charset = charset;
+        this.serverSentEvents = serverSentEvents;
+        this.listener = listener;
+        this.lastEventNanos = System.nanoTime();
+    }
+
+    /**
+     * Whether a response should be streamed: always when the call asks for it, never when it turns streaming off,
+     * and otherwise for event streams and newline-delimited JSON
+     */
+    public static boolean isStreamed(Boolean callSetting, String contentType) {
+        if (callSetting != null) {
+            return callSetting;
+        }
+        return STREAMING_TYPES.contains(mediaType(contentType));
+    }
+
+    /**
+     * Wrap a subscriber so the listener sees the response's events, telling the listener the response has started
+     */
+    public static <T> StreamingSubscriber<T> wrap(HttpResponse.BodySubscriber<T> downstream, int statusCode,
+                                                  String contentType, Charset charset, StreamListener listener) {
+        listener.onStart(statusCode, contentType);
+        return new StreamingSubscriber<>(downstream, charset, "text/event-stream".equals(mediaType(contentType)),
+            listener);
+    }
+
+    private static String mediaType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        int parameters = contentType.indexOf(';');
+        return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase();
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        downstream.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        if (!listenerFailed) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    scan(buffer.duplicate());
+                }
+            } catch (RuntimeException e) {
+                // A broken viewer must not break the call; the body is still collected
+                listenerFailed = true;
+                System.err.println("Stopped streaming events after a listener failure: " + e.getMessage());
+            }
+        }
+        downstream.onNext(buffers);
+    }
+
+    private void scan(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n' && afterCarriageReturn) {
+                // Second half of a CRLF already ended the line
+                afterCarriageReturn = false;
+                eventBytes++;
+                continue;
+            }
+            afterCarriageReturn = b == '\r';
+            if (b == '\n' || b == '\r') {
+                lineBytes++;
+                endLine();
+            } else {
+                lineBytes++;
+                if (lineLength < MAX_LINE_BYTES) {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE_BYTES));
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+    }
+
+    private void endLine() {
+        String text = new String(line, 0, lineLength, charset);
+        eventBytes += lineBytes;
+        lineLength = 0;
+        lineBytes = 0;
+        if (!serverSentEvents) {
+            if (!text.isBlank()) {
+                dispatch(text);
+            }
+            return;
+        }
+        if (text.isEmpty()) {
+            if (event.length() > 0) {
+                dispatch(event.toString());
+                event.setLength(0);
+            }
+        } else if (!text.startsWith(":")) {
+            // Lines starting with a colon are comments, usually keep-alives
+            if (event.length() > 0) {
+                event.append('\n');
+            }
+            event.append(text);
+        }
+    }
+
+    private void dispatch(String text) {
+        long now = System.nanoTime();
+        listener.onEvent(new StreamEvent(text, eventBytes, now, now - lastEventNanos));
+        lastEventNanos = now;
+        eventBytes = 0;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        notifyComplete(throwable);
+        downstream.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (!listenerFailed) {
+            try {
+                // A last line without a line ending still counts
+                if (lineLength > 0 || lineBytes > 0) {
+                    endLine();
+                }
+                if (event.length() > 0) {
+                    dispatch(event.toString());
+                }
+            } catch (RuntimeException e) {
+                listenerFailed = true;
+                System.err.println("Stopped streaming events after a listener failure: " + e.getMessage());
+            }
+        }
+        notifyComplete(null);
+        downstream.onComplete();
+    }
+
+    private void notifyComplete(Throwable error) {
+        try {
+            listener.onComplete(error);
+        } catch (RuntimeException e) {
+            System.err.println("Stream listener failed to complete: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.overzealouspelican.service;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * How long a call may take, resolved from the call's own settings and else the environment's.
+ * <ul>
+ *   <li>connect: opening a connection, applied by the HTTP client</li>
+ *   <li>read: from sending the request until the response starts to arrive</li>
+ *   <li>total: the whole call including retries, hedges, rate-limit waits and the response body</li>
+ * </ul>
+ * A null timeout means no limit.
+ */
+public final class Timeouts {
+
+    public static final Duration DEFAULT_CONNECT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_READ = Duration.ofSeconds(30);
+
+    /** What calls get when nothing is configured */
+    public static final Timeouts DEFAULT = new Timeouts(DEFAULT_CONNECT, DEFAULT_READ, null);
+
+    private final Duration connect;
+    private final Duration read;
+    private final Duration total;
+
+    private Timeouts(Duration connect, Duration read, Duration total) {
+        this.connect = connect;
+        this.read = read;
+        this.total = total;
+    }
+
+    /**
+     * The timeouts for a call. Each of the call's settings, if set, wins over the environment's.
+     *
+     * @throws IllegalArgumentException if a setting is not a valid timeout
+     */
+    public static Timeouts resolve(String callConnect, String callRead, String callTotal,
+                                   Map<String, String> environmentVariables) {
+        return new Timeouts(
+            resolve(EnvironmentSettings.CONNECT_TIMEOUT, callConnect, environmentVariables, DEFAULT_CONNECT),
+            resolve(EnvironmentSettings.READ_TIMEOUT, callRead, environmentVariables, DEFAULT_READ),
+            resolve(EnvironmentSettings.TIMEOUT, callTotal, environmentVariables, null));
+    }
+
+    private static Duration resolve(String name, String callValue, Map<String, String> environmentVariables,
+                                    Duration defaultValue) {
+        Duration timeout = EnvironmentSettings.parseTimeout(name, callValue);
+        if (timeout == null && environmentVariables != null) {
+            timeout = EnvironmentSettings.parseTimeout(name, environmentVariables.get(name));
+        }
+        if (timeout == null) {
+            return defaultValue;
+        }
+        return timeout.isZero() ? null : timeout;
+    }
+
+    /**
+     * Time allowed to open a connection, or null for no limit
+     */
+    public Duration getConnect() {
+        return connect;
+    }
+
+    /**
+     * Time allowed until the response starts to arrive, or null for no limit
+     */
+    public Duration getRead() {
+        return read;
+    }
+
+    /**
+     * Time allowed for the whole call, or null for no limit
+     */
+    public Duration getTotal() {
+        return total;
+    }
+
+    /**
+     * A timeout for display, e.g. "30 s", "2.5 s", "500 ms" or "off"
+     */
+    public static String format(Duration timeout) {
+        if (timeout == null || timeout.isZero()) {
+            return "off";
+        }
+        long millis = timeout.toMillis();
+        if (millis < 1000) {
+            return millis + " ms";
+        }
+        return millis % 1000 == 0 ? (millis / 1000) + " s" : String.format("%.1f s", millis / 1000.0);
+    }
+}
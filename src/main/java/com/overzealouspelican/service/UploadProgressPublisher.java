@@ -0,0 +1,149 @@
+package com.overzealouspelican.service;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Body publisher that counts the bytes the client takes from another publisher.
+ * The client pulls buffers only as fast as it can write them to the connection, so the count is the
+ * upload progress, and the time from the first to the last buffer is the time spent sending.
+ * Progress is reported to a listener at most every quarter of a second, and once more at the end.
+ */
+public final class UploadProgressPublisher implements HttpRequest.BodyPublisher {
+
+    private static final long REPORT_INTERVAL_NANOS = 250_000_000L;
+
+    private final HttpRequest.BodyPublisher delegate;
+    private final Consumer<UploadProgressPublisher> listener;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong lastReportNanos = new AtomicLong();
+    private volatile long firstByteNanos;
+    private volatile long lastByteNanos;
+    private volatile boolean complete;
+    private volatile boolean stopped;
+
+    /**
+     * @param listener called with this publisher as the upload progresses, or null to only count
+     */
+    public UploadProgressPublisher(HttpRequest.BodyPublisher delegate, Consumer<UploadProgressPublisher> listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public long contentLength() {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        // The client subscribes again if it resends the body, e.g. after a redirect
+        bytesSent.set(0);
+        firstByteNanos = 0;
+        lastByteNanos = 0;
+        complete = false;
+        stopped = false;
+
+        delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                        subscription.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        stopped = true;
+                        subscription.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                long now = System.nanoTime();
+                if (firstByteNanos == 0) {
+                    firstByteNanos = now;
+                }
+                bytesSent.addAndGet(item.remaining());
+                lastByteNanos = now;
+                long lastReport = lastReportNanos.get();
+                if (now - lastReport >= REPORT_INTERVAL_NANOS && lastReportNanos.compareAndSet(lastReport, now)) {
+                    report();
+                }
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                stopped = true;
+                report();
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                complete = true;
+                lastByteNanos = System.nanoTime();
+                report();
+                subscriber.onComplete();
+            }
+        });
+    }
+
+    /**
+     * Report the upload as stopped unless it completed, e.g. once the exchange has failed
+     */
+    public void reportStopped() {
+        if (!complete) {
+            stopped = true;
+            report();
+        }
+    }
+
+    private void report() {
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * From the first to the last byte taken by the client, 0 if nothing was sent
+     */
+    public long getSendNanos() {
+        return firstByteNanos == 0 ? 0 : lastByteNanos - firstByteNanos;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * e.g. "Uploading 120.5 MB of 1.9 GB (6%) · 85.2 MB/s" or "Uploaded 1.9 GB in 23.1 s (85.2 MB/s)"
+     */
+    public String format() {
+        long sent = bytesSent.get();
+        long total = delegate.contentLength();
+        long elapsed = firstByteNanos == 0 ? 0 : (complete ? lastByteNanos : System.nanoTime()) - firstByteNanos;
+        String rate = elapsed > 0
+            ? CompressionStats.formatBytes(Math.round(sent / (elapsed / 1_000_000_000.0))) + "/s"
+            : "-";
+        if (complete) {
+            return String.format("Uploaded %s in %.1f s (%s)", CompressionStats.formatBytes(sent),
+                elapsed / 1_000_000_000.0, rate);
+        }
+        String of = total > 0
+            ? String.format(" of %s (%d%%)", CompressionStats.formatBytes(total), Math.min(100, sent * 100 / total))
+            : "";
+        return (stopped ? "Upload stopped at " : "Uploading ") + CompressionStats.formatBytes(sent) + of + " · " + rate;
+    }
+}
@@ -1,17 +1,15 @@
 package com.overzealouspelican.service;
 
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Service for substituting environment variables in strings.
  * Follows the Single Responsibility Principle - only handles variable substitution.
+ * Each string is parsed by {@link CompiledTemplate} in a single pass with no regex matching; nothing is
+ * cached, so substituting a large body for display leaves nothing behind.
  */
 public class VariableSubstitutionService {
 
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
-
     /**
      * Substitute {{key}} placeholders with environment variable values
      */
@@ -19,23 +17,7 @@ public class VariableSubstitutionService {
         if (input == null || variables == null) {
             return input;
         }
-
-        Matcher matcher = VARIABLE_PATTERN.matcher(input);
-        StringBuffer result = new StringBuffer();
-
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String value = variables.get(key);
-            if (value != null) {
-                matcher.appendReplacement(result, Matcher.quoteReplacement(value));
-            } else {
-                // Keep the placeholder if no value found
-                matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(0)));
-            }
-        }
-        matcher.appendTail(result);
-
-        return result.toString();
+        return CompiledTemplate.parse(input).render(variables);
     }
 
     /**
@@ -62,23 +44,16 @@ public class VariableSubstitutionService {
         if (input == null) {
             return false;
         }
-        return input.contains("{{") && input.contains("}}");
+        return CompiledTemplate.parse(input).hasVariables();
     }
 
     /**
      * Extract unresolved variable names from a string
      */
     public java.util.List<String> getUnresolvedVariables(String input) {
-        java.util.List<String> unresolved = new java.util.ArrayList<>();
         if (input == null) {
-            return unresolved;
-        }
-
-        Matcher matcher = VARIABLE_PATTERN.matcher(input);
-        while (matcher.find()) {
-            unresolved.add(matcher.group(1));
+            return new java.util.ArrayList<>();
         }
-        return unresolved;
+        return CompiledTemplate.parse(input).getVariableNames();
     }
 }
-
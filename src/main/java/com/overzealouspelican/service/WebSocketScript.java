@@ -0,0 +1,127 @@
+package com.overzealouspelican.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The messages a WebSocket call sends, parsed from the call's script. Each line is a text message,
+ * sent in order, except for these directives:
+ * <ul>
+ *   <li>{@code @wait 500ms}: pause before the next step</li>
+ *   <li>{@code @expect} or {@code @expect 2s}: wait until every message sent so far has had a reply,
+ *       failing the call if none comes within the read timeout or the time given</li>
+ *   <li>{@code @repeat 100} ... {@code @end}: run the steps in between that many times</li>
+ *   <li>{@code @close}: close the connection; without it the call stays open until the server closes it
+ *       or the call is stopped</li>
+ * </ul>
+ * Blank lines are skipped, and a message that starts with "@" is written with "@@".
+ */
+public final class WebSocketScript {
+
+    enum Kind { SEND, WAIT, EXPECT, REPEAT, CLOSE }
+
+    /**
+     * One step of a script; a REPEAT step holds the steps it repeats
+     */
+    static final class Step {
+        final Kind kind;
+        final String message;
+        final Duration duration;
+        final int count;
+        final List<Step> steps;
+
+        private Step(Kind kind, String message, Duration duration, int count, List<Step> steps) {
+            this.kind = kind;
+            this.message = message;
+            this.duration = duration;
+            this.count = count;
+            this.steps = steps;
+        }
+    }
+
+    private final List<Step> steps;
+
+    private WebSocketScript(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Parse a script whose variables have already been substituted; a null or blank script sends nothing
+     *
+     * @throws IllegalArgumentException for an unknown or malformed directive, naming its line
+     */
+    public static WebSocketScript parse(String script) {
+        List<List<Step>> blocks = new ArrayList<>();
+        List<Integer> repeatCounts = new ArrayList<>();
+        blocks.add(new ArrayList<>());
+
+        String[] lines = script != null ? script.split("\r?\n", -1) : new String[0];
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            List<Step> block = blocks.get(blocks.size() - 1);
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.startsWith("@@")) {
+                block.add(new Step(Kind.SEND, line.substring(1), null, 0, null));
+                continue;
+            }
+            if (!line.startsWith("@")) {
+                block.add(new Step(Kind.SEND, line, null, 0, null));
+                continue;
+            }
+
+            String[] parts = line.substring(1).trim().split("\\s+", 2);
+            String directive = parts[0].toLowerCase();
+            String argument = parts.length > 1 ? parts[1].trim() : "";
+            try {
+                switch (directive) {
+                    case "wait":
+                        if (argument.isEmpty()) {
+                            throw new IllegalArgumentException("@wait needs a duration, e.g. @wait 500ms");
+                        }
+                        block.add(new Step(Kind.WAIT, null, EnvironmentSettings.parseTimeout("@wait", argument), 0, null));
+                        break;
+                    case "expect":
+                        Duration timeout = EnvironmentSettings.parseTimeout("@expect", argument);
+                        block.add(new Step(Kind.EXPECT, null, timeout, 0, null));
+                        break;
+                    case "repeat":
+                        Integer count = EnvironmentSettings.parseCount("@repeat", argument);
+                        if (count == null) {
+                            throw new IllegalArgumentException("@repeat needs a count, e.g. @repeat 10");
+                        }
+                        repeatCounts.add(count);
+                        blocks.add(new ArrayList<>());
+                        break;
+                    case "end":
+                        if (blocks.size() == 1) {
+                            throw new IllegalArgumentException("@end without @repeat");
+                        }
+                        List<Step> repeated = blocks.remove(blocks.size() - 1);
+                        int times = repeatCounts.remove(repeatCounts.size() - 1);
+                        blocks.get(blocks.size() - 1).add(new Step(Kind.REPEAT, null, null, times, repeated));
+                        break;
+                    case "close":
+                        block.add(new Step(Kind.CLOSE, null, null, 0, null));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown directive @" + parts[0]
+                            + "; use @wait, @expect, @repeat, @end or @close, or @@ to send a message starting with @");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("WebSocket script line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (blocks.size() > 1) {
+            throw new IllegalArgumentException("WebSocket script: @repeat without @end");
+        }
+        return new WebSocketScript(Collections.unmodifiableList(blocks.get(0)));
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+}
@@ -0,0 +1,405 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One WebSocket call: opens the connection, runs the call's {@link WebSocketScript} on a virtual thread
+ * and passes every incoming message to a {@link StreamListener} as an event.
+ * Round-trip times pair each incoming message with the oldest sent message still waiting for a reply,
+ * which is exact for request/echo servers. The call's result summarizes the session and lists the most
+ * recent incoming messages; the listener sees all of them as they arrive.
+ */
+final class WebSocketSession implements WebSocket.Listener {
+
+    /** Incoming messages kept for the result; the stream view keeps its own, larger log */
+    private static final int LOGGED_MESSAGES = 100;
+    private static final int MAX_LOGGED_TEXT = 2000;
+    /** Round-trip samples kept for percentiles */
+    private static final int MAX_RTT_SAMPLES = 10_000;
+    private static final Duration CLOSE_GRACE = Duration.ofSeconds(5);
+    private static final long STATUS_INTERVAL_NANOS = 200_000_000L;
+
+    /** Headers the client sets itself during the opening handshake */
+    private static final Set<String> HANDSHAKE_HEADERS = Set.of("connection", "upgrade", "host", "content-length",
+        "sec-websocket-key", "sec-websocket-version", "sec-websocket-extensions", "sec-websocket-accept");
+
+    private final WebSocketScript script;
+    private final Timeouts timeouts;
+    private final StreamListener listener;
+    private final CompletableFuture<HttpCallResult> result = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+
+    private final ConcurrentLinkedQueue<Long> awaitingReply = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition replied = lock.newCondition();
+    private final ArrayDeque<String> log = new ArrayDeque<>();
+    private final long[] rttSamples = new long[MAX_RTT_SAMPLES];
+    private final StringBuilder textPart = new StringBuilder();
+    private long binaryPartBytes;
+
+    private volatile WebSocket webSocket;
+    private volatile Thread scriptThread;
+    private volatile long sent;
+    private volatile long sentBytes;
+    private volatile long received;
+    private volatile long receivedBytes;
+    private volatile long replies;
+    private long rttTotalNanos;
+    private long lastRttNanos;
+    private long lastMessageNanos = startNanos;
+    private long lastStatusNanos;
+
+    private WebSocketSession(WebSocketScript script, Timeouts timeouts, StreamListener listener) {
+        this.script = script;
+        this.timeouts = timeouts;
+        this.listener = listener;
+    }
+
+    /**
+     * Open a WebSocket and run the script. The future completes when the connection closes, with a
+     * failed result if it could not be opened, a reply did not come in time or the script failed;
+     * cancelling it aborts the connection.
+     *
+     * @param listener receives the incoming messages, or null
+     */
+    static CompletableFuture<HttpCallResult> open(HttpClient client, URI uri, Map<String, String> headers,
+                                                  WebSocketScript script, Timeouts timeouts, StreamListener listener) {
+        WebSocketSession session = new WebSocketSession(script, timeouts, listener);
+        WebSocket.Builder builder = client.newWebSocketBuilder();
+        if (timeouts.getConnect() != null) {
+            builder.connectTimeout(timeouts.getConnect());
+        }
+        if (headers != null) {
+            headers.forEach((name, value) -> {
+                if (name == null || value == null) {
+                    return;
+                }
+                String lower = name.trim().toLowerCase();
+                if (lower.equals("sec-websocket-protocol")) {
+                    String[] protocols = Arrays.stream(value.split(",")).map(String::trim).toArray(String[]::new);
+                    builder.subprotocols(protocols[0], Arrays.copyOfRange(protocols, 1, protocols.length));
+                } else if (!HANDSHAKE_HEADERS.contains(lower)) {
+                    builder.header(name.trim(), value);
+                }
+            });
+        }
+
+        CompletableFuture<WebSocket> opening = builder.buildAsync(uri, session);
+        opening.whenComplete((webSocket, error) -> {
+            if (error != null) {
+                Throwable cause = AsyncCalls.unwrap(error);
+                session.fail(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            }
+        });
+        session.result.whenComplete((ignored, error) -> {
+            if (session.result.isCancelled()) {
+                opening.cancel(true);
+                session.abort();
+            }
+        });
+        return session.result;
+    }
+
+    /**
+     * The WebSocket form of an http, https, ws or wss URL
+     */
+    static URI toWebSocketUri(String url) {
+        URI uri = URI.create(url);
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "";
+        switch (scheme) {
+            case "ws":
+            case "wss":
+                return uri;
+            case "http":
+                return URI.create("ws" + url.substring(scheme.length()));
+            case "https":
+                return URI.create("wss" + url.substring(scheme.length()));
+            default:
+                throw new IllegalArgumentException("A WebSocket URL must start with ws://, wss://, http:// or https://");
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        if (listener != null) {
+            String protocol = webSocket.getSubprotocol();
+            listener.onStart(101, "websocket" + (protocol != null && !protocol.isEmpty() ? "; " + protocol : ""));
+        }
+        webSocket.request(1);
+        scriptThread = Thread.ofVirtual().name("websocket-script").start(this::runScript);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        textPart.append(data);
+        if (last) {
+            String text = textPart.toString();
+            textPart.setLength(0);
+            onMessage(text, text.getBytes(StandardCharsets.UTF_8).length);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        binaryPartBytes += data.remaining();
+        if (last) {
+            long size = binaryPartBytes;
+            binaryPartBytes = 0;
+            onMessage("[binary message, " + size + " bytes]", size);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        finish("Closed by the server: " + statusCode + (reason != null && !reason.isEmpty() ? " " + reason : ""));
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        fail(error instanceof Exception ? (Exception) error : new RuntimeException(error));
+    }
+
+    private void onMessage(String text, long bytes) {
+        long now = System.nanoTime();
+        Long sentAt = awaitingReply.poll();
+        lock.lock();
+        try {
+            received++;
+            receivedBytes += bytes;
+            if (sentAt != null) {
+                lastRttNanos = now - sentAt;
+                rttTotalNanos += lastRttNanos;
+                rttSamples[(int) (replies % MAX_RTT_SAMPLES)] = lastRttNanos;
+                replies++;
+                replied.signalAll();
+            }
+            if (log.size() == LOGGED_MESSAGES) {
+                log.removeFirst();
+            }
+            String logged = text.length() > MAX_LOGGED_TEXT ? text.substring(0, MAX_LOGGED_TEXT) + "…" : text;
+            log.addLast(String.format("%9.3f s  %s", (now - startNanos) / 1_000_000_000.0, logged));
+        } finally {
+            lock.unlock();
+        }
+        if (listener != null) {
+            listener.onEvent(new StreamEvent(text, bytes, now, now - lastMessageNanos));
+            if (now - lastStatusNanos >= STATUS_INTERVAL_NANOS) {
+                lastStatusNanos = now;
+                listener.onStatus(formatLiveStatus());
+            }
+        }
+        lastMessageNanos = now;
+    }
+
+    private void runScript() {
+        try {
+            if (run(script.getSteps())) {
+                // The script closed the connection; give the server a moment to answer the close
+                Thread.sleep(CLOSE_GRACE.toMillis());
+                abort();
+                finish("Closed; the server did not answer the close within " + Timeouts.format(CLOSE_GRACE));
+            } else if (listener != null) {
+                listener.onStatus(formatLiveStatus());
+            }
+        } catch (InterruptedException e) {
+            // Stopped: the call was cancelled or the connection has closed
+        } catch (Exception e) {
+            abort();
+            fail(e);
+        }
+    }
+
+    /**
+     * Run steps in order
+     *
+     * @return whether a step closed the connection
+     */
+    private boolean run(List<WebSocketScript.Step> steps) throws Exception {
+        for (WebSocketScript.Step step : steps) {
+            switch (step.kind) {
+                case SEND:
+                    send(step.message);
+                    break;
+                case WAIT:
+                    Thread.sleep(step.duration.toMillis());
+                    break;
+                case EXPECT:
+                    expectReplies(step.duration != null ? step.duration : timeouts.getRead());
+                    break;
+                case REPEAT:
+                    for (int i = 0; i < step.count; i++) {
+                        if (run(step.steps)) {
+                            return true;
+                        }
+                    }
+                    break;
+                case CLOSE:
+                    await(webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void send(String message) throws Exception {
+        // Queued before sending, so a fast reply always finds its request
+        awaitingReply.add(System.nanoTime());
+        await(webSocket.sendText(message, true));
+        sent++;
+        sentBytes += message.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Wait until every message sent so far has had a reply; a null or zero timeout waits as long as it takes
+     */
+    private void expectReplies(Duration timeout) throws Exception {
+        long deadline = timeout != null && !timeout.isZero() ? System.nanoTime() + timeout.toNanos() : 0;
+        lock.lock();
+        try {
+            while (replies < sent) {
+                if (deadline == 0) {
+                    replied.await();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new HttpTimeoutException("No reply within " + Timeouts.format(timeout)
+                            + " (" + (sent - replies) + " of " + sent + " messages unanswered)");
+                    }
+                    replied.awaitNanos(remaining);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void await(CompletableFuture<WebSocket> operation) throws Exception {
+        try {
+            operation.get();
+        } catch (ExecutionException e) {
+            Throwable cause = AsyncCalls.unwrap(e);
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private void abort() {
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.abort();
+        }
+        Thread thread = scriptThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+    }
+
+    private void finish(String closing) {
+        Thread thread = scriptThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        Map<String, List<String>> headers = new HashMap<>();
+        WebSocket socket = webSocket;
+        if (socket != null && !socket.getSubprotocol().isEmpty()) {
+            headers.put("sec-websocket-protocol", List.of(socket.getSubprotocol()));
+        }
+        HttpCallResult summary = HttpCallResult.builder(101)
+            .body(formatSummary(closing, durationNanos))
+            .headers(headers)
+            .duration(Math.round(durationNanos / 1_000_000.0))
+            .build();
+        if (result.complete(summary) && listener != null) {
+            listener.onStatus(formatLiveStatus());
+            listener.onComplete(null);
+        }
+    }
+
+    private void fail(Exception error) {
+        if (result.complete(HttpCallResult.failed(error)) && listener != null) {
+            listener.onComplete(error);
+        }
+    }
+
+    /**
+     * Sent messages and round-trip times, for the stream view's status line
+     */
+    private String formatLiveStatus() {
+        lock.lock();
+        try {
+            StringBuilder status = new StringBuilder(String.format("sent %,d", sent));
+            if (replies > 0) {
+                status.append(" · rtt ").append(formatMillis(lastRttNanos))
+                    .append(" (avg ").append(formatMillis(rttTotalNanos / replies))
+                    .append(", p95 ").append(formatMillis(rttPercentile(0.95))).append(')');
+            }
+            return status.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String formatSummary(String closing, long durationNanos) {
+        lock.lock();
+        try {
+            double seconds = Math.max(durationNanos, 1) / 1_000_000_000.0;
+            StringBuilder summary = new StringBuilder();
+            summary.append(closing).append('\n');
+            summary.append(String.format("Duration: %.2f s%n", seconds));
+            summary.append(String.format("Sent: %,d messages, %,d bytes%n", sent, sentBytes));
+            summary.append(String.format("Received: %,d messages, %,d bytes · %.1f messages/s · %,.0f bytes/s%n",
+                received, receivedBytes, received / seconds, receivedBytes / seconds));
+            if (replies > 0) {
+                summary.append(String.format("Round trip: %,d replies · avg %s · p50 %s · p95 %s · p99 %s%n", replies,
+                    formatMillis(rttTotalNanos / replies), formatMillis(rttPercentile(0.50)),
+                    formatMillis(rttPercentile(0.95)), formatMillis(rttPercentile(0.99))));
+            }
+            summary.append(String.format("%nReceived messages (last %d of %,d):%n", log.size(), received));
+            for (String message : log) {
+                summary.append(message).append('\n');
+            }
+            return summary.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long rttPercentile(double percentile) {
+        int count = (int) Math.min(replies, MAX_RTT_SAMPLES);
+        long[] sorted = Arrays.copyOf(rttSamples, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+    }
+
+    private static String formatMillis(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        return millis < 10 ? String.format("%.2f ms", millis) : String.format("%,.0f ms", millis);
+    }
+}
@@ -1,6 +1,10 @@
 package com.overzealouspelican.util;
 
 import com.overzealouspelican.model.ApiCall;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -39,15 +43,21 @@ public class CurlParser {
         // Extract headers
         Map<String, String> headers = extractHeaders(normalized);
 
-        // Extract body data
-        Map<String, String> body = extractBody(normalized);
-
         // Create ApiCall
         ApiCall apiCall = new ApiCall();
         apiCall.setUrl(url);
         apiCall.setHttpMethod(method);
         apiCall.setHeaders(headers);
-        apiCall.setBody(body);
+
+        // A JSON object of strings can be edited as fields; any other data is kept verbatim as a raw body
+        String data = extractData(normalized);
+        Map<String, String> fields = data != null ? parseStringFields(data) : new HashMap<>();
+        if (data != null && fields == null) {
+            apiCall.setBodyMode(ApiCall.BODY_RAW);
+            apiCall.setRawBody(data);
+            fields = new HashMap<>();
+        }
+        apiCall.setBody(fields);
 
         return apiCall;
     }
@@ -127,11 +137,9 @@ public class CurlParser {
     }
 
     /**
-     * Extract body data from cURL command
+     * Extract the body data from cURL command, or null if it sends none
      */
-    private static Map<String, String> extractBody(String curl) {
-        Map<String, String> body = new HashMap<>();
-
+    private static String extractData(String curl) {
         // Match -d 'data', --data 'data', or --data-raw 'data'
         Pattern pattern = Pattern.compile("(?:-d|--data|--data-raw)\\s+'([^']+)'|(?:-d|--data|--data-raw)\\s+\"([^\"]+)\"|(?:-d|--data|--data-raw)\\s+([^\\s-]+)");
         Matcher matcher = pattern.matcher(curl);
@@ -144,53 +152,37 @@ public class CurlParser {
             if (data == null) {
                 data = matcher.group(3);
             }
-
-            if (data != null) {
-                // Try to parse as JSON or form data
-                if (data.startsWith("{") && data.endsWith("}")) {
-                    // Simple JSON parsing - extract key-value pairs
-                    parseJsonToMap(data, body);
-                } else {
-                    // Store as raw data with a generic key
-                    body.put("data", data);
-                }
-            }
+            return data;
         }
-
-        return body;
+        return null;
     }
 
     /**
-     * Simple JSON parsing to extract key-value pairs
+     * The fields of a JSON object whose values are all strings, or null for any other data.
+     * Numbers, booleans, nulls, arrays and nested objects would become strings as fields, so such
+     * bodies are not split up.
      */
-    private static void parseJsonToMap(String json, Map<String, String> map) {
-        // Remove outer braces
-        json = json.substring(1, json.length() - 1).trim();
-
-        // Enhanced pattern to handle:
-        // 1. "key": "value"
-        // 2. "key": null
-        // 3. "key": 123 (numbers)
-        // 4. "key": true/false (booleans)
-        Pattern pattern = Pattern.compile("\"([^\"]+)\"\\s*:\\s*(\"([^\"]*)\"|null|true|false|[0-9]+(?:\\.[0-9]+)?)");
-        Matcher matcher = pattern.matcher(json);
-
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String fullValue = matcher.group(2);
-            String quotedValue = matcher.group(3);
-
-            if (key != null && fullValue != null) {
-                String value;
-                if (quotedValue != null) {
-                    // It's a quoted string value
-                    value = quotedValue;
-                } else {
-                    // It's null, boolean, or numeric - use the full value
-                    value = fullValue;
+    private static Map<String, String> parseStringFields(String data) {
+        String trimmed = data.trim();
+        if (!trimmed.startsWith("{")) {
+            return null;
+        }
+        try {
+            JsonElement element = JsonParser.parseString(trimmed);
+            if (!element.isJsonObject()) {
+                return null;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, JsonElement> entry : ((JsonObject) element).entrySet()) {
+                JsonElement value = entry.getValue();
+                if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+                    return null;
                 }
-                map.put(key.trim(), value);
+                fields.put(entry.getKey(), value.getAsString());
             }
+            return fields;
+        } catch (JsonSyntaxException e) {
+            return null;
         }
     }
 
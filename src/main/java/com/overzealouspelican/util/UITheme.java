@@ -47,6 +47,7 @@ public class UITheme {
     public static final Color HTTP_PUT = new Color(229, 192, 123);
     public static final Color HTTP_DELETE = new Color(224, 108, 117);
     public static final Color HTTP_PATCH = new Color(198, 120, 221);
+    public static final Color HTTP_WEBSOCKET = new Color(86, 182, 194);
     public static final Color HTTP_DEFAULT = new Color(171, 178, 191);
 
     /**
@@ -114,6 +115,7 @@ public class UITheme {
             case "PUT" -> HTTP_PUT;
             case "DELETE" -> HTTP_DELETE;
             case "PATCH" -> HTTP_PATCH;
+            case "WS" -> HTTP_WEBSOCKET;
             case "HEAD", "OPTIONS" -> HTTP_DEFAULT;
             default -> HTTP_DEFAULT;
         };
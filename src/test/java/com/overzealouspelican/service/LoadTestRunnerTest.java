@@ -0,0 +1,144 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.model.ApiCall;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs load tests against a local server that answers after a fixed delay and fails every fourth request,
+ * so request counts, error rates and latency percentiles can be checked exactly.
+ */
+class LoadTestRunnerTest {
+
+    private static final long RESPONSE_DELAY_MS = 20;
+
+    /** Keeps the service's saved calls out of the real data directory */
+    @TempDir
+    static Path dataDirectory;
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            int request = requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(RESPONSE_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            exchange.sendResponseHeaders(request % 4 == 0 ? 500 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        requests.set(0);
+        maxInFlight.set(0);
+    }
+
+    @Test
+    void closedLoopRunsEveryIterationWithinTheConcurrency() throws InterruptedException {
+        LoadTestRunner.LoadTestResult result = new LoadTestRunner(apiCallService())
+            .run(call("closed-loop"), Map.of(), new LoadTestRunner.LoadTestConfig(40, 4, 0), null);
+
+        assertFalse(result.isCancelled());
+        assertEquals(40, result.getCompleted());
+        assertEquals(40, requests.get());
+        assertEquals(10, result.getErrors());
+        assertEquals(0.25, result.getErrorRate(), 1e-9);
+        assertTrue(maxInFlight.get() <= 4, "at most 4 calls in flight, saw " + maxInFlight.get());
+        assertPercentilesOrdered(result);
+    }
+
+    @Test
+    void fixedRateSpacesStartsByTheInterval() throws InterruptedException {
+        AtomicInteger progress = new AtomicInteger();
+        LoadTestRunner.LoadTestResult result = new LoadTestRunner(apiCallService())
+            .run(call("fixed-rate"), Map.of(), new LoadTestRunner.LoadTestConfig(20, 4, 50),
+                (completed, total, errors) -> progress.incrementAndGet());
+
+        assertFalse(result.isCancelled());
+        assertEquals(20, result.getCompleted());
+        assertEquals(20, requests.get());
+        assertEquals(20, progress.get());
+        assertEquals(5, result.getErrors());
+        assertEquals(0.25, result.getErrorRate(), 1e-9);
+        // 20 starts 20 ms apart: the last starts 380 ms after the first
+        assertTrue(result.getThroughput() < 55, "throughput held near 50 req/s, was " + result.getThroughput());
+        assertPercentilesOrdered(result);
+    }
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            // Unsorted on purpose; the result sorts them
+            latencies[i] = TimeUnit.MILLISECONDS.toNanos(100 - i);
+        }
+        LoadTestRunner.LoadTestResult result = new LoadTestRunner.LoadTestResult(latencies, 3, 0, false);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), result.getPercentileNanos(50));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(90), result.getPercentileNanos(90));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(99), result.getPercentileNanos(99));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), result.getPercentileNanos(99.9));
+        assertEquals(0.03, result.getErrorRate(), 1e-9);
+    }
+
+    private static void assertPercentilesOrdered(LoadTestRunner.LoadTestResult result) {
+        long p50 = result.getPercentileNanos(50);
+        long p90 = result.getPercentileNanos(90);
+        long p99 = result.getPercentileNanos(99);
+        assertTrue(p50 >= TimeUnit.MILLISECONDS.toNanos(RESPONSE_DELAY_MS),
+            "p50 includes the server's delay, was " + p50 + " ns");
+        assertTrue(p50 <= p90 && p90 <= p99, "percentiles ordered: " + p50 + " " + p90 + " " + p99);
+    }
+
+    private static ApiCallService apiCallService() {
+        return new ApiCallService(new ApiCallPersistenceService(new StoragePathService(dataDirectory)));
+    }
+
+    private static ApiCall call(String name) {
+        ApiCall apiCall = new ApiCall();
+        apiCall.setName("load-test-runner-test " + name);
+        apiCall.setHttpMethod("GET");
+        apiCall.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        apiCall.setHttpVersion("HTTP/1.1");
+        return apiCall;
+    }
+}
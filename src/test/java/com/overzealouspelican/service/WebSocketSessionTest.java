@@ -0,0 +1,272 @@
+package com.overzealouspelican.service;
+
+import com.overzealouspelican.service.HttpRequestExecutor.HttpCallResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs WebSocket scripts against a local echo server. The server answers every text message with the
+ * same text, waits 300 ms before answering messages starting with "slow", never answers "silent",
+ * and echoes a close frame before hanging up.
+ */
+class WebSocketSessionTest {
+
+    private static final long SLOW_REPLY_MS = 300;
+
+    private static ServerSocket serverSocket;
+    private static HttpClient client;
+    private static final BlockingQueue<String> serverReceived = new LinkedBlockingQueue<>();
+    private static final BlockingQueue<String> serverConnectionEnds = new LinkedBlockingQueue<>();
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread.ofVirtual().start(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "websocket-echo-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        serverSocket.close();
+        client.shutdownNow();
+    }
+
+    @BeforeEach
+    void clearServerLog() {
+        serverReceived.clear();
+        serverConnectionEnds.clear();
+    }
+
+    @Test
+    void scriptSendsExpectsRepeatsAndCloses() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        HttpCallResult result = open("hello\n@expect 2s\n@repeat 3\nping\n@expect 2s\n@end\n@close", listener)
+            .get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess(), "session result: " + result.getError());
+        assertEquals(101, result.getStatusCode());
+        assertEquals(List.of("hello", "ping", "ping", "ping", "close"), drain(serverReceived));
+        assertEquals(List.of("hello", "ping", "ping", "ping"), listener.events);
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+        assertNull(listener.completionError);
+
+        String summary = result.getBody();
+        assertTrue(summary.startsWith("Closed by the server: 1000"), summary);
+        assertTrue(summary.contains("Sent: 4 messages"), summary);
+        assertTrue(summary.contains("Received: 4 messages"), summary);
+        assertTrue(summary.contains("Round trip: 4 replies"), summary);
+    }
+
+    @Test
+    void roundTripsPairEachReplyWithItsMessage() throws Exception {
+        HttpCallResult result = open("slow\n@expect 2s\nfast\n@expect 2s\n@close", null).get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess(), "session result: " + result.getError());
+        String summary = result.getBody();
+        assertTrue(summary.contains("Round trip: 2 replies"), summary);
+        // With two samples p50 is the faster reply and p99 the slower one
+        assertTrue(millis(summary, "p50") < SLOW_REPLY_MS, summary);
+        assertTrue(millis(summary, "p99") >= SLOW_REPLY_MS, summary);
+    }
+
+    @Test
+    void expectTimesOutWhenTheServerStaysSilent() throws Exception {
+        long start = System.nanoTime();
+        HttpCallResult result = open("silent\n@expect 200ms", null).get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getError() instanceof HttpTimeoutException, "error: " + result.getError());
+        assertTrue(result.getError().getMessage().contains("1 of 1 messages unanswered"),
+            result.getError().getMessage());
+        assertTrue(elapsedMs >= 200 && elapsedMs < 5000, "timed out after " + elapsedMs + " ms");
+        assertEquals("ended", serverConnectionEnds.poll(5, TimeUnit.SECONDS), "aborted connection reaches the server");
+    }
+
+    @Test
+    void cancellingTheCallAbortsTheSocket() throws Exception {
+        CompletableFuture<HttpCallResult> session = open("silent\n@expect", null);
+        assertEquals("silent", serverReceived.poll(5, TimeUnit.SECONDS));
+
+        assertTrue(session.cancel(true));
+        assertTrue(session.isCancelled());
+        assertEquals("ended", serverConnectionEnds.poll(5, TimeUnit.SECONDS), "cancel closes the connection");
+    }
+
+    private static CompletableFuture<HttpCallResult> open(String script, StreamListener listener) {
+        URI uri = URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort() + "/echo");
+        return WebSocketSession.open(client, uri, Map.of(), WebSocketScript.parse(script), Timeouts.DEFAULT, listener);
+    }
+
+    private static List<String> drain(BlockingQueue<String> queue) {
+        List<String> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        return drained;
+    }
+
+    /**
+     * A percentile from the summary's round-trip line, e.g. "p50 1.25 ms" or "p99 1,302 ms"
+     */
+    private static double millis(String summary, String percentile) {
+        Matcher matcher = Pattern.compile(percentile + " ([\\d.,]+) ms").matcher(summary);
+        assertTrue(matcher.find(), percentile + " in " + summary);
+        return Double.parseDouble(matcher.group(1).replace(",", ""));
+    }
+
+    /**
+     * Serve one connection: complete the opening handshake, then echo frames until the client closes or goes away
+     */
+    private static void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            String key = readHandshakeKey(in);
+            String accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII)));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            DataInputStream frames = new DataInputStream(in);
+            while (true) {
+                int opcode = frames.readUnsignedByte() & 0x0f;
+                int second = frames.readUnsignedByte();
+                long length = second & 0x7f;
+                if (length == 126) {
+                    length = frames.readUnsignedShort();
+                } else if (length == 127) {
+                    length = frames.readLong();
+                }
+                byte[] mask = new byte[4];
+                frames.readFully(mask);
+                byte[] payload = new byte[(int) length];
+                frames.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i % 4];
+                }
+
+                if (opcode == 8) {
+                    serverReceived.add("close");
+                    writeFrame(out, opcode, payload);
+                    return;
+                }
+                String text = new String(payload, StandardCharsets.UTF_8);
+                serverReceived.add(text);
+                if (text.equals("silent")) {
+                    continue;
+                }
+                if (text.startsWith("slow")) {
+                    Thread.sleep(SLOW_REPLY_MS);
+                }
+                writeFrame(out, opcode, payload);
+            }
+        } catch (Exception e) {
+            // The client went away
+        } finally {
+            serverConnectionEnds.add("ended");
+        }
+    }
+
+    /**
+     * Read the request headers byte by byte, so no frame bytes are buffered away, and return the client's key
+     */
+    private static String readHandshakeKey(InputStream in) throws IOException {
+        StringBuilder headers = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            headers.append((char) c);
+            if (headers.toString().endsWith("\r\n\r\n")) {
+                break;
+            }
+        }
+        for (String line : headers.toString().split("\r\n")) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                return line.substring("sec-websocket-key:".length()).trim();
+            }
+        }
+        throw new IOException("No Sec-WebSocket-Key in the opening handshake");
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x80 | opcode);
+        if (payload.length < 126) {
+            frame.write(payload.length);
+        } else {
+            frame.write(126);
+            frame.write(payload.length >> 8);
+            frame.write(payload.length & 0xff);
+        }
+        frame.write(payload);
+        out.write(frame.toByteArray());
+        out.flush();
+    }
+
+    /**
+     * Records the incoming messages and how the session completed
+     */
+    private static final class RecordingListener implements StreamListener {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Throwable completionError;
+
+        @Override
+        public void onStart(int statusCode, String contentType) {
+        }
+
+        @Override
+        public void onEvent(StreamEvent event) {
+            events.add(event.getText());
+        }
+
+        @Override
+        public void onComplete(Throwable error) {
+            completionError = error;
+            completed.countDown();
+        }
+    }
+}